@@ -0,0 +1,319 @@
+package org.poo.benchmarks;
+
+import org.poo.accounts.ClassicAccount;
+import org.poo.app.AppManager;
+import org.poo.app.ExecutionContext;
+import org.poo.cards.Card;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.UserInput;
+import org.poo.transactions.TransactionStrategy;
+import org.poo.users.User;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A synthetic bank shared by the benchmarks. It is built through the same commands an input
+ * file would use: users and commerciants are set up, then every user opens accounts in a
+ * spread of currencies, every account gets cards and funds, and a history of online payments.
+ * The bank is built again before every iteration, so the benchmarks that add transactions
+ * never measure an ever-growing state.
+ */
+@State(Scope.Benchmark)
+public class BankState {
+    /**
+     * The warm-up iterations of every benchmark of the bank.
+     */
+    public static final int WARMUP_ITERATIONS = 3;
+    /**
+     * The measured iterations of every benchmark of the bank.
+     */
+    public static final int MEASURED_ITERATIONS = 5;
+
+    private static final String[] CURRENCIES = {
+        "RON", "EUR", "USD", "GBP", "CHF", "JPY", "CAD", "AUD"
+    };
+    private static final String[] TYPES = {"Food", "Clothes", "Tech"};
+    private static final String[] CASHBACKS = {"nrOfTransactions", "spendingThreshold"};
+    private static final int COMMERCIANTS = 8;
+    private static final double INITIAL_FUNDS = 1e12;
+    private static final double MAX_PAYMENT = 50.0;
+    private static final long SEED = 42;
+
+    @Param("1000")
+    private int users;
+    @Param("2")
+    private int accountsPerUser;
+    @Param("2")
+    private int cardsPerAccount;
+    @Param("4")
+    private int currencies;
+    @Param("100")
+    private int historyLength;
+
+    private ExecutionContext context;
+    private AppManager manager;
+    private Random random;
+    private int timestamp;
+    private List<User> holders;
+    private List<ClassicAccount> accounts;
+    private List<String> cardNumbers;
+    private List<String> cardOwners;
+    private List<String> cardCurrencies;
+
+    /**
+     * Builds the bank.
+     */
+    @Setup(Level.Iteration)
+    public void build() {
+        context = new ExecutionContext(new DiscardingOutputSink());
+        manager = new AppManager(context);
+        random = new Random(SEED);
+        timestamp = 0;
+        manager.start(setUpInput());
+
+        for (User user : manager.getUsers()) {
+            for (int i = 0; i < accountsPerUser; i++) {
+                CommandInput command = command("addAccount", user.getEmail());
+                command.setCurrency(currency(random.nextInt(currencies)));
+                command.setAccountType("classic");
+                execute(command);
+            }
+        }
+
+        holders = new ArrayList<>();
+        accounts = new ArrayList<>();
+        for (User user : manager.getUsers()) {
+            for (ClassicAccount account : user.getAccounts()) {
+                holders.add(user);
+                accounts.add(account);
+                for (int i = 0; i < cardsPerAccount; i++) {
+                    CommandInput command = command("createCard", user.getEmail());
+                    command.setAccount(account.getIban());
+                    execute(command);
+                }
+                CommandInput funds = command("addFunds", user.getEmail());
+                funds.setAccount(account.getIban());
+                funds.setAmount(INITIAL_FUNDS);
+                execute(funds);
+            }
+        }
+
+        cardNumbers = new ArrayList<>();
+        cardOwners = new ArrayList<>();
+        cardCurrencies = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            for (Card card : accounts.get(i).getCards()) {
+                cardNumbers.add(card.getCardNumber());
+                cardOwners.add(holders.get(i).getEmail());
+                cardCurrencies.add(accounts.get(i).getCurrency());
+            }
+        }
+
+        for (int i = 0; i < historyLength; i++) {
+            for (int card = 0; card < cardNumbers.size(); card += cardsPerAccount) {
+                execute(payment(card, i));
+            }
+        }
+    }
+
+    /**
+     * Creates a transaction for a command and executes it, as the run of an input file does.
+     *
+     * @param command the command.
+     * @return the transaction, or {@code null} if the command produced none.
+     */
+    public TransactionStrategy execute(final CommandInput command) {
+        TransactionStrategy transaction = manager.useTransactionFactory(command, context);
+        if (transaction != null) {
+            transaction.makeTransaction();
+        }
+        return transaction;
+    }
+
+    /**
+     * Creates a command, stamped after every command created before it.
+     *
+     * @param name the name of the command.
+     * @param email the email of the user who gives it.
+     * @return the command.
+     */
+    public CommandInput command(final String name, final String email) {
+        CommandInput command = new CommandInput();
+        command.setCommand(name);
+        command.setEmail(email);
+        command.setTimestamp(++timestamp);
+        return command;
+    }
+
+    /**
+     * Creates an online payment made with a card, at one of the commerciants.
+     *
+     * @param card the index of the card.
+     * @param commerciant picks the commerciant; any value is taken modulo their number.
+     * @return the command.
+     */
+    public CommandInput payment(final int card, final int commerciant) {
+        CommandInput command = command("payOnline", cardOwners.get(card));
+        command.setCardNumber(cardNumbers.get(card));
+        command.setCurrency(cardCurrencies.get(card));
+        command.setCommerciant(commerciantName(commerciant % COMMERCIANTS));
+        command.setAmount(1 + random.nextDouble(MAX_PAYMENT));
+        command.setDescription("benchmark");
+        return command;
+    }
+
+    /**
+     * Retrieves the manager that turns commands into transactions.
+     *
+     * @return the manager.
+     */
+    public AppManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Retrieves the run the bank lives in.
+     *
+     * @return the execution context.
+     */
+    public ExecutionContext getContext() {
+        return context;
+    }
+
+    /**
+     * Retrieves the random numbers used to build the bank and its commands.
+     *
+     * @return the generator, seeded the same for every iteration.
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Retrieves every account, in the order of their users.
+     *
+     * @return the accounts.
+     */
+    public List<ClassicAccount> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Retrieves the users that own the accounts, at the same indices as the accounts.
+     *
+     * @return the users.
+     */
+    public List<User> getHolders() {
+        return holders;
+    }
+
+    /**
+     * Retrieves the number of users in the bank.
+     *
+     * @return the number of users.
+     */
+    public int getUserCount() {
+        return users;
+    }
+
+    /**
+     * Retrieves the number of accounts every user opens; the accounts of a user are next to
+     * each other in {@link #getAccounts()}.
+     *
+     * @return the number of accounts per user.
+     */
+    public int getAccountsPerUser() {
+        return accountsPerUser;
+    }
+
+    /**
+     * Retrieves the number of cards in the bank.
+     *
+     * @return the number of cards.
+     */
+    public int getCardCount() {
+        return cardNumbers.size();
+    }
+
+    /**
+     * Retrieves the number of currencies the accounts are opened in.
+     *
+     * @return the number of currencies.
+     */
+    public int getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * Retrieves the code of one of the currencies the accounts are opened in.
+     *
+     * @param index the index of the currency.
+     * @return the currency code.
+     */
+    public String currency(final int index) {
+        return CURRENCIES[index];
+    }
+
+    /**
+     * Builds the set-up sections of the input: the users, the commerciants and a rate from
+     * every currency to RON, from which every other pair is derived.
+     *
+     * @return the input, without commands.
+     */
+    private ObjectInput setUpInput() {
+        UserInput[] userInputs = new UserInput[users];
+        for (int i = 0; i < users; i++) {
+            userInputs[i] = new UserInput();
+            userInputs[i].setFirstName("User");
+            userInputs[i].setLastName(String.valueOf(i));
+            userInputs[i].setEmail("user" + i + "@bench.poo");
+            userInputs[i].setBirthDate("1990-01-01");
+            userInputs[i].setOccupation("engineer");
+        }
+
+        CommerciantInput[] commerciantInputs = new CommerciantInput[COMMERCIANTS];
+        for (int i = 0; i < COMMERCIANTS; i++) {
+            commerciantInputs[i] = new CommerciantInput();
+            commerciantInputs[i].setCommerciant(commerciantName(i));
+            commerciantInputs[i].setId(i);
+            commerciantInputs[i].setAccount("RO00BENCH" + i);
+            commerciantInputs[i].setType(TYPES[i % TYPES.length]);
+            commerciantInputs[i].setCashbackStrategy(CASHBACKS[i % CASHBACKS.length]);
+        }
+
+        ExchangeInput[] rates = new ExchangeInput[currencies - 1];
+        for (int i = 1; i < currencies; i++) {
+            rates[i - 1] = new ExchangeInput();
+            rates[i - 1].setFrom(CURRENCIES[i]);
+            rates[i - 1].setTo(CURRENCIES[0]);
+            rates[i - 1].setRate(1 + random.nextDouble(MAX_PAYMENT));
+        }
+
+        ObjectInput input = new ObjectInput();
+        input.setUsers(userInputs);
+        input.setCommerciants(commerciantInputs);
+        input.setExchangeRates(rates);
+        input.setCommands(new CommandInput[0]);
+        return input;
+    }
+
+    /**
+     * Names a commerciant.
+     *
+     * @param index the index of the commerciant.
+     * @return the name of the commerciant.
+     */
+    private static String commerciantName(final int index) {
+        return "Commerciant" + index;
+    }
+}
@@ -0,0 +1,128 @@
+package org.poo.benchmarks;
+
+import org.poo.accounts.AccountLocks;
+import org.poo.accounts.ClassicAccount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Use this to see how the striped balance locks scale. A fixed number of transfers between
+ * random accounts is split among 1, 2, 4, ... threads; every transfer locks both accounts,
+ * debits one and credits the other. The total of all balances is checked after every round.
+ */
+public final class ContentionBenchmark {
+    private static final int ACCOUNTS = 1024;
+    private static final int TRANSFERS = 4_000_000;
+    private static final double INITIAL_BALANCE = 1_000.0;
+    private static final double MAX_TRANSFER = 50.0;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * for coding style
+     */
+    private ContentionBenchmark() {
+    }
+
+    /**
+     * @param args optionally, the largest number of threads; by default, the number of cores
+     * @throws InterruptedException if the benchmark is interrupted
+     * @throws ExecutionException if a transfer fails
+     */
+    public static void main(final String[] args)
+            throws InterruptedException, ExecutionException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        AccountLocks locks = new AccountLocks();
+        ClassicAccount[] accounts = new ClassicAccount[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = new ClassicAccount("RO" + i + "POOB", "RON", "classic", locks);
+            accounts[i].setBalance(INITIAL_BALANCE);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(accounts, maxThreads);
+        }
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long elapsed = run(accounts, threads);
+            double perMilli = TRANSFERS / (elapsed / NANOS_PER_MILLI);
+            if (threads == 1) {
+                single = perMilli;
+            }
+            System.out.printf("%2d threads: %8.0f transfers/ms, %.2fx, total %s%n",
+                    threads, perMilli, perMilli / single, totalOf(accounts));
+        }
+    }
+
+    /**
+     * Runs every transfer, split evenly among the given number of threads.
+     *
+     * @param accounts the accounts to transfer between.
+     * @param threads the number of threads.
+     * @return the time it took, in nanoseconds.
+     * @throws InterruptedException if the benchmark is interrupted
+     * @throws ExecutionException if a transfer fails
+     */
+    private static long run(final ClassicAccount[] accounts, final int threads)
+            throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int share = TRANSFERS / threads;
+            List<Future<?>> runs = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < threads; i++) {
+                runs.add(pool.submit(() -> transfer(accounts, share)));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Moves random amounts between random pairs of accounts.
+     *
+     * @param accounts the accounts to transfer between.
+     * @param count the number of transfers.
+     */
+    private static void transfer(final ClassicAccount[] accounts, final int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            ClassicAccount giver = accounts[random.nextInt(ACCOUNTS)];
+            ClassicAccount receiver = accounts[random.nextInt(ACCOUNTS)];
+            double amount = random.nextDouble(MAX_TRANSFER);
+            AccountLocks.Held held = AccountLocks.lockAll(giver, receiver);
+            try {
+                if (giver.debitIfAvailable(amount, 0)) {
+                    receiver.credit(amount);
+                }
+            } finally {
+                held.close();
+            }
+        }
+    }
+
+    /**
+     * Adds up the balances of all the accounts; transfers never change it.
+     *
+     * @param accounts the accounts.
+     * @return the total, rounded to cents.
+     */
+    private static String totalOf(final ClassicAccount[] accounts) {
+        double total = 0;
+        for (ClassicAccount account : accounts) {
+            total += account.getBalance();
+        }
+        return String.format("%.2f", total);
+    }
+}
@@ -0,0 +1,68 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.poo.app.JsonService;
+import org.poo.app.JsonWritable;
+import org.poo.app.OutputSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Serializes every result, as the file output would, but throws the bytes away, so the
+ * benchmarks pay for writing the output without keeping it.
+ */
+public final class DiscardingOutputSink implements OutputSink {
+    private final JsonGenerator generator;
+
+    /**
+     * Constructs a sink that writes to nowhere.
+     */
+    public DiscardingOutputSink() {
+        try {
+            generator = JsonService.mapper().createGenerator(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes a result and drops it.
+     *
+     * @param result the result to write.
+     */
+    @Override
+    public void add(final JsonNode result) {
+        try {
+            JsonService.mapper().writeTree(generator, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lets a result write itself and drops it.
+     *
+     * @param result the result to write.
+     */
+    @Override
+    public void write(final JsonWritable result) {
+        try {
+            result.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the generator.
+     *
+     * @throws IOException never, since nothing is written anywhere.
+     */
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
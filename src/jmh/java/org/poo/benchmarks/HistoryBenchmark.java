@@ -0,0 +1,134 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.app.AppManager;
+import org.poo.app.ExecutionContext;
+import org.poo.app.JsonService;
+import org.poo.app.MemoryOutputSink;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.StreamingInput;
+import org.poo.transactions.TransactionStrategy;
+import org.poo.users.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Use this to compare the two ways of printing transaction histories. Every test input is run
+ * once, then the history of every user is printed over and over, as a {@code printTransactions}
+ * command would: once through {@code convertValue} and once through {@code writeTo}.
+ */
+public final class HistoryBenchmark {
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 200;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * for coding style
+     */
+    private HistoryBenchmark() {
+    }
+
+    /**
+     * @param args unused
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        List<List<TransactionStrategy>> histories = loadHistories();
+        int entries = histories.stream().mapToInt(List::size).sum();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            printReflective(histories);
+            printGenerated(histories);
+        }
+        long reflective = 0;
+        long generated = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            printReflective(histories);
+            long middle = System.nanoTime();
+            printGenerated(histories);
+            generated += System.nanoTime() - middle;
+            reflective += middle - start;
+        }
+
+        System.out.printf("%d histories, %d entries, %d rounds%n",
+                histories.size(), entries, MEASURED_ROUNDS);
+        System.out.printf("convertValue: %.2f ms per round%n",
+                reflective / NANOS_PER_MILLI / MEASURED_ROUNDS);
+        System.out.printf("writeTo:      %.2f ms per round%n",
+                generated / NANOS_PER_MILLI / MEASURED_ROUNDS);
+        System.out.printf("speedup:      %.2fx%n", (double) reflective / generated);
+    }
+
+    /**
+     * Runs every test input and collects the transaction history of every user.
+     *
+     * @return the histories of all the users of all the inputs.
+     * @throws IOException if an input cannot be read.
+     */
+    private static List<List<TransactionStrategy>> loadHistories() throws IOException {
+        File[] inputs = Objects.requireNonNull(new File(CheckerConstants.TESTS_PATH).listFiles());
+        Arrays.sort(inputs);
+
+        List<List<TransactionStrategy>> histories = new ArrayList<>();
+        for (File input : inputs) {
+            AppManager appManager = new AppManager(new ExecutionContext(new MemoryOutputSink()));
+            try (StreamingInput in = new StreamingInput(JsonService.mapper(), input)) {
+                appManager.start(in);
+            }
+            for (User user : appManager.getUsers()) {
+                histories.add(user.getTransactions());
+            }
+        }
+        return histories;
+    }
+
+    /**
+     * Prints every history the way it was done before: each entry is converted into a tree
+     * through the bean serializer, and the trees are then written out.
+     *
+     * @param histories the histories to print.
+     * @throws IOException if the output cannot be written.
+     */
+    private static void printReflective(final List<List<TransactionStrategy>> histories)
+            throws IOException {
+        ObjectMapper mapper = JsonService.mapper();
+        for (List<TransactionStrategy> history : histories) {
+            ArrayNode printNode = mapper.createArrayNode();
+            for (TransactionStrategy transaction : history) {
+                printNode.add(mapper.convertValue(transaction, ObjectNode.class));
+            }
+            JsonService.prettyWriter().writeValue(OutputStream.nullOutputStream(), printNode);
+        }
+    }
+
+    /**
+     * Prints every history by letting each entry write itself into the generator.
+     *
+     * @param histories the histories to print.
+     * @throws IOException if the output cannot be written.
+     */
+    private static void printGenerated(final List<List<TransactionStrategy>> histories)
+            throws IOException {
+        for (List<TransactionStrategy> history : histories) {
+            try (JsonGenerator generator = JsonService.mapper().getFactory()
+                    .createGenerator(OutputStream.nullOutputStream())) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartArray();
+                for (TransactionStrategy transaction : history) {
+                    transaction.writeTo(generator);
+                }
+                generator.writeEndArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.transactions.TransactionStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The paths that read the bank without changing it: exchange rates, turning a command into a
+ * transaction, and the reports that print accounts and histories.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = BankState.WARMUP_ITERATIONS)
+@Measurement(iterations = BankState.MEASURED_ITERATIONS)
+public class LookupBenchmark {
+    private static final String[] DISPATCHED = {
+        "payOnline", "sendMoney", "addFunds", "report", "checkCardStatus"
+    };
+
+    private int next;
+
+    /**
+     * Converts between two of the currencies of the bank.
+     *
+     * @param bank the bank.
+     * @return the rate.
+     */
+    @Benchmark
+    public double exchangeRate(final BankState bank) {
+        int pair = next++;
+        return bank.getContext().getBank().getExchangeRate(
+                bank.currency(pair % bank.getCurrencies()),
+                bank.currency(pair / bank.getCurrencies() % bank.getCurrencies()));
+    }
+
+    /**
+     * Looks up the users, accounts, cards and commerciants of a command and builds its
+     * transaction, without executing it.
+     *
+     * @param bank the bank.
+     * @return the transaction.
+     */
+    @Benchmark
+    public TransactionStrategy dispatch(final BankState bank) {
+        int index = next++;
+        int account = index % bank.getAccounts().size();
+        String kind = DISPATCHED[index % DISPATCHED.length];
+        CommandInput command;
+        if (kind.equals("payOnline") || kind.equals("checkCardStatus")) {
+            command = bank.payment(index % bank.getCardCount(), index);
+            command.setCommand(kind);
+        } else {
+            command = bank.command(kind, bank.getHolders().get(account).getEmail());
+            command.setAccount(bank.getAccounts().get(account).getIban());
+            command.setReceiver(bank.getAccounts()
+                    .get((account + 1) % bank.getAccounts().size()).getIban());
+            command.setAmount(1);
+        }
+        return bank.getManager().useTransactionFactory(command, bank.getContext());
+    }
+
+    /**
+     * Prints the report of an account over its whole history.
+     *
+     * @param bank the bank.
+     * @return the report.
+     */
+    @Benchmark
+    public TransactionStrategy report(final BankState bank) {
+        int account = next++ % bank.getAccounts().size();
+        CommandInput command = bank.command("report",
+                bank.getHolders().get(account).getEmail());
+        command.setAccount(bank.getAccounts().get(account).getIban());
+        command.setStartTimestamp(0);
+        command.setEndTimestamp(command.getTimestamp());
+        return bank.execute(command);
+    }
+
+    /**
+     * Prints every user with their accounts and cards.
+     *
+     * @param bank the bank.
+     * @return the printing transaction.
+     */
+    @Benchmark
+    public TransactionStrategy printUsers(final BankState bank) {
+        return bank.execute(bank.command("printUsers", null));
+    }
+}
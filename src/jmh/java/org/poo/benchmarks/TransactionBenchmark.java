@@ -0,0 +1,90 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.transactions.TransactionStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The paths that move money: online payments, transfers between accounts, and split payments
+ * that every involved user accepts.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = BankState.WARMUP_ITERATIONS)
+@Measurement(iterations = BankState.MEASURED_ITERATIONS)
+public class TransactionBenchmark {
+    private static final int SPLIT_USERS = 3;
+    private static final double SPLIT_AMOUNT = 30.0;
+
+    private int next;
+
+    /**
+     * Pays online with one of the cards of the bank.
+     *
+     * @param bank the bank.
+     * @return the payment.
+     */
+    @Benchmark
+    public TransactionStrategy payOnline(final BankState bank) {
+        int index = next++;
+        return bank.execute(bank.payment(index % bank.getCardCount(), index));
+    }
+
+    /**
+     * Sends money from one account to the next one.
+     *
+     * @param bank the bank.
+     * @return the transfer.
+     */
+    @Benchmark
+    public TransactionStrategy sendMoney(final BankState bank) {
+        int giver = next++ % bank.getAccounts().size();
+        CommandInput command = bank.command("sendMoney",
+                bank.getHolders().get(giver).getEmail());
+        command.setAccount(bank.getAccounts().get(giver).getIban());
+        command.setReceiver(bank.getAccounts()
+                .get((giver + 1) % bank.getAccounts().size()).getIban());
+        command.setAmount(1 + bank.getRandom().nextInt(SPLIT_USERS));
+        command.setDescription("benchmark");
+        return bank.execute(command);
+    }
+
+    /**
+     * Splits a payment equally among the first accounts of consecutive users, then has every
+     * one of them accept it.
+     *
+     * @param bank the bank.
+     * @param sink consumes the answers.
+     */
+    @Benchmark
+    public void splitPayment(final BankState bank, final Blackhole sink) {
+        int perUser = bank.getAccountsPerUser();
+        int first = next++ % (bank.getUserCount() - SPLIT_USERS + 1);
+        List<String> ibans = new ArrayList<>();
+        for (int i = 0; i < SPLIT_USERS; i++) {
+            ibans.add(bank.getAccounts().get((first + i) * perUser).getIban());
+        }
+        CommandInput split = bank.command("splitPayment", null);
+        split.setSplitPaymentType("equal");
+        split.setAccounts(ibans);
+        split.setAmount(SPLIT_AMOUNT);
+        split.setCurrency(bank.getAccounts().get(first * perUser).getCurrency());
+        sink.consume(bank.execute(split));
+
+        for (int i = 0; i < SPLIT_USERS; i++) {
+            CommandInput accept = bank.command("acceptSplitPayment",
+                    bank.getHolders().get((first + i) * perUser).getEmail());
+            accept.setSplitPaymentType("equal");
+            sink.consume(bank.execute(accept));
+        }
+    }
+}
@@ -0,0 +1,1027 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.app.JsonService;
+import org.poo.utils.IdGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Use this to write large input files, shaped like the ones in {@code input/}: users,
+ * commerciants with both cashback strategies, a connected graph of exchange rates, and any
+ * number of commands, drawn from a configurable mix. By default, the mix follows how often
+ * each command appears in the tests, except {@code printUsers}, which prints the whole bank
+ * and is kept rare so the output stays proportional to the input.
+ *
+ * <p>Commands only name users, accounts and cards that exist when they run. The generator
+ * draws IBANs and card numbers from its own {@link IdGenerator}, in the order the run will
+ * draw them, and never names an account or card again once it was asked to delete it.
+ * Paying with a one-time card draws a new number only if the payment goes through, so
+ * one-time cards are kept on reserved accounts that only receive money, apart from the
+ * payments made with those cards, and whose balance is tracked to make sure every such
+ * payment succeeds.
+ *
+ * <p>Arguments: the output file, then optionally the number of commands, the number of users,
+ * the seed and the changes to the mix, as in {@code printUsers=0,payOnline=1000}. The same
+ * arguments always produce the same file.
+ */
+public final class WorkloadGenerator {
+    private static final String[] COMMANDS = {
+        "addFunds", "payOnline", "addAccount", "upgradePlan", "acceptSplitPayment",
+        "addNewBusinessAssociate", "createCard", "printTransactions", "sendMoney", "printUsers",
+        "createOneTimeCard", "setMinimumBalance", "cashWithdrawal", "spendingsReport",
+        "deleteAccount", "deleteCard", "withdrawSavings", "businessReport",
+        "changeSpendingLimit", "splitPayment", "addInterest", "changeInterestRate",
+        "rejectSplitPayment", "setAlias", "checkCardStatus", "changeDepositLimit", "report"
+    };
+    private static final int[] DEFAULT_WEIGHTS = {
+        798, 356, 299, 213, 168,
+        113, 109, 99, 82, 1,
+        78, 66, 64, 51,
+        42, 40, 36, 36,
+        32, 24, 24, 18,
+        17, 10, 9, 7, 2
+    };
+    private static final String[] CURRENCIES = {
+        "RON", "EUR", "USD", "GBP", "CHF", "JPY", "CAD", "AUD"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Ana", "Mihai", "Elena", "Andrei", "Maria", "Jennifer", "Omar", "Pauline", "Jason"
+    };
+    private static final String[] LAST_NAMES = {
+        "Popescu", "Ionescu", "Gould", "Roux", "Becker", "Carpenter", "Cristea", "Robles"
+    };
+    private static final String[] OCCUPATIONS = {"student", "engineer", "doctor", "artist"};
+    private static final String[] TYPES = {"Food", "Clothes", "Tech"};
+    private static final String[] CASHBACKS = {"nrOfTransactions", "spendingThreshold"};
+    private static final String[] PLANS = {"silver", "gold"};
+    private static final String[] ROLES = {"employee", "manager"};
+    private static final String[] SPLIT_TYPES = {"equal", "custom"};
+
+    private static final int DEFAULT_COMMANDS = 1_000_000;
+    private static final int DEFAULT_USERS = 10_000;
+    private static final long DEFAULT_SEED = 1;
+    private static final int ARG_COMMANDS = 1;
+    private static final int ARG_USERS = 2;
+    private static final int ARG_SEED = 3;
+    private static final int ARG_MIX = 4;
+    private static final int USERS_PER_COMMERCIANT = 100;
+    private static final int MIN_COMMERCIANTS = 20;
+    private static final int FIRST_BIRTH_YEAR = 1950;
+    private static final int BIRTH_YEARS = 57;
+    private static final int MONTHS = 12;
+    private static final int DAYS = 28;
+    private static final int PERCENT = 100;
+    private static final int RESERVED_PERCENT = 10;
+    private static final int SAVINGS_PERCENT = 15;
+    private static final int BUSINESS_PERCENT = 15;
+    private static final int ONE_TIME_PERCENT = 20;
+    private static final int COMMERCIANT_RECEIVER_PERCENT = 20;
+    private static final int ALIAS_RECEIVER_PERCENT = 10;
+    private static final int MAX_SPLIT_USERS = 4;
+    private static final int MAX_PICKS = 16;
+    private static final double MAX_FUNDS = 5_000;
+    private static final double MAX_PAYMENT = 500;
+    private static final double MAX_RATE = 5;
+    private static final double MIN_RATE = 0.2;
+    private static final double MAX_INTEREST = 1;
+    private static final double PAYMENT_MARGIN = 1.01;
+    private static final double CENTS = 100;
+
+    private final Random random;
+    private final IdGenerator ids;
+    private final JsonGenerator out;
+    private final int[] cumulativeWeights;
+    private final List<UserModel> users;
+    private final List<String> commerciantNames;
+    private final List<String> commerciantIbans;
+    private final List<AccountModel> open;
+    private final List<AccountModel> savings;
+    private final List<AccountModel> business;
+    private final List<AccountModel> reserved;
+    private final List<CardModel> cards;
+    private final List<CardModel> oneTimeCards;
+    private final List<AccountModel> aliased;
+    private final List<SplitModel> splits;
+    private final int currencies;
+    private int timestamp;
+
+    private static final class UserModel {
+        private final String email;
+
+        /**
+         * Constructs a user.
+         *
+         * @param email the email of the user.
+         */
+        private UserModel(final String email) {
+            this.email = email;
+        }
+    }
+
+    private static final class AccountModel {
+        private final String iban;
+        private final UserModel owner;
+        private final String currency;
+        private String alias;
+        private boolean deleted;
+        private double floor;
+
+        /**
+         * Constructs an account.
+         *
+         * @param iban the IBAN the run will give the account.
+         * @param owner the user who opens the account.
+         * @param currency the currency of the account.
+         */
+        private AccountModel(final String iban, final UserModel owner, final String currency) {
+            this.iban = iban;
+            this.owner = owner;
+            this.currency = currency;
+        }
+    }
+
+    private static final class CardModel {
+        private final AccountModel account;
+        private String number;
+        private boolean deleted;
+
+        /**
+         * Constructs a card.
+         *
+         * @param number the number the run will give the card.
+         * @param account the account of the card.
+         */
+        private CardModel(final String number, final AccountModel account) {
+            this.number = number;
+            this.account = account;
+        }
+
+        /**
+         * Checks whether the card can still be named by a command.
+         *
+         * @return {@code true} if neither the card nor its account were deleted.
+         */
+        private boolean isLive() {
+            return !deleted && !account.deleted;
+        }
+    }
+
+    private static final class SplitModel {
+        private final String type;
+        private final List<String> waiting;
+
+        /**
+         * Constructs a split payment that waits for the answers of its users.
+         *
+         * @param type the type of the split payment.
+         * @param waiting the emails of the users who did not answer yet.
+         */
+        private SplitModel(final String type, final List<String> waiting) {
+            this.type = type;
+            this.waiting = waiting;
+        }
+    }
+
+    /**
+     * Constructs a generator that writes to the given generator.
+     *
+     * @param out the JSON generator of the output file.
+     * @param seed the seed of every random choice.
+     * @param userCount the number of users.
+     * @param weights the weight of every command of {@link #COMMANDS}.
+     */
+    private WorkloadGenerator(final JsonGenerator out, final long seed, final int userCount,
+                              final int[] weights) {
+        this.out = out;
+        random = new Random(seed);
+        ids = new IdGenerator();
+        cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix has no commands");
+        }
+        users = new ArrayList<>(userCount);
+        commerciantNames = new ArrayList<>();
+        commerciantIbans = new ArrayList<>();
+        open = new ArrayList<>();
+        savings = new ArrayList<>();
+        business = new ArrayList<>();
+        reserved = new ArrayList<>();
+        cards = new ArrayList<>();
+        oneTimeCards = new ArrayList<>();
+        aliased = new ArrayList<>();
+        splits = new ArrayList<>();
+        currencies = CURRENCIES.length;
+        for (int i = 0; i < userCount; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            users.add(new UserModel(first + "_" + last + "_" + i + "@mail.com"));
+        }
+    }
+
+    /**
+     * @param args the output file, then optionally the number of commands, the number of
+     *             users, the seed and the changes to the mix
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: WorkloadGenerator <output.json> [commands] [users]"
+                    + " [seed] [command=weight,...]");
+            return;
+        }
+        int commands = args.length > ARG_COMMANDS ? Integer.parseInt(args[ARG_COMMANDS])
+                : DEFAULT_COMMANDS;
+        int userCount = args.length > ARG_USERS ? Integer.parseInt(args[ARG_USERS])
+                : DEFAULT_USERS;
+        long seed = args.length > ARG_SEED ? Long.parseLong(args[ARG_SEED]) : DEFAULT_SEED;
+        int[] weights = mix(args.length > ARG_MIX ? args[ARG_MIX] : "");
+
+        try (JsonGenerator out = JsonService.mapper().getFactory()
+                .createGenerator(new File(args[0]), JsonEncoding.UTF8)) {
+            new WorkloadGenerator(out, seed, userCount, weights).write(commands);
+        }
+    }
+
+    /**
+     * Applies changes to the default mix.
+     *
+     * @param changes the new weights, as in {@code printUsers=0,payOnline=1000}.
+     * @return the weight of every command of {@link #COMMANDS}.
+     */
+    private static int[] mix(final String changes) {
+        int[] weights = DEFAULT_WEIGHTS.clone();
+        if (changes.isBlank()) {
+            return weights;
+        }
+        for (String change : changes.split(",")) {
+            String[] parts = change.trim().split("=");
+            int index = Arrays.asList(COMMANDS).indexOf(parts[0]);
+            if (parts.length != 2 || index < 0) {
+                throw new IllegalArgumentException("Unknown mix entry " + change);
+            }
+            weights[index] = Integer.parseInt(parts[1]);
+        }
+        return weights;
+    }
+
+    /**
+     * Writes the whole input file: the set-up sections first, so the run can execute the
+     * commands while it is still reading them.
+     *
+     * @param commands the number of commands.
+     * @throws IOException if the file cannot be written.
+     */
+    private void write(final int commands) throws IOException {
+        out.writeStartObject();
+        writeUsers();
+        writeCommerciants();
+        writeExchangeRates();
+        out.writeArrayFieldStart("commands");
+        for (int i = 0; i < commands; i++) {
+            timestamp++;
+            writeCommand(pickCommand());
+        }
+        out.writeEndArray();
+        out.writeEndObject();
+    }
+
+    /**
+     * Writes the users.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeUsers() throws IOException {
+        out.writeArrayFieldStart("users");
+        for (UserModel user : users) {
+            String[] names = user.email.split("_");
+            out.writeStartObject();
+            out.writeStringField("firstName", names[0]);
+            out.writeStringField("lastName", names[1]);
+            out.writeStringField("email", user.email);
+            out.writeStringField("birthDate", String.format("%d-%02d-%02d",
+                    FIRST_BIRTH_YEAR + random.nextInt(BIRTH_YEARS),
+                    1 + random.nextInt(MONTHS), 1 + random.nextInt(DAYS)));
+            out.writeStringField("occupation", OCCUPATIONS[random.nextInt(OCCUPATIONS.length)]);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes the commerciants, cycling through the types and the cashback strategies. Their
+     * IBANs use a bank code the run never generates, so they cannot clash with accounts.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeCommerciants() throws IOException {
+        int count = Math.max(MIN_COMMERCIANTS, users.size() / USERS_PER_COMMERCIANT);
+        out.writeArrayFieldStart("commerciants");
+        for (int i = 0; i < count; i++) {
+            commerciantNames.add("Commerciant " + i);
+            commerciantIbans.add(String.format("RO00SHOP%016d", i));
+            out.writeStartObject();
+            out.writeStringField("commerciant", commerciantNames.get(i));
+            out.writeNumberField("id", i);
+            out.writeStringField("account", commerciantIbans.get(i));
+            out.writeStringField("type", TYPES[i % TYPES.length]);
+            out.writeStringField("cashbackStrategy",
+                    CASHBACKS[i / TYPES.length % CASHBACKS.length]);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes one rate from every currency to one of the currencies before it, which keeps the
+     * graph of rates connected without contradicting cycles.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeExchangeRates() throws IOException {
+        out.writeArrayFieldStart("exchangeRates");
+        for (int i = 1; i < currencies; i++) {
+            out.writeStartObject();
+            out.writeStringField("from", CURRENCIES[i]);
+            out.writeStringField("to", CURRENCIES[random.nextInt(i)]);
+            out.writeNumberField("rate", round(MIN_RATE + random.nextDouble(MAX_RATE)));
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Draws the next command from the mix.
+     *
+     * @return the name of the command.
+     */
+    private String pickCommand() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = Arrays.binarySearch(cumulativeWeights, draw + 1);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        while (index > 0 && cumulativeWeights[index - 1] == cumulativeWeights[index]) {
+            index--;
+        }
+        return COMMANDS[index];
+    }
+
+    /**
+     * Writes a command. When the bank has nothing the command could use yet, an account is
+     * opened instead, which every later command can build on.
+     *
+     * @param name the name of the command.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeCommand(final String name) throws IOException {
+        boolean written = switch (name) {
+            case "addFunds" -> addFunds();
+            case "payOnline" -> payOnline();
+            case "upgradePlan" -> upgradePlan();
+            case "acceptSplitPayment", "rejectSplitPayment" -> answerSplit(name);
+            case "addNewBusinessAssociate" -> addAssociate();
+            case "createCard" -> createCard();
+            case "createOneTimeCard" -> createOneTimeCard();
+            case "printTransactions" -> printTransactions();
+            case "printUsers" -> printUsers();
+            case "sendMoney" -> sendMoney();
+            case "setMinimumBalance" -> setMinimumBalance();
+            case "cashWithdrawal" -> cashWithdrawal();
+            case "spendingsReport", "report" -> report(name, pick(open));
+            case "businessReport" -> businessReport();
+            case "deleteAccount" -> deleteAccount();
+            case "deleteCard" -> deleteCard();
+            case "withdrawSavings" -> withdrawSavings();
+            case "changeSpendingLimit", "changeDepositLimit" -> changeLimit(name);
+            case "splitPayment" -> splitPayment();
+            case "addInterest", "changeInterestRate" -> interest(name);
+            case "setAlias" -> setAlias();
+            case "checkCardStatus" -> checkCardStatus();
+            default -> false;
+        };
+        if (!written) {
+            addAccount();
+        }
+    }
+
+    /**
+     * Opens an account for a random user. Some classic accounts are reserved for one-time
+     * cards.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void addAccount() throws IOException {
+        UserModel user = users.get(random.nextInt(users.size()));
+        AccountModel account = new AccountModel(ids.generateIBAN(), user,
+                CURRENCIES[random.nextInt(currencies)]);
+        int kind = random.nextInt(PERCENT);
+        String type = "classic";
+        if (kind < RESERVED_PERCENT) {
+            reserved.add(account);
+        } else if (kind < RESERVED_PERCENT + SAVINGS_PERCENT) {
+            type = "savings";
+            savings.add(account);
+            open.add(account);
+        } else if (kind < RESERVED_PERCENT + SAVINGS_PERCENT + BUSINESS_PERCENT) {
+            type = "business";
+            business.add(account);
+            open.add(account);
+        } else {
+            open.add(account);
+        }
+
+        begin("addAccount");
+        out.writeStringField("email", user.email);
+        out.writeStringField("currency", account.currency);
+        out.writeStringField("accountType", type);
+        if (type.equals("savings")) {
+            out.writeNumberField("interestRate", round(random.nextDouble(MAX_INTEREST)));
+        }
+        end();
+    }
+
+    /**
+     * Adds funds to an account; the funds of a reserved account raise its tracked balance.
+     *
+     * @return {@code false} if there is no account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean addFunds() throws IOException {
+        boolean toReserved = random.nextBoolean();
+        AccountModel account = pick(toReserved ? reserved : open);
+        if (account == null) {
+            return false;
+        }
+        double amount = round(1 + random.nextDouble(MAX_FUNDS));
+        if (toReserved) {
+            account.floor += amount;
+        }
+        begin("addFunds");
+        out.writeStringField("email", account.owner.email);
+        out.writeStringField("account", account.iban);
+        out.writeNumberField("amount", amount);
+        end();
+        return true;
+    }
+
+    /**
+     * Pays online, sometimes with a one-time card whose payment is sure to succeed and which
+     * then gets the next card number.
+     *
+     * @return {@code false} if there is no card to pay with.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean payOnline() throws IOException {
+        double amount = round(1 + random.nextDouble(MAX_PAYMENT));
+        CardModel card = null;
+        if (random.nextInt(PERCENT) < ONE_TIME_PERCENT) {
+            card = pickCard(oneTimeCards);
+            if (card != null && card.account.floor <= amount * PAYMENT_MARGIN + 1) {
+                card = null;
+            }
+        }
+        boolean oneTime = card != null;
+        String currency;
+        if (oneTime) {
+            currency = card.account.currency;
+            card.account.floor -= amount * PAYMENT_MARGIN;
+        } else {
+            card = pickCard(cards);
+            if (card == null) {
+                return false;
+            }
+            currency = CURRENCIES[random.nextInt(currencies)];
+        }
+        begin("payOnline");
+        out.writeStringField("email", card.account.owner.email);
+        out.writeStringField("cardNumber", card.number);
+        out.writeNumberField("amount", amount);
+        out.writeStringField("currency", currency);
+        out.writeStringField("description", "Online payment");
+        out.writeStringField("commerciant",
+                commerciantNames.get(random.nextInt(commerciantNames.size())));
+        end();
+        if (oneTime) {
+            card.number = ids.generateCardNumber();
+        }
+        return true;
+    }
+
+    /**
+     * Creates a regular card, on an account that is not reserved.
+     *
+     * @return {@code false} if there is no such account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean createCard() throws IOException {
+        AccountModel account = pick(open);
+        if (account == null) {
+            return false;
+        }
+        cards.add(new CardModel(ids.generateCardNumber(), account));
+        writeCardCreation("createCard", account);
+        return true;
+    }
+
+    /**
+     * Creates a one-time card, on a reserved account.
+     *
+     * @return {@code false} if there is no reserved account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean createOneTimeCard() throws IOException {
+        AccountModel account = pick(reserved);
+        if (account == null) {
+            return false;
+        }
+        oneTimeCards.add(new CardModel(ids.generateCardNumber(), account));
+        writeCardCreation("createOneTimeCard", account);
+        return true;
+    }
+
+    /**
+     * Writes the creation of a card by the owner of its account.
+     *
+     * @param name the name of the command.
+     * @param account the account.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeCardCreation(final String name, final AccountModel account)
+            throws IOException {
+        begin(name);
+        out.writeStringField("account", account.iban);
+        out.writeStringField("email", account.owner.email);
+        end();
+    }
+
+    /**
+     * Sends money from an account that is not reserved to another account, by IBAN or alias,
+     * or to a commerciant.
+     *
+     * @return {@code false} if there is no account to send from.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean sendMoney() throws IOException {
+        AccountModel giver = pick(open);
+        if (giver == null) {
+            return false;
+        }
+        String receiver;
+        int kind = random.nextInt(PERCENT);
+        AccountModel aliasedAccount = kind < ALIAS_RECEIVER_PERCENT ? pick(aliased) : null;
+        if (aliasedAccount != null) {
+            receiver = aliasedAccount.alias;
+        } else if (kind < ALIAS_RECEIVER_PERCENT + COMMERCIANT_RECEIVER_PERCENT) {
+            receiver = commerciantIbans.get(random.nextInt(commerciantIbans.size()));
+        } else {
+            receiver = pick(open).iban;
+        }
+        begin("sendMoney");
+        out.writeStringField("account", giver.iban);
+        out.writeStringField("receiver", receiver);
+        out.writeNumberField("amount", round(1 + random.nextDouble(MAX_PAYMENT)));
+        out.writeStringField("email", giver.owner.email);
+        out.writeStringField("description", "Transfer");
+        end();
+        return true;
+    }
+
+    /**
+     * Splits a payment among accounts of different users, none of them reserved.
+     *
+     * @return {@code false} if there are not enough accounts.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean splitPayment() throws IOException {
+        int size = 2 + random.nextInt(MAX_SPLIT_USERS - 1);
+        List<AccountModel> involved = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < MAX_PICKS && involved.size() < size; i++) {
+            AccountModel account = pick(open);
+            if (account != null && !emails.contains(account.owner.email)) {
+                involved.add(account);
+                emails.add(account.owner.email);
+            }
+        }
+        if (involved.size() < 2) {
+            return false;
+        }
+        String type = SPLIT_TYPES[random.nextInt(SPLIT_TYPES.length)];
+        double[] shares = new double[involved.size()];
+        double amount = 0;
+        for (int i = 0; i < shares.length; i++) {
+            shares[i] = round(1 + random.nextDouble(MAX_PAYMENT));
+            amount += shares[i];
+        }
+
+        begin("splitPayment");
+        out.writeStringField("splitPaymentType", type);
+        out.writeArrayFieldStart("accounts");
+        for (AccountModel account : involved) {
+            out.writeString(account.iban);
+        }
+        out.writeEndArray();
+        out.writeNumberField("amount", round(amount));
+        if (type.equals("custom")) {
+            out.writeFieldName("amountForUsers");
+            out.writeArray(shares, 0, shares.length);
+        }
+        out.writeStringField("currency", CURRENCIES[random.nextInt(currencies)]);
+        end();
+        splits.add(new SplitModel(type, emails));
+        return true;
+    }
+
+    /**
+     * Accepts or rejects a split payment that waits for the answer of a user.
+     *
+     * @param name the name of the command.
+     * @return {@code false} if no split payment waits for an answer.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean answerSplit(final String name) throws IOException {
+        if (splits.isEmpty()) {
+            return false;
+        }
+        int index = random.nextInt(splits.size());
+        SplitModel split = splits.get(index);
+        String email = split.waiting.remove(random.nextInt(split.waiting.size()));
+        if (split.waiting.isEmpty() || name.equals("rejectSplitPayment")) {
+            removeAt(splits, index);
+        }
+        begin(name);
+        out.writeStringField("email", email);
+        out.writeStringField("splitPaymentType", split.type);
+        end();
+        return true;
+    }
+
+    /**
+     * Upgrades the plan of the owner of an account that is not reserved.
+     *
+     * @return {@code false} if there is no such account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean upgradePlan() throws IOException {
+        AccountModel account = pick(open);
+        if (account == null) {
+            return false;
+        }
+        begin("upgradePlan");
+        out.writeStringField("account", account.iban);
+        out.writeStringField("newPlanType", PLANS[random.nextInt(PLANS.length)]);
+        end();
+        return true;
+    }
+
+    /**
+     * Adds a random user to a business account.
+     *
+     * @return {@code false} if there is no business account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean addAssociate() throws IOException {
+        AccountModel account = pick(business);
+        if (account == null) {
+            return false;
+        }
+        begin("addNewBusinessAssociate");
+        out.writeStringField("account", account.iban);
+        out.writeStringField("role", ROLES[random.nextInt(ROLES.length)]);
+        out.writeStringField("email", users.get(random.nextInt(users.size())).email);
+        end();
+        return true;
+    }
+
+    /**
+     * Changes the spending or deposit limit of a business account, as its owner.
+     *
+     * @param name the name of the command.
+     * @return {@code false} if there is no business account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean changeLimit(final String name) throws IOException {
+        AccountModel account = pick(business);
+        if (account == null) {
+            return false;
+        }
+        begin(name);
+        out.writeStringField("email", account.owner.email);
+        out.writeStringField("account", account.iban);
+        out.writeNumberField("amount", round(1 + random.nextDouble(MAX_PAYMENT)));
+        end();
+        return true;
+    }
+
+    /**
+     * Prints the report of a business account.
+     *
+     * @return {@code false} if there is no business account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean businessReport() throws IOException {
+        AccountModel account = pick(business);
+        if (account == null) {
+            return false;
+        }
+        begin("businessReport");
+        out.writeNumberField("startTimestamp", random.nextInt(timestamp));
+        out.writeNumberField("endTimestamp", timestamp);
+        out.writeStringField("account", account.iban);
+        out.writeStringField("type", random.nextBoolean() ? "transaction" : "commerciant");
+        end();
+        return true;
+    }
+
+    /**
+     * Prints the report or the spendings report of an account.
+     *
+     * @param name the name of the command.
+     * @param account the account, or {@code null} if there is none.
+     * @return {@code false} if there is no account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean report(final String name, final AccountModel account) throws IOException {
+        if (account == null) {
+            return false;
+        }
+        begin(name);
+        out.writeNumberField("startTimestamp", random.nextInt(timestamp));
+        out.writeNumberField("endTimestamp", timestamp);
+        out.writeStringField("account", account.iban);
+        end();
+        return true;
+    }
+
+    /**
+     * Prints the transactions of a random user.
+     *
+     * @return always {@code true}.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean printTransactions() throws IOException {
+        begin("printTransactions");
+        out.writeStringField("email", users.get(random.nextInt(users.size())).email);
+        end();
+        return true;
+    }
+
+    /**
+     * Prints every user.
+     *
+     * @return always {@code true}.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean printUsers() throws IOException {
+        begin("printUsers");
+        end();
+        return true;
+    }
+
+    /**
+     * Sets the minimum balance of an account that is not reserved.
+     *
+     * @return {@code false} if there is no such account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean setMinimumBalance() throws IOException {
+        AccountModel account = pick(open);
+        if (account == null) {
+            return false;
+        }
+        begin("setMinimumBalance");
+        out.writeStringField("account", account.iban);
+        out.writeNumberField("amount", round(random.nextDouble(MAX_PAYMENT)));
+        end();
+        return true;
+    }
+
+    /**
+     * Withdraws cash with a regular card.
+     *
+     * @return {@code false} if there is no regular card.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean cashWithdrawal() throws IOException {
+        CardModel card = pickCard(cards);
+        if (card == null) {
+            return false;
+        }
+        begin("cashWithdrawal");
+        out.writeStringField("email", card.account.owner.email);
+        out.writeStringField("cardNumber", card.number);
+        out.writeNumberField("amount", round(1 + random.nextDouble(MAX_PAYMENT)));
+        out.writeStringField("location", "ATM");
+        end();
+        return true;
+    }
+
+    /**
+     * Asks to delete an account that is not reserved. The account is never named again,
+     * whether it gets deleted or not.
+     *
+     * @return {@code false} if there is no such account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean deleteAccount() throws IOException {
+        AccountModel account = pick(open);
+        if (account == null) {
+            return false;
+        }
+        account.deleted = true;
+        begin("deleteAccount");
+        out.writeStringField("email", account.owner.email);
+        out.writeStringField("account", account.iban);
+        end();
+        return true;
+    }
+
+    /**
+     * Deletes a regular or a one-time card. The card is never named again.
+     *
+     * @return {@code false} if there is no card.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean deleteCard() throws IOException {
+        CardModel card = pickCard(random.nextBoolean() ? cards : oneTimeCards);
+        if (card == null) {
+            return false;
+        }
+        card.deleted = true;
+        begin("deleteCard");
+        out.writeStringField("email", card.account.owner.email);
+        out.writeStringField("cardNumber", card.number);
+        end();
+        return true;
+    }
+
+    /**
+     * Withdraws money from a savings account.
+     *
+     * @return {@code false} if there is no savings account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean withdrawSavings() throws IOException {
+        AccountModel account = pick(savings);
+        if (account == null) {
+            return false;
+        }
+        begin("withdrawSavings");
+        out.writeStringField("account", account.iban);
+        out.writeNumberField("amount", round(1 + random.nextDouble(MAX_PAYMENT)));
+        out.writeStringField("currency", CURRENCIES[random.nextInt(currencies)]);
+        end();
+        return true;
+    }
+
+    /**
+     * Adds the interest of a savings account, or changes its rate.
+     *
+     * @param name the name of the command.
+     * @return {@code false} if there is no savings account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean interest(final String name) throws IOException {
+        AccountModel account = pick(savings);
+        if (account == null) {
+            return false;
+        }
+        begin(name);
+        out.writeStringField("account", account.iban);
+        if (name.equals("changeInterestRate")) {
+            out.writeNumberField("interestRate", round(random.nextDouble(MAX_INTEREST)));
+        }
+        end();
+        return true;
+    }
+
+    /**
+     * Gives a new alias to an account that is not reserved, which can then receive money by it.
+     *
+     * @return {@code false} if there is no such account.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean setAlias() throws IOException {
+        AccountModel account = pick(open);
+        if (account == null) {
+            return false;
+        }
+        if (account.alias == null) {
+            aliased.add(account);
+        }
+        account.alias = "alias" + timestamp;
+        begin("setAlias");
+        out.writeStringField("email", account.owner.email);
+        out.writeStringField("account", account.iban);
+        out.writeStringField("alias", account.alias);
+        end();
+        return true;
+    }
+
+    /**
+     * Checks the status of a regular card. One-time cards are left out, since a check can
+     * freeze a card and stop its next payment.
+     *
+     * @return {@code false} if there is no regular card.
+     * @throws IOException if the file cannot be written.
+     */
+    private boolean checkCardStatus() throws IOException {
+        CardModel card = pickCard(cards);
+        if (card == null) {
+            return false;
+        }
+        begin("checkCardStatus");
+        out.writeStringField("cardNumber", card.number);
+        end();
+        return true;
+    }
+
+    /**
+     * Starts writing a command.
+     *
+     * @param name the name of the command.
+     * @throws IOException if the file cannot be written.
+     */
+    private void begin(final String name) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("command", name);
+    }
+
+    /**
+     * Finishes writing a command, with its timestamp.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void end() throws IOException {
+        out.writeNumberField("timestamp", timestamp);
+        out.writeEndObject();
+    }
+
+    /**
+     * Picks a random account that was not deleted, dropping the deleted ones it meets.
+     *
+     * @param accounts the accounts to pick from.
+     * @return the account, or {@code null} if there is none.
+     */
+    private AccountModel pick(final List<AccountModel> accounts) {
+        while (!accounts.isEmpty()) {
+            int index = random.nextInt(accounts.size());
+            if (!accounts.get(index).deleted) {
+                return accounts.get(index);
+            }
+            removeAt(accounts, index);
+        }
+        return null;
+    }
+
+    /**
+     * Picks a random card that can still be used, dropping the ones that cannot.
+     *
+     * @param from the cards to pick from.
+     * @return the card, or {@code null} if there is none.
+     */
+    private CardModel pickCard(final List<CardModel> from) {
+        while (!from.isEmpty()) {
+            int index = random.nextInt(from.size());
+            if (from.get(index).isLive()) {
+                return from.get(index);
+            }
+            removeAt(from, index);
+        }
+        return null;
+    }
+
+    /**
+     * Removes an element in constant time, by moving the last one in its place.
+     *
+     * @param list the list.
+     * @param index the index of the element.
+     * @param <T> the type of the elements.
+     */
+    private static <T> void removeAt(final List<T> list, final int index) {
+        list.set(index, list.getLast());
+        list.removeLast();
+    }
+
+    /**
+     * Rounds an amount to cents.
+     *
+     * @param amount the amount.
+     * @return the rounded amount.
+     */
+    private static double round(final double amount) {
+        return Math.round(amount * CENTS) / CENTS;
+    }
+}
@@ -0,0 +1,113 @@
+package org.poo.accounts;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed table of locks that guards the balances of the accounts of a run. Every account
+ * maps to one stripe by the hash of its IBAN, so two accounts may share a lock but one
+ * account always uses the same one. Operations on several accounts take their stripes in
+ * ascending order, which rules out deadlocks between them. Each run owns its table, so the
+ * accounts of two runs never wait for each other.
+ */
+public final class AccountLocks {
+    private static final int STRIPES = 64;
+    private static final int SPREAD_SHIFT = 16;
+
+    private final ReentrantLock[] locks;
+
+    /**
+     * Constructs the lock table of a new run.
+     */
+    public AccountLocks() {
+        locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Finds the stripe that guards the account with the given IBAN.
+     *
+     * @param iban the IBAN of the account.
+     * @return the index of the stripe.
+     */
+    public static int stripeOf(final String iban) {
+        int hash = iban == null ? 0 : iban.hashCode();
+        return (hash ^ (hash >>> SPREAD_SHIFT)) & (STRIPES - 1);
+    }
+
+    /**
+     * Retrieves the lock of a single stripe.
+     *
+     * @param stripe the index of the stripe.
+     * @return the lock.
+     */
+    ReentrantLock lockOf(final int stripe) {
+        return locks[stripe];
+    }
+
+    /**
+     * Takes the locks of the given accounts, in ascending stripe order and each one once.
+     * The accounts must belong to the same run. The caller must close the result, in a
+     * {@code finally} block, to release them.
+     *
+     * @param accounts the accounts to lock; {@code null} entries are skipped.
+     * @return the held locks.
+     */
+    public static Held lockAll(final ClassicAccount... accounts) {
+        AccountLocks table = null;
+        int[] stripes = new int[accounts.length];
+        int count = 0;
+        for (ClassicAccount account : accounts) {
+            if (account != null) {
+                table = account.getLocks();
+                stripes[count++] = account.getStripe();
+            }
+        }
+        Arrays.sort(stripes, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || stripes[distinct - 1] != stripes[i]) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        for (int i = 0; i < distinct; i++) {
+            table.locks[stripes[i]].lock();
+        }
+        return new Held(table, stripes, distinct);
+    }
+
+    /**
+     * A set of stripe locks taken together by {@link #lockAll(ClassicAccount...)}.
+     */
+    public static final class Held implements AutoCloseable {
+        private final AccountLocks table;
+        private final int[] stripes;
+        private final int count;
+
+        /**
+         * Constructs the handle of the locks that were just taken.
+         *
+         * @param table the table the locks belong to, or {@code null} if none were taken.
+         * @param stripes the stripes, in the order they were locked.
+         * @param count the number of stripes that were locked.
+         */
+        private Held(final AccountLocks table, final int[] stripes, final int count) {
+            this.table = table;
+            this.stripes = stripes;
+            this.count = count;
+        }
+
+        /**
+         * Releases the locks, in the reverse order they were taken.
+         */
+        @Override
+        public void close() {
+            for (int i = count - 1; i >= 0; i--) {
+                table.locks[stripes[i]].unlock();
+            }
+        }
+    }
+}
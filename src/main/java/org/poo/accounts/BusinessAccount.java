@@ -42,14 +42,16 @@ public class BusinessAccount extends ClassicAccount {
      * @param type the type of the account
      * @param user the user who owns the account
      * @param bank the bank associated with the account
+     * @param locks the lock table of the run the account belongs to
      */
     public BusinessAccount(final String iban,
                            final String currency,
                            final String type,
                            final User user,
-                           final Bnr bank
+                           final Bnr bank,
+                           final AccountLocks locks
     ) {
-        super(iban, currency, type);
+        super(iban, currency, type, locks);
         this.employees = new HashMap<>();
         this.managers = new HashMap<>();
         this.businessCommerciants = new HashMap<>();
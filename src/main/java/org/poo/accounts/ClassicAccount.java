@@ -4,26 +4,40 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.poo.cards.Card;
 import org.poo.commerciants.Commerciant;
+import org.poo.commerciants.CommerciantCategory;
+import org.poo.transactions.TimestampIndexedHistory;
 import org.poo.transactions.TransactionStrategy;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ClassicAccount {
-    protected double balance;
+    /**
+     * The id of an account that was not registered in the bank yet.
+     */
+    public static final int NO_ID = -1;
+
+    protected volatile double balance;
     protected String currency;
     protected String type;
     protected ArrayList<Card> cards;
 
     @JsonIgnore
-    private ArrayList<TransactionStrategy> transactions;
+    private TimestampIndexedHistory<TransactionStrategy> transactions;
     @JsonIgnore
     private Commerciant commerciants;
     @JsonIgnore
-    private Map<String, Double> coupons;
+    private final double[] coupons;
+    @JsonIgnore
+    private int redeemedCoupons;
     @JsonIgnore
     private double totalSpentPerCommerciant;
+    @JsonIgnore
+    private int accountId;
+    @JsonIgnore
+    private final AccountLocks locks;
+    @JsonIgnore
+    private final int stripe;
 
     @JsonProperty("IBAN")
     protected String iban;
@@ -39,31 +53,22 @@ public class ClassicAccount {
      *                  cannot be null or empty.
      * @param currency  the currency of the account; cannot be null or empty.
      * @param type      the type of the account (e.g., "Savings", "Classic").
+     * @param locks     the lock table of the run the account belongs to.
      */
-    public ClassicAccount(final String iban, final String currency, final String type) {
+    public ClassicAccount(final String iban, final String currency, final String type,
+                          final AccountLocks locks) {
         this.iban = iban;
         this.currency = currency;
         this.type = type;
         balance = 0;
         cards = new ArrayList<>();
-        transactions = new ArrayList<>();
+        transactions = new TimestampIndexedHistory<>();
         commerciants = new Commerciant();
-        createCoupons();
+        coupons = new double[CommerciantCategory.values().length];
         totalSpentPerCommerciant = 0.0;
-    }
-
-    /**
-     * Initializes the coupons map for the account and populates it with default
-     * categories and their respective discount rates.
-     * This is typically called during the construction of a {@code ClassicAccount}
-     * instance to ensure the account has a predefined set of coupon categories
-     * with initial discount values of 0.0.
-     */
-    private void createCoupons() {
-        coupons = new HashMap<>();
-        coupons.put("Food", 0.0);
-        coupons.put("Clothes", 0.0);
-        coupons.put("Tech", 0.0);
+        accountId = NO_ID;
+        this.locks = locks;
+        stripe = AccountLocks.stripeOf(iban);
     }
 
     /**
@@ -99,7 +104,8 @@ public class ClassicAccount {
     }
 
     /**
-     * Retrieves the current balance of the account.
+     * Retrieves the current balance of the account. The read takes no lock; a change
+     * computed from it must hold {@link AccountLocks#lockAll(ClassicAccount...)}.
      *
      * @return the current account balance.
      */
@@ -108,7 +114,9 @@ public class ClassicAccount {
     }
 
     /**
-     * Updates the current balance of the account.
+     * Updates the current balance of the account. A change computed from the balance should
+     * hold {@link AccountLocks#lockAll(ClassicAccount...)} between the read and this call,
+     * or use {@link #credit(double)} and {@link #debitIfAvailable(double, double)} instead.
      *
      * @param currentBalance the new balance to be set for the account.
      */
@@ -116,6 +124,63 @@ public class ClassicAccount {
         this.balance = currentBalance;
     }
 
+    /**
+     * Adds money to the account, as a single atomic step.
+     *
+     * @param amount the amount to add.
+     */
+    public void credit(final double amount) {
+        ReentrantLock lock = locks.lockOf(stripe);
+        lock.lock();
+        try {
+            balance = balance + amount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes an amount and its fee out of the account, as a single atomic step, but only if
+     * the balance stays above the minimum balance afterwards.
+     *
+     * @param amount the amount to take out.
+     * @param fee the fee charged on top of the amount.
+     * @return {@code true} if the money was taken out, {@code false} if the funds were
+     * insufficient and the balance was left unchanged.
+     */
+    public boolean debitIfAvailable(final double amount, final double fee) {
+        ReentrantLock lock = locks.lockOf(stripe);
+        lock.lock();
+        try {
+            if (balance - amount - fee <= minBalance) {
+                return false;
+            }
+            balance = balance - amount - fee;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the lock table of the run the account belongs to.
+     *
+     * @return the lock table.
+     */
+    AccountLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * Retrieves the lock stripe of the account. It is chosen from the IBAN the account was
+     * created with and does not change afterwards.
+     *
+     * @return the index of the stripe in {@link AccountLocks}.
+     */
+    int getStripe() {
+        return stripe;
+    }
+
     /**
      * Retrieves the currency of the account.
      *
@@ -191,20 +256,21 @@ public class ClassicAccount {
     /**
      * Retrieves the list of transactions associated with the account.
      *
-     * @return an {@code ArrayList} of {@code TransactionStrategy} objects representing
-     * the account transactions.
+     * @return a {@code TimestampIndexedHistory} of {@code TransactionStrategy} objects
+     * representing the account transactions.
      */
-    public ArrayList<TransactionStrategy> getTransactions() {
+    public TimestampIndexedHistory<TransactionStrategy> getTransactions() {
         return transactions;
     }
 
     /**
      * Sets the list of transactions associated with the account.
      *
-     * @param transactions an {@code ArrayList} of {@code TransactionStrategy}
+     * @param transactions a {@code TimestampIndexedHistory} of {@code TransactionStrategy}
      *                     objects to associate with the account.
      */
-    public void setTransactions(final ArrayList<TransactionStrategy> transactions) {
+    public void setTransactions(
+            final TimestampIndexedHistory<TransactionStrategy> transactions) {
         this.transactions = transactions;
     }
 
@@ -227,14 +293,62 @@ public class ClassicAccount {
     }
 
     /**
-     * Retrieves the current coupons and their respective discount rates associated with the account
-     * The map contains categories as keys and their corresponding discount rates as values.
+     * Gives the account the coupon of a category, unless that coupon was already used.
      *
-     * @return a {@code Map<String, Double>} where the keys are coupon categories and the values
-     * are the associated discount rates.
+     * @param category the category of the coupon.
+     * @param rate the share of a payment the coupon gives back.
      */
-    public Map<String, Double> getCoupons() {
-        return coupons;
+    public void grantCoupon(final CommerciantCategory category, final double rate) {
+        if ((redeemedCoupons & (1 << category.ordinal())) == 0) {
+            coupons[category.ordinal()] = rate;
+        }
+    }
+
+    /**
+     * Uses the coupon of a category on a payment. Each coupon can be used only once.
+     *
+     * @param category the category of the commerciant that is paid, or {@code null} if it
+     *                 has no coupons.
+     * @param amount the amount of the payment.
+     * @return the amount the coupon gives back, or 0 if the account has no coupon to use.
+     */
+    public double redeemCoupon(final CommerciantCategory category, final double amount) {
+        if (category == null || coupons[category.ordinal()] == 0) {
+            return 0.0;
+        }
+        double coupon = coupons[category.ordinal()] * amount;
+        coupons[category.ordinal()] = 0;
+        redeemedCoupons |= 1 << category.ordinal();
+        return coupon;
+    }
+
+    /**
+     * Retrieves the coupon of every category, as the share of a payment it gives back.
+     *
+     * @return a copy of the coupons, indexed by the ordinal of their category.
+     */
+    public double[] getCoupons() {
+        return coupons.clone();
+    }
+
+    /**
+     * Retrieves the categories whose coupon was already used.
+     *
+     * @return a bit mask, with one bit per category ordinal.
+     */
+    public int getRedeemedCoupons() {
+        return redeemedCoupons;
+    }
+
+    /**
+     * Gives the account the coupons another account had, as when the account is restored.
+     *
+     * @param rates the coupons, indexed by the ordinal of their category.
+     * @param redeemed the bit mask of the categories whose coupon was already used.
+     */
+    public void restoreCoupons(final double[] rates, final int redeemed) {
+        System.arraycopy(rates, 0, coupons, 0, Math.min(rates.length, coupons.length));
+        redeemedCoupons = redeemed;
     }
 
     /**
@@ -255,4 +369,23 @@ public class ClassicAccount {
     public void setTotalSpentPerCommerciant(final double totalSpentPerCommerciant) {
         this.totalSpentPerCommerciant = totalSpentPerCommerciant;
     }
+
+    /**
+     * Retrieves the dense id the bank gave the account when it was registered.
+     * Ids start at 0 and grow by one with every registered account.
+     *
+     * @return the id of the account, or {@link #NO_ID} if it was not registered.
+     */
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the dense id of the account.
+     *
+     * @param accountId the id to set.
+     */
+    public void setAccountId(final int accountId) {
+        this.accountId = accountId;
+    }
 }
@@ -14,14 +14,16 @@ public class SavingsAccount extends ClassicAccount {
      * @param currency  the currency of the account.
      * @param type      the type of the account (e.g., "Savings", "Classic").
      * @param interest  the interest rate associated with the account.
+     * @param locks     the lock table of the run the account belongs to.
      */
     public SavingsAccount(
             final String iban,
             final String currency,
             final String type,
-            final double interest
+            final double interest,
+            final AccountLocks locks
     ) {
-        super(iban, currency, type);
+        super(iban, currency, type, locks);
         this.interest = interest;
     }
 
@@ -41,8 +43,13 @@ public class SavingsAccount extends ClassicAccount {
      */
     @Override
     public void addInterest() {
-        double initialBalance = balance;
-        balance = initialBalance + initialBalance * interest;
+        AccountLocks.Held held = AccountLocks.lockAll(this);
+        try {
+            double initialBalance = balance;
+            balance = initialBalance + initialBalance * interest;
+        } finally {
+            held.close();
+        }
     }
 
     /**
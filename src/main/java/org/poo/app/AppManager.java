@@ -1,335 +1,190 @@
 package org.poo.app;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import org.poo.accounts.BusinessAccount;
-import org.poo.accounts.ClassicAccount;
-import org.poo.cards.Card;
-import org.poo.commerciants.Seller;
+import org.poo.commerciants.CommerciantRegistry;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
 import org.poo.fileio.ObjectInput;
-import org.poo.transactions.*;
-import org.poo.transactions.split_payment.*;
+import org.poo.fileio.StreamingInput;
+import org.poo.transactions.TransactionStrategy;
 import org.poo.users.User;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
 public class AppManager {
     private ArrayList<User> allUsers;
-    private Map<String, Seller> allSellers;
+    private ExecutionContext context;
+    private CommerciantRegistry commerciants;
     private Bnr bank;
-    private IBANRegistry registry;
-    private Finder finder;
+    private EntityDirectory directory;
+    private int workers;
+    private CommandDispatcher dispatcher;
 
     /**
-     * Constructs an instance of {@code AppManager} and initializes its fields.
+     * Constructs an instance of {@code AppManager} that runs within the given context.
+     *
+     * @param context the generators, exchange rates, registries and output of the run.
      */
-    public AppManager() {
+    public AppManager(final ExecutionContext context) {
+        this.context = context;
         allUsers = new ArrayList<>();
-        allSellers = new HashMap<>();
-        bank = new Bnr();
-        registry = new IBANRegistry();
-        finder = new Finder();
+        commerciants = context.getCommerciants();
+        bank = context.getBank();
+        directory = context.getDirectory();
+        workers = 1;
+        dispatcher = new CommandDispatcher(allUsers);
+    }
+
+    /**
+     * Sets the number of threads the commands are executed on. With more than one, commands
+     * that touch different users, accounts and commerciants run at the same time, and their
+     * results are still written in the order of the input.
+     *
+     * @param workers the number of worker threads.
+     */
+    public void setWorkers(final int workers) {
+        this.workers = workers;
     }
 
     /**
      * Starts the application, initializes users, sets up the bank exchange rates,
      * and processes a list of commands.
      *
-     * @param output    the {@code ArrayNode} to store the output of processed commands.
      * @param inputData the {@code ObjectInput} containing user data, exchange rates, and commands.
      */
-    public void start(final ArrayNode output, final ObjectInput inputData) {
-        //Initialize the list of users
-        for (int i = 0; i < inputData.getUsers().length; i++) {
-            allUsers.add(new User(inputData.getUsers()[i]));
-        }
-
-        //Initialize the list of commerciants
-        for (int i = 0; i < inputData.getCommerciants().length; i++) {
-            allSellers.put(inputData.getCommerciants()[i].getCommerciant(),
-                    new Seller(inputData.getCommerciants()[i]));
-        }
-
-        //Initialize the board where exchange rates are showcased
-        bank.setUp(inputData);
+    public void start(final ObjectInput inputData) {
+        setUp(inputData);
+        resume(inputData);
+    }
 
+    /**
+     * Processes the commands of an input on top of the current state, ignoring its users,
+     * commerciants and exchange rates, as after {@link #restore(Path)}.
+     *
+     * @param inputData the {@code ObjectInput} containing the commands.
+     */
+    public void resume(final ObjectInput inputData) {
         //Parse the commands
-        CommandInput[] commands = inputData.getCommands();
-        TransactionStrategy transaction;
-        for (CommandInput command : commands) {
-            transaction = useTransactionFactory(output, command);
-            if (transaction != null) {
-                transaction.makeTransaction();
+        try (CommandScheduler scheduler = new CommandScheduler(this, context, workers)) {
+            for (CommandInput command : inputData.getCommands()) {
+                scheduler.submit(command);
             }
         }
     }
 
     /**
-     * Creates a {@code TransactionStrategy} object based on the specified command
-     * and executes the associated operation.
+     * Starts the application from an input that is still being read. The commands are
+     * executed as soon as they are decoded, so only one of them is kept in memory at a time.
      *
-     * @param output  the {@code ArrayNode} to store the results of certain commands.
-     * @param command the {@code CommandInput} containing details about the requested operation.
-     * @return a {@code TransactionStrategy} object representing the operation,
-     * or {@code null} if the command is invalid.
+     * @param input the input, whose set-up sections have already been read.
+     * @throws IOException if a command cannot be decoded.
      */
-    public TransactionStrategy useTransactionFactory(
-            final ArrayNode output,
-            final CommandInput command
-    ) {
-        TransactionStrategy transaction = null;
-        User currentUser;
-        ClassicAccount currentAccount;
-        switch (command.getCommand()) {
-            case "printUsers":
-                transaction = new PrintUserTransaction(command, output, allUsers);
-                break;
-            case "addAccount":
-                searchUserByEmail(command.getEmail());
-                transaction = new AddAccountTransaction(command, registry, finder.getUser(), bank);
-                break;
-            case "createCard", "createOneTimeCard":
-                searchUserByEmail(command.getEmail());
-                transaction = new AddCardTransaction(command, finder.getUser());
-                break;
-            case "addFunds":
-                searchByIban(command.getAccount());
-                transaction = new AddFundsTransaction(command, finder.getAccount());
-                break;
-            case "deleteAccount":
-                searchUserByEmail(command.getEmail());
-                transaction = new DeleteAccountTransaction(command, output, finder.getUser());
-                break;
-            case "deleteCard":
-                searchByCard(command.getCardNumber());
-                transaction = new DeleteCardTransaction(command, finder.getAccount(),
-                                                        finder.getUser());
-                break;
-            case "setMinimumBalance":
-                searchByIban(command.getAccount());
-                transaction = new MinBalanceTransaction(command, output, finder.getUser(),
-                                                        finder.getAccount());
-                break;
-            case "withdrawSavings":
-                searchByIban(command.getAccount());
-                transaction = new WithdrawSavingsTransaction(command,
-                        bank, finder.getUser(), finder.getAccount());
-                break;
-            case "payOnline":
-                searchUserByEmail(command.getEmail());
-                transaction = new PayOnlineTransaction(command, output, bank,
-                                                        allSellers.get(command.getCommerciant()),
-                                                        finder.getUser());
-                break;
-            case "sendMoney":
-                searchByIban(registry.getIBAN(command.getAccount()));
-                currentAccount = finder.getAccount();
-                currentUser = finder.getUser();
-                searchByIban(registry.getIBAN(command.getReceiver()));
-                if (finder.getAccount() == null || finder.getUser() == null) {
-                    Seller seller = searchForCommerciant(command.getReceiver());
-                    transaction = new SendMoneyToCommerciantTransaction(command,
-                            currentAccount, currentUser, seller, bank, output);
-                    break;
-                }
-                transaction = new SendMoneyTransaction(command, currentAccount, currentUser,
-                        finder.getAccount(), finder.getUser(), bank, output);
-                break;
-            case "setAlias":
-                searchByIban(command.getAccount());
-                transaction = new SetAliasTransaction(command, registry, finder.getAccount());
-                break;
-            case "printTransactions":
-                searchUserByEmail(command.getEmail());
-                transaction = new PrintTransTransaction(command, output, finder.getUser());
-                break;
-            case "checkCardStatus":
-                searchByCard(command.getCardNumber());
-                transaction = new CheckCardStatusTransaction(command, output, finder.getUser(),
-                                                             finder.getAccount(), finder.getCard());
-                break;
-            case "changeInterestRate":
-                searchByIban(command.getAccount());
-                transaction = new ChangeInterestTransaction(command, output,
-                                                            finder.getUser(), finder.getAccount());
-                break;
-            case "addInterest":
-                searchByIban(command.getAccount());
-                transaction = new AddInterestTransaction(command, output,
-                        finder.getUser(), finder.getAccount());
-                break;
-            case "splitPayment":
-                ArrayList<Finder> finders = new ArrayList<>();
-                for (int i = 0; i < command.getAccounts().size(); i++) {
-                    finders.add(new Finder());
-                    searchByIban(command.getAccounts().get(i));
-                    finders.get(i).setUser(finder.getUser());
-                    finders.get(i).setAccount(finder.getAccount());
-                    finders.get(i).setCard(finder.getCard());
-                }
-                transaction = new SplitPaymentTransaction(command, finders, bank);
-                break;
-            case "acceptSplitPayment":
-                searchUserByEmail(command.getEmail());
-                if (finder.getUser() == null) {
-                    CheckCardStatusTransaction.printError(command, "User not found",
-                            command.getTimestamp(), output);
-                    break;
-                }
-                Command acceptCommand = new AcceptSplitPayment(command.getEmail(),
-                        finder.getUser().getActiveTransactions().stream()
-                                .filter((tran) -> tran.getSplitPaymentType()
-                                                .equals(command.getSplitPaymentType()))
-                                .findFirst().orElse(null));
-                transaction = new CommandAdapter(acceptCommand);
-                break;
-            case "rejectSplitPayment":
-                searchUserByEmail(command.getEmail());
-                if (finder.getUser() == null) {
-                    CheckCardStatusTransaction.printError(command, "User not found",
-                            command.getTimestamp(), output);
-                    break;
-                }
-                Command rejectCommand = new RejectSplitPayment(command.getEmail(),
-                        finder.getUser().getActiveTransactions().stream()
-                                .filter((tran) -> tran.getSplitPaymentType()
-                                        .equals(command.getSplitPaymentType()))
-                                .findFirst().orElse(null));
-                transaction = new CommandAdapter(rejectCommand);
-                break;
-            case "report":
-                searchByIban(command.getAccount());
-                transaction = new ReportTransaction(command, output, finder.getAccount());
-                break;
-            case "spendingsReport":
-                searchByIban(command.getAccount());
-                transaction = new SpendingsReportTransaction(command, output, finder.getAccount());
-                break;
-            case "businessReport":
-                searchByIban(command.getAccount());
-                if (command.getType().equals("transaction")) {
-                    transaction = new TransactionBusinessReport(command,
-                            (BusinessAccount) finder.getAccount(), output);
-                } else {
-                    transaction = new CommerciantBusinessReport(command,
-                            (BusinessAccount) finder.getAccount(), output);
-                }
-                break;
-            case "upgradePlan":
-                searchByIban(command.getAccount());
-                transaction = new UpgradePlanTransaction(command, finder.getUser(),
-                        finder.getAccount(), bank, output, 0);
-                break;
-            case "cashWithdrawal":
-                if (command.getEmail().isEmpty()) {
-                    CheckCardStatusTransaction.printError(command, "User not found",
-                            command.getTimestamp(), output);
-                    break;
-                }
-                searchByCard(command.getCardNumber());
-                transaction = new CashWithdrawTransaction(command, finder.getUser(),
-                        finder.getAccount(), finder.getCard(), output, bank);
-                break;
-            case "addNewBusinessAssociate":
-                searchByIban(command.getAccount());
-                User owner = finder.getUser();
-                BusinessAccount business = (BusinessAccount) finder.getAccount();
-                searchUserByEmail(command.getEmail());
-                transaction = new AddNewBusinessAssociateTransaction(command, business,
-                        finder.getUser());
-                break;
-            case "changeSpendingLimit", "changeDepositLimit":
-                searchByIban(command.getAccount());
-                BusinessAccount account = null;
-                if (finder.getAccount().getType().equals("business")) {
-                    account = (BusinessAccount) finder.getAccount();
-                } else {
-                    CheckCardStatusTransaction.printError(command, "This is not a business account",
-                            command.getTimestamp(), output);
-                    break;
-                }
-
-                searchUserByEmail(command.getEmail());
-                transaction = new ChangeSpendingLimitTransaction(command, finder.getUser(),
-                        account, output);
-                break;
-            default:
-                System.out.println("Invalid command");
-        }
-
-        return transaction;
+    public void start(final StreamingInput input) throws IOException {
+        setUp(input.getSetUp());
+        resume(input);
     }
 
     /**
-     * Searches for a user by their email address and sets the result in the {@code Finder} object.
+     * Processes the commands of an input that is still being read on top of the current
+     * state, ignoring its set-up sections, as after {@link #restore(Path)}.
      *
-     * @param email the email address of the user to search for.
+     * @param input the input, whose set-up sections have already been read.
+     * @throws IOException if a command cannot be decoded.
      */
-    private void searchUserByEmail(final String email) {
-        for (User user : allUsers) {
-            if (user.getEmail().equals(email)) {
-                finder.setUser(user);
-                return;
+    public void resume(final StreamingInput input) throws IOException {
+        try (CommandScheduler scheduler = new CommandScheduler(this, context, workers)) {
+            for (CommandInput command = input.nextCommand(); command != null;
+                 command = input.nextCommand()) {
+                scheduler.submit(command);
             }
         }
-        finder.setUser(null);
     }
 
     /**
-     * Searches for an account by its IBAN and sets the corresponding user and
-     * account in the {@code Finder} object.
+     * Initializes the users, the commerciants and the exchange rates.
      *
-     * @param iban the IBAN of the account to search for.
+     * @param inputData the {@code ObjectInput} containing user data and exchange rates.
      */
-    private void searchByIban(final String iban) {
-        for (User user : allUsers) {
-            for (ClassicAccount account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    finder.setUser(user);
-                    finder.setAccount(account);
-                    return;
-                }
-            }
+    private void setUp(final ObjectInput inputData) {
+        //Initialize the list of users
+        for (int i = 0; i < inputData.getUsers().length; i++) {
+            allUsers.add(new User(inputData.getUsers()[i]));
+            directory.addUser(allUsers.getLast());
         }
 
-        finder.setUser(null);
-        finder.setAccount(null);
+        //Initialize the list of commerciants
+        commerciants.setUp(inputData.getCommerciants());
+
+        //Initialize the board where exchange rates are showcased
+        bank.setUp(inputData);
     }
 
     /**
-     * Searches for a card by its card number and sets the corresponding user, account,
-     * and card in the {@code Finder} object.
+     * Saves the complete state of the bank to a compact binary file: the users, their
+     * accounts, cards and histories, the aliases, the commerciants and their counters, the
+     * business associates and limits, the split payments that still wait for answers, the
+     * exchange rates and the positions of the IBAN and card number sequences. Must be called
+     * between commands, such as after {@code start} returns.
      *
-     * @param cardNumber the card number to search for.
+     * @param file the file to write; an existing one is replaced.
+     * @throws IOException if the file cannot be written.
      */
-    private void searchByCard(final String cardNumber) {
-        for (User user : allUsers) {
-            for (ClassicAccount account : user.getAccounts()) {
-                for (Card card : account.getCards()) {
-                    if (card.getCardNumber().equals(cardNumber)) {
-                        finder.setUser(user);
-                        finder.setAccount(account);
-                        finder.setCard(card);
-                        return;
-                    }
-                }
-            }
+    public void checkpoint(final Path file) throws IOException {
+        SnapshotWriter.write(allUsers, context, file);
+    }
+
+    /**
+     * Restores the state saved by {@link #checkpoint(Path)} into this manager, which must not
+     * have started yet. The file is mapped into memory, and no command is replayed; the
+     * commands that come next, given through {@code resume}, behave and print exactly as
+     * they would have in the saved run.
+     *
+     * @param file the snapshot to restore.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public void restore(final Path file) throws IOException {
+        if (!allUsers.isEmpty()) {
+            throw new IllegalStateException("The bank was already set up");
         }
+        allUsers.addAll(SnapshotReader.read(file, context));
+    }
+
+    /**
+     * Creates the transaction for a command and executes it, or runs its query when the
+     * command has one.
+     *
+     * @param command the command to execute.
+     * @param scope   the run, or a view of it with the output the command writes to.
+     */
+    void execute(final CommandInput command, final ExecutionContext scope) {
+        dispatcher.execute(command, scope);
+    }
 
-        finder.setUser(null);
-        finder.setAccount(null);
-        finder.setCard(null);
+    /**
+     * Retrieves the users of the bank, in the order they were given as input.
+     *
+     * @return a read-only view of the users.
+     */
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(allUsers);
     }
 
-    private Seller searchForCommerciant(final String iban) {
-        for (Map.Entry<String, Seller> entry : allSellers.entrySet()) {
-            if (entry.getValue().getIban().equals(iban)) {
-                return entry.getValue();
-            }
-        }
-        return null;
+    /**
+     * Creates a {@code TransactionStrategy} object based on the specified command,
+     * without executing it.
+     *
+     * @param command the {@code CommandInput} containing details about the requested operation.
+     * @param scope   the run, or a view of it with the output the command writes to.
+     * @return a {@code TransactionStrategy} object representing the operation,
+     * or {@code null} if the command is invalid.
+     */
+    public TransactionStrategy useTransactionFactory(
+            final CommandInput command,
+            final ExecutionContext scope
+    ) {
+        return dispatcher.create(command, scope);
     }
 }
@@ -0,0 +1,70 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BufferedOutputSink implements OutputSink {
+    private final List<Object> results;
+
+    /**
+     * Constructs an empty buffer for the results of a single command.
+     */
+    public BufferedOutputSink() {
+        results = new ArrayList<>();
+    }
+
+    /**
+     * Keeps the result of the command until it is replayed.
+     *
+     * @param result the result to keep.
+     */
+    @Override
+    public void add(final JsonNode result) {
+        results.add(result);
+    }
+
+    /**
+     * Records the tokens the result writes right away, while the state it reads is still
+     * the one the command saw, and keeps them until they are replayed.
+     *
+     * @param result the result to keep.
+     */
+    @Override
+    public void write(final JsonWritable result) {
+        TokenBuffer buffer = new TokenBuffer(JsonService.mapper(), false);
+        try {
+            result.writeTo(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        results.add(buffer);
+    }
+
+    /**
+     * Passes every kept result on to another sink, in the order they were produced.
+     *
+     * @param target the sink that receives the results.
+     */
+    public void replayTo(final OutputSink target) {
+        for (Object result : results) {
+            if (result instanceof TokenBuffer buffer) {
+                target.write(buffer::serialize);
+            } else {
+                target.add((JsonNode) result);
+            }
+        }
+        results.clear();
+    }
+
+    /**
+     * Does nothing, since the results are released by {@link #replayTo(OutputSink)}.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,482 @@
+package org.poo.app;
+
+import org.poo.accounts.BusinessAccount;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
+import org.poo.transactions.AddAccountTransaction;
+import org.poo.transactions.AddCardTransaction;
+import org.poo.transactions.AddFundsTransaction;
+import org.poo.transactions.AddInterestTransaction;
+import org.poo.transactions.AddNewBusinessAssociateTransaction;
+import org.poo.transactions.CashWithdrawTransaction;
+import org.poo.transactions.ChangeInterestTransaction;
+import org.poo.transactions.ChangeSpendingLimitTransaction;
+import org.poo.transactions.CheckCardStatusTransaction;
+import org.poo.transactions.CommerciantBusinessReport;
+import org.poo.transactions.DeleteAccountTransaction;
+import org.poo.transactions.DeleteCardTransaction;
+import org.poo.transactions.MinBalanceTransaction;
+import org.poo.transactions.PayOnlineTransaction;
+import org.poo.transactions.PrintTransTransaction;
+import org.poo.transactions.PrintUserTransaction;
+import org.poo.transactions.ReportTransaction;
+import org.poo.transactions.SendMoneyToCommerciantTransaction;
+import org.poo.transactions.SendMoneyTransaction;
+import org.poo.transactions.SetAliasTransaction;
+import org.poo.transactions.SpendingsReportTransaction;
+import org.poo.transactions.TransactionBusinessReport;
+import org.poo.transactions.TransactionStrategy;
+import org.poo.transactions.UpdateExchangeRateTransaction;
+import org.poo.transactions.UpgradePlanTransaction;
+import org.poo.transactions.WithdrawSavingsTransaction;
+import org.poo.transactions.split_payment.AcceptSplitPayment;
+import org.poo.transactions.split_payment.CommandAdapter;
+import org.poo.transactions.split_payment.RejectSplitPayment;
+import org.poo.transactions.split_payment.SplitPaymentTransaction;
+import org.poo.users.User;
+
+import java.util.ArrayList;
+
+/**
+ * Turns commands into transactions through a table indexed by {@link CommandType}, built
+ * once per run. Every entry declares the entity its command names, which is looked up
+ * before the handler runs, so handlers only add the lookups particular to their command.
+ * The commands that keep nothing between two calls, which are the reports, printing the
+ * users and checking a card, are registered as a stateless query, which the run executes
+ * without creating a transaction. Their transaction, which {@link #create} returns, only
+ * runs that same query, so the two paths cannot differ.
+ */
+public final class CommandDispatcher {
+    private final ArrayList<User> users;
+    private final Route[] routes;
+
+    /**
+     * The entity a command names, looked up before its handler runs.
+     */
+    private enum Resolve {
+        /** Nothing is looked up. */
+        NONE,
+        /** The user with the email of the command. */
+        USER,
+        /** The account with the IBAN of the command. */
+        ACCOUNT,
+        /** The account with the IBAN or the alias of the command. */
+        ALIASED_ACCOUNT,
+        /** The card with the number of the command. */
+        CARD
+    }
+
+    /**
+     * Builds the transaction of a command.
+     */
+    @FunctionalInterface
+    private interface Builder {
+        /**
+         * Builds the transaction.
+         *
+         * @param command the command.
+         * @param scope the run, or a view of it with the output the command writes to.
+         * @param user the user the command names, if the entry resolves one.
+         * @param found the account or the card the command names, if the entry resolves one.
+         * @return the transaction, or {@code null} if the command only printed an error.
+         */
+        TransactionStrategy build(CommandInput command, ExecutionContext scope, User user,
+                                  Finder found);
+    }
+
+    /**
+     * Executes a command that keeps nothing between two calls.
+     */
+    @FunctionalInterface
+    private interface Query {
+        /**
+         * Executes the command.
+         *
+         * @param command the command.
+         * @param scope the run, or a view of it with the output the command writes to.
+         * @param found the account or the card the command names, if the entry resolves one.
+         */
+        void run(CommandInput command, ExecutionContext scope, Finder found);
+    }
+
+    /**
+     * The transaction of a command that is registered as a query.
+     */
+    private static final class QueryTransaction implements TransactionStrategy {
+        private final Query query;
+        private final CommandInput command;
+        private final ExecutionContext scope;
+        private final Finder found;
+
+        /**
+         * Constructs the transaction of a query command.
+         *
+         * @param query the query of the command.
+         * @param command the command.
+         * @param scope the run, or a view of it with the output the command writes to.
+         * @param found the account or the card the command names, if the entry resolves one.
+         */
+        private QueryTransaction(final Query query, final CommandInput command,
+                                 final ExecutionContext scope, final Finder found) {
+            this.query = query;
+            this.command = command;
+            this.scope = scope;
+            this.found = found;
+        }
+
+        /**
+         * Runs the query of the command.
+         */
+        @Override
+        public void makeTransaction() {
+            query.run(command, scope, found);
+        }
+
+        /**
+         * Retrieves the timestamp of the command.
+         *
+         * @return the timestamp.
+         */
+        @Override
+        public int getTimestamp() {
+            return command.getTimestamp();
+        }
+    }
+
+    private static final class Route {
+        private final Resolve resolve;
+        private final Builder builder;
+        private final Query query;
+
+        /**
+         * Constructs the entry of a command type.
+         *
+         * @param resolve the entity the command names.
+         * @param builder builds the transaction of the command.
+         * @param query executes the command without a transaction, or {@code null}.
+         */
+        private Route(final Resolve resolve, final Builder builder, final Query query) {
+            this.resolve = resolve;
+            this.builder = builder;
+            this.query = query;
+        }
+    }
+
+    /**
+     * Constructs the dispatcher of a run.
+     *
+     * @param users the users of the run, in input order, as {@code printUsers} prints them.
+     */
+    public CommandDispatcher(final ArrayList<User> users) {
+        this.users = users;
+        routes = new Route[CommandType.values().length];
+        registerAccounts();
+        registerPayments();
+        registerQueries();
+    }
+
+    /**
+     * Builds the transaction of a command, without executing it.
+     *
+     * @param command the command.
+     * @param scope the run, or a view of it with the output the command writes to.
+     * @return the transaction, or {@code null} if the command is invalid.
+     */
+    public TransactionStrategy create(final CommandInput command, final ExecutionContext scope) {
+        Route route = route(command);
+        if (route == null) {
+            return null;
+        }
+        User user = resolveUser(route, command, scope);
+        return route.builder.build(command, scope, user, resolve(route, command, scope));
+    }
+
+    /**
+     * Executes a command: its query if it has one, or else its transaction. When the run is
+     * measured, the time of each phase is recorded under the name of the command.
+     *
+     * @param command the command.
+     * @param scope the run, or a view of it with the output the command writes to.
+     */
+    public void execute(final CommandInput command, final ExecutionContext scope) {
+        Route route = route(command);
+        if (route == null) {
+            return;
+        }
+        CommandMetrics metrics = scope.getMetrics();
+        long start = 0;
+        if (metrics != null) {
+            metrics.startCommand();
+            start = System.nanoTime();
+        }
+
+        User user = resolveUser(route, command, scope);
+        Finder found = resolve(route, command, scope);
+        TransactionStrategy transaction = route.query == null
+                ? route.builder.build(command, scope, user, found) : null;
+
+        long built = 0;
+        long lookup = 0;
+        if (metrics != null) {
+            built = System.nanoTime();
+            lookup = metrics.lookupNanos();
+        }
+        if (route.query != null) {
+            route.query.run(command, scope, found);
+        } else if (transaction != null) {
+            transaction.makeTransaction();
+        }
+        if (metrics != null) {
+            metrics.record(command.getCommand(), lookup, built - start - lookup,
+                    System.nanoTime() - built);
+        }
+    }
+
+    /**
+     * Finds the entry of a command.
+     *
+     * @param command the command.
+     * @return the entry, or {@code null} if no command has that name.
+     */
+    private Route route(final CommandInput command) {
+        CommandType type = command.getCommandType();
+        if (type == null) {
+            System.out.println("Invalid command");
+            return null;
+        }
+        return routes[type.ordinal()];
+    }
+
+    /**
+     * Looks up the user a command names, if its entry resolves one.
+     *
+     * @param route the entry of the command.
+     * @param command the command.
+     * @param scope the run.
+     * @return the user, or {@code null}.
+     */
+    private static User resolveUser(final Route route, final CommandInput command,
+                                    final ExecutionContext scope) {
+        if (route.resolve != Resolve.USER) {
+            return null;
+        }
+        return scope.getDirectory().findUser(command.getEmail());
+    }
+
+    /**
+     * Looks up the account or the card a command names, if its entry resolves one.
+     *
+     * @param route the entry of the command.
+     * @param command the command.
+     * @param scope the run.
+     * @return the result of the lookup, or {@link Finder#EMPTY}.
+     */
+    private static Finder resolve(final Route route, final CommandInput command,
+                                  final ExecutionContext scope) {
+        EntityDirectory directory = scope.getDirectory();
+        return switch (route.resolve) {
+            case ACCOUNT -> directory.findByIban(command.getAccount());
+            case ALIASED_ACCOUNT ->
+                    directory.findByIban(scope.getRegistry().getIBAN(command.getAccount()));
+            case CARD -> directory.findByCard(command.getCardNumber());
+            default -> Finder.EMPTY;
+        };
+    }
+
+    /**
+     * Adds the entry of a command type that only has a transaction.
+     *
+     * @param type the command type.
+     * @param resolve the entity the command names.
+     * @param builder builds the transaction of the command.
+     */
+    private void register(final CommandType type, final Resolve resolve, final Builder builder) {
+        routes[type.ordinal()] = new Route(resolve, builder, null);
+    }
+
+    /**
+     * Adds the entry of a command type that is executed as a stateless query. Its
+     * transaction only runs the query.
+     *
+     * @param type the command type.
+     * @param resolve the entity the command names.
+     * @param query executes the command without a transaction.
+     */
+    private void register(final CommandType type, final Resolve resolve, final Query query) {
+        routes[type.ordinal()] = new Route(resolve, (command, scope, user, found) ->
+                new QueryTransaction(query, command, scope, found), query);
+    }
+
+    /**
+     * Adds the commands that open, change and close accounts and cards.
+     */
+    private void registerAccounts() {
+        register(CommandType.ADD_ACCOUNT, Resolve.USER, (command, scope, user, found) ->
+                new AddAccountTransaction(command, scope, user));
+        register(CommandType.CREATE_CARD, Resolve.USER, (command, scope, user, found) ->
+                new AddCardTransaction(command, scope, user));
+        register(CommandType.CREATE_ONE_TIME_CARD, Resolve.USER, (command, scope, user, found) ->
+                new AddCardTransaction(command, scope, user));
+        register(CommandType.DELETE_ACCOUNT, Resolve.USER, (command, scope, user, found) ->
+                new DeleteAccountTransaction(command, scope.getOutput(), scope.getDirectory(),
+                        user));
+        register(CommandType.DELETE_CARD, Resolve.CARD, (command, scope, user, found) ->
+                new DeleteCardTransaction(command, scope.getDirectory(), found.getAccount(),
+                        found.getUser()));
+        register(CommandType.SET_MINIMUM_BALANCE, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new MinBalanceTransaction(command, scope.getOutput(), found.getUser(),
+                        found.getAccount()));
+        register(CommandType.SET_ALIAS, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new SetAliasTransaction(command, scope.getRegistry(), found.getAccount()));
+        register(CommandType.CHANGE_INTEREST_RATE, Resolve.ACCOUNT,
+                (command, scope, user, found) -> new ChangeInterestTransaction(command,
+                        scope.getOutput(), found.getUser(), found.getAccount()));
+        register(CommandType.ADD_INTEREST, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new AddInterestTransaction(command, scope.getOutput(), found.getUser(),
+                        found.getAccount()));
+        register(CommandType.UPGRADE_PLAN, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new UpgradePlanTransaction(command, found.getUser(), found.getAccount(),
+                        scope.getBank(), scope.getPricing(), scope.getOutput(), 0));
+        register(CommandType.ADD_NEW_BUSINESS_ASSOCIATE, Resolve.ACCOUNT,
+                (command, scope, user, found) -> new AddNewBusinessAssociateTransaction(command,
+                        scope.getDirectory(), (BusinessAccount) found.getAccount(),
+                        scope.getDirectory().findUser(command.getEmail())));
+        register(CommandType.CHANGE_SPENDING_LIMIT, Resolve.ACCOUNT, this::changeLimit);
+        register(CommandType.CHANGE_DEPOSIT_LIMIT, Resolve.ACCOUNT, this::changeLimit);
+        register(CommandType.UPDATE_EXCHANGE_RATE, Resolve.NONE, (command, scope, user, found) ->
+                new UpdateExchangeRateTransaction(command, scope.getBank(),
+                        scope.getOutput()));
+    }
+
+    /**
+     * Adds the commands that move money, including split payments and their answers.
+     */
+    private void registerPayments() {
+        register(CommandType.ADD_FUNDS, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new AddFundsTransaction(command, found.getAccount()));
+        register(CommandType.WITHDRAW_SAVINGS, Resolve.ACCOUNT, (command, scope, user, found) ->
+                new WithdrawSavingsTransaction(command, scope.getBank(), found.getUser(),
+                        found.getAccount()));
+        register(CommandType.PAY_ONLINE, Resolve.USER, (command, scope, user, found) ->
+                new PayOnlineTransaction(command, scope,
+                        scope.getCommerciants().findByName(command.getCommerciant()), user));
+        register(CommandType.SEND_MONEY, Resolve.ALIASED_ACCOUNT, this::sendMoney);
+        register(CommandType.CASH_WITHDRAWAL, Resolve.CARD, (command, scope, user, found) -> {
+            if (command.getEmail().isEmpty()) {
+                CheckCardStatusTransaction.printError(command, "User not found",
+                        command.getTimestamp(), scope.getOutput());
+                return null;
+            }
+            return new CashWithdrawTransaction(command, found.getUser(), found.getAccount(),
+                    found.getCard(), scope.getOutput(), scope.getBank(), scope.getPricing());
+        });
+        register(CommandType.SPLIT_PAYMENT, Resolve.NONE, (command, scope, user, found) -> {
+            ArrayList<Finder> finders = new ArrayList<>();
+            for (String iban : command.getAccounts()) {
+                finders.add(scope.getDirectory().findByIban(iban));
+            }
+            return new SplitPaymentTransaction(command, finders, scope.getBank(),
+                    scope.getPendingSplits());
+        });
+        register(CommandType.ACCEPT_SPLIT_PAYMENT, Resolve.USER, (command, scope, user, found) ->
+                answerSplit(command, scope, user, true));
+        register(CommandType.REJECT_SPLIT_PAYMENT, Resolve.USER, (command, scope, user, found) ->
+                answerSplit(command, scope, user, false));
+    }
+
+    /**
+     * Adds the commands that print the bank, and checking the status of a card.
+     */
+    private void registerQueries() {
+        register(CommandType.PRINT_USERS, Resolve.NONE, (command, scope, found) ->
+                PrintUserTransaction.print(command.getCommand(), command.getTimestamp(), users,
+                        scope.getOutput()));
+        register(CommandType.PRINT_TRANSACTIONS, Resolve.USER, (command, scope, user, found) ->
+                new PrintTransTransaction(command, scope.getOutput(), user));
+        register(CommandType.CHECK_CARD_STATUS, Resolve.CARD, (command, scope, found) ->
+                CheckCardStatusTransaction.check(command, scope.getOutput(), found.getUser(),
+                        found.getAccount(), found.getCard()));
+        register(CommandType.REPORT, Resolve.ACCOUNT, (command, scope, found) ->
+                ReportTransaction.report(command, scope.getOutput(), found.getAccount()));
+        register(CommandType.SPENDINGS_REPORT, Resolve.ACCOUNT, (command, scope, found) ->
+                SpendingsReportTransaction.report(command, scope.getOutput(),
+                        found.getAccount()));
+        register(CommandType.BUSINESS_REPORT, Resolve.ACCOUNT, (command, scope, found) -> {
+            BusinessAccount account = (BusinessAccount) found.getAccount();
+            if (command.getType().equals("transaction")) {
+                TransactionBusinessReport.report(command, account, scope.getOutput());
+            } else {
+                CommerciantBusinessReport.report(command, account, scope.getOutput());
+            }
+        });
+    }
+
+    /**
+     * Builds a transfer to another account, by IBAN or alias, or to a commerciant.
+     *
+     * @param command the command.
+     * @param scope the run.
+     * @param user unused, since the giver is found through its account.
+     * @param giver the account the money is sent from.
+     * @return the transfer.
+     */
+    private TransactionStrategy sendMoney(final CommandInput command, final ExecutionContext scope,
+                                          final User user, final Finder giver) {
+        Finder receiver = scope.getDirectory()
+                .findByIban(scope.getRegistry().getIBAN(command.getReceiver()));
+        if (receiver.getAccount() == null || receiver.getUser() == null) {
+            return new SendMoneyToCommerciantTransaction(command, giver.getAccount(),
+                    giver.getUser(), scope.getCommerciants().findByIban(command.getReceiver()),
+                    scope.getBank(), scope.getPricing(), scope.getOutput());
+        }
+        return new SendMoneyTransaction(command, giver.getAccount(), giver.getUser(),
+                receiver.getAccount(), receiver.getUser(), scope.getBank(), scope.getPricing(),
+                scope.getOutput());
+    }
+
+    /**
+     * Builds a change of the spending or the deposit limit of a business account.
+     *
+     * @param command the command.
+     * @param scope the run.
+     * @param user unused, since the user is looked up after the account is checked.
+     * @param found the account.
+     * @return the change, or {@code null} if the account is not a business account.
+     */
+    private TransactionStrategy changeLimit(final CommandInput command,
+                                            final ExecutionContext scope, final User user,
+                                            final Finder found) {
+        if (!found.getAccount().getType().equals("business")) {
+            CheckCardStatusTransaction.printError(command, "This is not a business account",
+                    command.getTimestamp(), scope.getOutput());
+            return null;
+        }
+        return new ChangeSpendingLimitTransaction(command,
+                scope.getDirectory().findUser(command.getEmail()),
+                (BusinessAccount) found.getAccount(), scope.getOutput());
+    }
+
+    /**
+     * Builds the answer of a user to the oldest split payment of the given type that waits
+     * for them.
+     *
+     * @param command the command.
+     * @param scope the run.
+     * @param user the user who answers.
+     * @param accept whether the user accepts the payment.
+     * @return the answer, or {@code null} if there is no such user.
+     */
+    private static TransactionStrategy answerSplit(final CommandInput command,
+                                                   final ExecutionContext scope,
+                                                   final User user, final boolean accept) {
+        if (user == null) {
+            CheckCardStatusTransaction.printError(command, "User not found",
+                    command.getTimestamp(), scope.getOutput());
+            return null;
+        }
+        SplitPaymentTransaction split = scope.getPendingSplits().first(command.getEmail(),
+                command.getSplitPaymentType());
+        return new CommandAdapter(accept ? new AcceptSplitPayment(command.getEmail(), split)
+                : new RejectSplitPayment(command.getEmail(), split));
+    }
+}
@@ -0,0 +1,146 @@
+package org.poo.app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures where a run spends its time, per command name: how many commands ran, a histogram
+ * of their latencies, and how that time splits between looking up users, accounts and cards
+ * in the {@link EntityDirectory}, building the transaction, and executing it. A run is only
+ * measured when its context was given metrics; otherwise, the engine skips every clock read.
+ */
+public final class CommandMetrics {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double PERCENT = 100;
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+
+    private final Map<String, CommandStats> stats;
+    private final ThreadLocal<long[]> lookups;
+    private final long started;
+
+    private static final class CommandStats {
+        private final String command;
+        private final LatencyHistogram latencies;
+        private long lookupNanos;
+        private long constructionNanos;
+        private long executionNanos;
+
+        /**
+         * Constructs the empty statistics of a command name.
+         *
+         * @param command the command name.
+         */
+        private CommandStats(final String command) {
+            this.command = command;
+            latencies = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Constructs metrics for a run that starts now.
+     */
+    public CommandMetrics() {
+        stats = new HashMap<>();
+        lookups = ThreadLocal.withInitial(() -> new long[1]);
+        started = System.nanoTime();
+    }
+
+    /**
+     * Marks the start of a command on the current thread, so the lookups that follow are
+     * counted towards it.
+     */
+    public void startCommand() {
+        lookups.get()[0] = 0;
+    }
+
+    /**
+     * Adds the time of a lookup to the command running on the current thread.
+     *
+     * @param nanos the time of the lookup.
+     */
+    public void addLookup(final long nanos) {
+        lookups.get()[0] += nanos;
+    }
+
+    /**
+     * Retrieves the time the command running on the current thread spent in lookups so far.
+     *
+     * @return the time, in nanoseconds.
+     */
+    public long lookupNanos() {
+        return lookups.get()[0];
+    }
+
+    /**
+     * Records a finished command.
+     *
+     * @param command the command name.
+     * @param lookup the time spent in lookups while the transaction was built.
+     * @param construction the rest of the time spent building the transaction.
+     * @param execution the time spent executing the transaction.
+     */
+    public synchronized void record(final String command, final long lookup,
+                                    final long construction, final long execution) {
+        CommandStats entry = stats.get(command);
+        if (entry == null) {
+            entry = new CommandStats(command);
+            stats.put(command, entry);
+        }
+        entry.latencies.record(lookup + construction + execution);
+        entry.lookupNanos += lookup;
+        entry.constructionNanos += construction;
+        entry.executionNanos += execution;
+    }
+
+    /**
+     * Formats a table of every command name, the most expensive first: the count, the
+     * throughput of the command on its own, the latency percentiles in microseconds, and
+     * the share of each phase. The last line gives the throughput of the whole run so far.
+     *
+     * @param title the name of the run.
+     * @return the table.
+     */
+    public synchronized String summary(final String title) {
+        List<CommandStats> rows = new ArrayList<>(stats.values());
+        rows.sort((a, b) -> Long.compare(b.latencies.getTotal(), a.latencies.getTotal()));
+
+        StringBuilder table = new StringBuilder();
+        table.append(title).append('\n');
+        table.append(String.format("%-24s %9s %12s %10s %10s %10s %10s %7s %7s %7s%n",
+                "command", "count", "ops/s", "p50 us", "p99 us", "p999 us", "max us",
+                "lookup", "build", "exec"));
+        long commands = 0;
+        for (CommandStats row : rows) {
+            LatencyHistogram latencies = row.latencies;
+            double total = Math.max(1, latencies.getTotal());
+            commands += latencies.getCount();
+            table.append(String.format(
+                    "%-24s %9d %12.0f %10.1f %10.1f %10.1f %10.1f %6.1f%% %6.1f%% %6.1f%%%n",
+                    row.command, latencies.getCount(),
+                    latencies.getCount() * NANOS_PER_SECOND / total,
+                    micros(latencies.percentile(P50)), micros(latencies.percentile(P99)),
+                    micros(latencies.percentile(P999)), micros(latencies.getMax()),
+                    row.lookupNanos * PERCENT / total, row.constructionNanos * PERCENT / total,
+                    row.executionNanos * PERCENT / total));
+        }
+        double seconds = (System.nanoTime() - started) / NANOS_PER_SECOND;
+        table.append(String.format("%d commands in %.3f s, %.0f ops/s%n",
+                commands, seconds, commands / seconds));
+        return table.toString();
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos the time, in nanoseconds.
+     * @return the time, in microseconds.
+     */
+    private static double micros(final long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+}
@@ -0,0 +1,237 @@
+package org.poo.app;
+
+import org.poo.accounts.BusinessAccount;
+import org.poo.cards.OneTimeCard;
+import org.poo.fileio.CommandInput;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the commands of a run on several threads while keeping the results of a serial
+ * run. Before a command is dispatched, the users, accounts and commerciants it can change
+ * are looked up; it then waits only for the earlier commands that share one of them.
+ * Commands whose effects cannot be confined this way, such as the ones that create or
+ * remove accounts and cards, draw new IBANs or card numbers, or span several users like
+ * split payments, act as barriers: every earlier command finishes first, and the barrier
+ * runs alone. Results are buffered per command and written in the original order.
+ */
+public final class CommandScheduler implements Closeable {
+    private final AppManager manager;
+    private final ExecutionContext context;
+    private final ExecutorService workers;
+    private final Map<Object, CompletableFuture<Void>> lastRuns;
+    private final ArrayDeque<PendingCommand> pending;
+
+    private static final class PendingCommand {
+        private final CompletableFuture<Void> run;
+        private final BufferedOutputSink buffer;
+
+        /**
+         * Constructs the entry of a dispatched command in the reorder buffer.
+         *
+         * @param run the execution of the command.
+         * @param buffer the results of the command.
+         */
+        private PendingCommand(final CompletableFuture<Void> run,
+                               final BufferedOutputSink buffer) {
+            this.run = run;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Constructs a scheduler for the commands of a run.
+     *
+     * @param manager the manager that turns commands into transactions.
+     * @param context the run, whose output receives the results in order.
+     * @param threads the number of worker threads; below 2, every command runs right away on
+     *                the calling thread.
+     */
+    public CommandScheduler(final AppManager manager, final ExecutionContext context,
+                            final int threads) {
+        this.manager = manager;
+        this.context = context;
+        workers = threads < 2 ? null : Executors.newFixedThreadPool(threads);
+        lastRuns = new IdentityHashMap<>();
+        pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Dispatches the next command of the run.
+     *
+     * @param command the command to execute.
+     */
+    public void submit(final CommandInput command) {
+        if (workers == null) {
+            manager.execute(command, context);
+            return;
+        }
+
+        Set<Object> footprint = footprint(command);
+        if (footprint == null) {
+            drain();
+            manager.execute(command, context);
+            return;
+        }
+
+        List<CompletableFuture<Void>> before = new ArrayList<>();
+        for (Object key : footprint) {
+            CompletableFuture<Void> previous = lastRuns.get(key);
+            if (previous != null && !previous.isDone()) {
+                before.add(previous);
+            }
+        }
+
+        BufferedOutputSink buffer = new BufferedOutputSink();
+        ExecutionContext scope = context.withOutput(buffer);
+        CompletableFuture<Void> run = CompletableFuture
+                .allOf(before.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> manager.execute(command, scope), workers);
+        for (Object key : footprint) {
+            lastRuns.put(key, run);
+        }
+        pending.add(new PendingCommand(run, buffer));
+        flushFinished();
+    }
+
+    /**
+     * Waits for every dispatched command, writes the remaining results and stops the workers.
+     */
+    @Override
+    public void close() {
+        try {
+            drain();
+        } finally {
+            if (workers != null) {
+                workers.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Finds the users, accounts and commerciants a command can change. No barrier is in
+     * flight while this runs, so the directory is exactly as the command will see it.
+     *
+     * @param command the command to analyse.
+     * @return the objects the command touches, or {@code null} if it must run alone.
+     */
+    private Set<Object> footprint(final CommandInput command) {
+        EntityDirectory directory = context.getDirectory();
+        if (command.getCommandType() == null) {
+            return null;
+        }
+        Set<Object> keys = Collections.newSetFromMap(new IdentityHashMap<>());
+        switch (command.getCommandType()) {
+            case ADD_FUNDS, REPORT, SPENDINGS_REPORT:
+                addFinder(keys, directory.findByIban(command.getAccount()));
+                return keys;
+            case PRINT_TRANSACTIONS:
+                addKey(keys, directory.findUser(command.getEmail()));
+                return keys;
+            case CHECK_CARD_STATUS:
+                addFinder(keys, directory.findByCard(command.getCardNumber()));
+                return keys;
+            case PAY_ONLINE:
+                Finder card = directory.findByCard(command.getCardNumber());
+                if (card.getCard() instanceof OneTimeCard) {
+                    // The card gets a new number, drawn from the sequence shared by the run
+                    return null;
+                }
+                addFinder(keys, card);
+                addKey(keys, directory.findUser(command.getEmail()));
+                addKey(keys, context.getCommerciants().findByName(command.getCommerciant()));
+                return keys;
+            case SEND_MONEY:
+                IBANRegistry registry = context.getRegistry();
+                Finder giver = directory.findByIban(registry.getIBAN(command.getAccount()));
+                Finder receiver = directory.findByIban(registry.getIBAN(command.getReceiver()));
+                addFinder(keys, giver);
+                addFinder(keys, receiver);
+                if (receiver.getAccount() == null) {
+                    addKey(keys, context.getCommerciants().findByIban(command.getReceiver()));
+                }
+                return keys;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adds the user and the account of a lookup to a footprint. The owner of a business
+     * account is added too, since payments from the account depend on the plan and
+     * the cashback of the owner, even when an employee makes them.
+     *
+     * @param keys the footprint.
+     * @param found the result of the lookup.
+     */
+    private static void addFinder(final Set<Object> keys, final Finder found) {
+        addKey(keys, found.getUser());
+        addKey(keys, found.getAccount());
+        if (found.getAccount() instanceof BusinessAccount business) {
+            addKey(keys, business.getOwner().getUser());
+        }
+    }
+
+    /**
+     * Adds an object to a footprint, unless the lookup that produced it found nothing.
+     *
+     * @param keys the footprint.
+     * @param key the object, or {@code null}.
+     */
+    private static void addKey(final Set<Object> keys, final Object key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Writes the results of the oldest dispatched commands, as long as they have finished.
+     */
+    private void flushFinished() {
+        while (!pending.isEmpty() && pending.peek().run.isDone()) {
+            flush(pending.poll());
+        }
+    }
+
+    /**
+     * Waits for every dispatched command and writes all their results, in order.
+     */
+    private void drain() {
+        while (!pending.isEmpty()) {
+            flush(pending.poll());
+        }
+        lastRuns.clear();
+    }
+
+    /**
+     * Waits for a dispatched command and writes its results to the output of the run.
+     * A failure of the command is thrown again here, on the thread that runs the input.
+     *
+     * @param command the dispatched command.
+     */
+    private void flush(final PendingCommand command) {
+        try {
+            command.run.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        command.buffer.replayTo(context.getOutput());
+    }
+}
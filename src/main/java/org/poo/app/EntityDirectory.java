@@ -0,0 +1,256 @@
+package org.poo.app;
+
+import org.poo.accounts.ClassicAccount;
+import org.poo.cards.Card;
+import org.poo.users.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class EntityDirectory {
+    private Map<String, User> usersByEmail;
+    private Map<User, Integer> userOrder;
+    private Map<String, AccountEntry> accountsByIban;
+    private Map<String, Finder> cardsByNumber;
+    private int registeredAccounts;
+    private final CommandMetrics metrics;
+
+    /**
+     * An account together with every user that currently has it in their list of accounts.
+     * Business accounts are shared, so the same account can have several holders.
+     */
+    private static final class AccountEntry {
+        private final ClassicAccount account;
+        private final ArrayList<User> holders;
+        private Finder finder;
+
+        private AccountEntry(final ClassicAccount account) {
+            this.account = account;
+            this.holders = new ArrayList<>();
+            this.finder = Finder.EMPTY;
+        }
+    }
+
+    /**
+     * Initializes an empty directory.
+     */
+    public EntityDirectory() {
+        this(null);
+    }
+
+    /**
+     * Initializes an empty directory whose lookups are timed.
+     *
+     * @param metrics the metrics the lookups are added to, or {@code null} to leave them
+     *                untimed.
+     */
+    public EntityDirectory(final CommandMetrics metrics) {
+        this.metrics = metrics;
+        usersByEmail = new HashMap<>();
+        userOrder = new IdentityHashMap<>();
+        accountsByIban = new HashMap<>();
+        cardsByNumber = new HashMap<>();
+    }
+
+    /**
+     * Registers a user. Users are ranked in the order they are added, so when an account
+     * is shared the user that was added first is reported as its holder.
+     *
+     * @param user the user to register.
+     */
+    public void addUser(final User user) {
+        usersByEmail.putIfAbsent(user.getEmail(), user);
+        userOrder.putIfAbsent(user, userOrder.size());
+    }
+
+    /**
+     * Retrieves a user by their email address.
+     *
+     * @param email the email address of the user.
+     * @return the {@code User}, or {@code null} if no user has that email.
+     */
+    public User findUser(final String email) {
+        if (metrics == null) {
+            return usersByEmail.get(email);
+        }
+        long start = System.nanoTime();
+        User user = usersByEmail.get(email);
+        metrics.addLookup(System.nanoTime() - start);
+        return user;
+    }
+
+    /**
+     * Records that the given user now has the account in their list of accounts,
+     * together with all the cards already attached to it. An account seen for the
+     * first time receives the next dense account id.
+     *
+     * @param holder  the user that received the account.
+     * @param account the account that was added.
+     */
+    public void addAccount(final User holder, final ClassicAccount account) {
+        if (account.getAccountId() == ClassicAccount.NO_ID) {
+            account.setAccountId(registeredAccounts++);
+        }
+        AccountEntry entry = accountsByIban.computeIfAbsent(account.getIban(),
+                k -> new AccountEntry(account));
+        entry.holders.add(holder);
+        refresh(entry);
+    }
+
+    /**
+     * Records that the given user no longer has the account. Once the last holder
+     * is gone, the account and its cards can no longer be found.
+     *
+     * @param holder  the user that lost the account.
+     * @param account the account that was removed.
+     */
+    public void removeAccount(final User holder, final ClassicAccount account) {
+        AccountEntry entry = accountsByIban.get(account.getIban());
+        if (entry == null || !entry.holders.remove(holder)) {
+            return;
+        }
+
+        if (entry.holders.isEmpty()) {
+            accountsByIban.remove(account.getIban());
+            for (Card card : account.getCards()) {
+                cardsByNumber.remove(card.getCardNumber());
+            }
+            return;
+        }
+        refresh(entry);
+    }
+
+    /**
+     * Indexes a card that was attached to an account.
+     *
+     * @param account the account that owns the card.
+     * @param card    the new card.
+     */
+    public void addCard(final ClassicAccount account, final Card card) {
+        AccountEntry entry = accountsByIban.get(account.getIban());
+        User holder = entry == null ? null : entry.finder.getUser();
+        cardsByNumber.put(card.getCardNumber(), new Finder(holder, account, card));
+    }
+
+    /**
+     * Removes a card from the index.
+     *
+     * @param cardNumber the number of the card that was destroyed.
+     */
+    public void removeCard(final String cardNumber) {
+        cardsByNumber.remove(cardNumber);
+    }
+
+    /**
+     * Removes every card of the account from the index, before the cards are cleared.
+     *
+     * @param account the account whose cards are being destroyed.
+     */
+    public void removeCards(final ClassicAccount account) {
+        for (Card card : account.getCards()) {
+            cardsByNumber.remove(card.getCardNumber());
+        }
+    }
+
+    /**
+     * Re-indexes a card whose number has changed, as one-time cards do after each payment.
+     *
+     * @param previousNumber the number the card had before.
+     * @param card           the card, already carrying its new number.
+     */
+    public void renumberCard(final String previousNumber, final Card card) {
+        Finder found = cardsByNumber.remove(previousNumber);
+        if (found != null) {
+            cardsByNumber.put(card.getCardNumber(), found);
+        }
+    }
+
+    /**
+     * Looks up an account by its IBAN.
+     *
+     * @param iban the IBAN of the account.
+     * @return a {@code Finder} with the holder and the account, or {@link Finder#EMPTY}.
+     */
+    public Finder findByIban(final String iban) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        AccountEntry entry = accountsByIban.get(iban);
+        if (metrics != null) {
+            metrics.addLookup(System.nanoTime() - start);
+        }
+        return entry == null ? Finder.EMPTY : entry.finder;
+    }
+
+    /**
+     * Looks up a card by its number.
+     *
+     * @param cardNumber the card number.
+     * @return a {@code Finder} with the holder, the account and the card, or {@link Finder#EMPTY}.
+     */
+    public Finder findByCard(final String cardNumber) {
+        if (metrics == null) {
+            return cardsByNumber.getOrDefault(cardNumber, Finder.EMPTY);
+        }
+        long start = System.nanoTime();
+        Finder found = cardsByNumber.getOrDefault(cardNumber, Finder.EMPTY);
+        metrics.addLookup(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Checks whether the user has the account in their list of accounts.
+     *
+     * @param user    the user to check.
+     * @param account the account to check.
+     * @return {@code true} if the user holds the account; {@code false} otherwise.
+     */
+    public boolean holdsAccount(final User user, final ClassicAccount account) {
+        if (user == null || account == null) {
+            return false;
+        }
+        AccountEntry entry = accountsByIban.get(account.getIban());
+        return entry != null && entry.holders.contains(user);
+    }
+
+    /**
+     * Retrieves how many accounts were given an id so far.
+     *
+     * @return the number of registered accounts, which is also the next id.
+     */
+    public int getRegisteredAccounts() {
+        return registeredAccounts;
+    }
+
+    /**
+     * Sets how many accounts were given an id so far, as when a saved run is restored with
+     * the ids its accounts already had.
+     *
+     * @param registeredAccounts the number of registered accounts.
+     */
+    public void setRegisteredAccounts(final int registeredAccounts) {
+        this.registeredAccounts = registeredAccounts;
+    }
+
+    /**
+     * Recomputes the cached lookup results of an account after its holders changed.
+     *
+     * @param entry the account entry to refresh.
+     */
+    private void refresh(final AccountEntry entry) {
+        User first = null;
+        for (User holder : entry.holders) {
+            if (first == null || userOrder.get(holder) < userOrder.get(first)) {
+                first = holder;
+            }
+        }
+
+        if (entry.finder.getUser() == first) {
+            return;
+        }
+        entry.finder = new Finder(first, entry.account, null);
+        for (Card card : entry.account.getCards()) {
+            cardsByNumber.put(card.getCardNumber(), new Finder(first, entry.account, card));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.poo.app;
+
+import org.poo.accounts.AccountLocks;
+import org.poo.commerciants.CommerciantRegistry;
+import org.poo.exchangeRates.Bnr;
+import org.poo.servicePlan.PricingRules;
+import org.poo.transactions.split_payment.PendingSplitRegistry;
+import org.poo.utils.IdGenerator;
+
+/**
+ * Everything a single run of the bank owns: the generators of IBANs and card numbers, the
+ * exchange rates, the pricing rules, the lookup registries, the locks of the accounts and the
+ * output. Nothing is shared between two contexts, so separate runs can execute at the same
+ * time on different threads without waiting for each other.
+ */
+public final class ExecutionContext {
+    private final IdGenerator ids;
+    private final Bnr bank;
+    private final PricingRules pricing;
+    private final IBANRegistry registry;
+    private final EntityDirectory directory;
+    private final CommerciantRegistry commerciants;
+    private final PendingSplitRegistry pendingSplits;
+    private final AccountLocks locks;
+    private final OutputSink output;
+    private final CommandMetrics metrics;
+
+    /**
+     * Constructs a fresh context with the default pricing rules that writes its results to
+     * the given output.
+     *
+     * @param output the output of the run.
+     */
+    public ExecutionContext(final OutputSink output) {
+        this(output, null, PricingRules.defaults());
+    }
+
+    /**
+     * Constructs a fresh context that writes its results to the given output, prices its
+     * payments with the given rules and measures its commands.
+     *
+     * @param output the output of the run.
+     * @param metrics the metrics of the run, or {@code null} to leave it unmeasured.
+     * @param pricing the commissions, cashback, upgrade fees and coupons of the run.
+     */
+    public ExecutionContext(final OutputSink output, final CommandMetrics metrics,
+                            final PricingRules pricing) {
+        this.output = output;
+        this.metrics = metrics;
+        this.pricing = pricing;
+        ids = new IdGenerator();
+        bank = new Bnr();
+        registry = new IBANRegistry();
+        directory = new EntityDirectory(metrics);
+        commerciants = new CommerciantRegistry();
+        pendingSplits = new PendingSplitRegistry();
+        locks = new AccountLocks();
+    }
+
+    /**
+     * Constructs a context that shares every part of another one except the output.
+     *
+     * @param shared the context whose generators, rates, pricing rules, registries and locks
+     *               are shared.
+     * @param output the output of the new context.
+     */
+    private ExecutionContext(final ExecutionContext shared, final OutputSink output) {
+        this.output = output;
+        metrics = shared.metrics;
+        ids = shared.ids;
+        bank = shared.bank;
+        pricing = shared.pricing;
+        registry = shared.registry;
+        directory = shared.directory;
+        commerciants = shared.commerciants;
+        pendingSplits = shared.pendingSplits;
+        locks = shared.locks;
+    }
+
+    /**
+     * Creates a view of this run that writes its results somewhere else, such as the buffer
+     * of a single command that is executed out of order.
+     *
+     * @param redirected the output of the view.
+     * @return a context sharing everything with this one but the output.
+     */
+    public ExecutionContext withOutput(final OutputSink redirected) {
+        return new ExecutionContext(this, redirected);
+    }
+
+    /**
+     * Retrieves the generator of IBANs and card numbers of the run.
+     *
+     * @return the ID generator.
+     */
+    public IdGenerator getIds() {
+        return ids;
+    }
+
+    /**
+     * Retrieves the exchange rates of the run.
+     *
+     * @return the bank.
+     */
+    public Bnr getBank() {
+        return bank;
+    }
+
+    /**
+     * Retrieves the pricing rules of the run.
+     *
+     * @return the pricing rules.
+     */
+    public PricingRules getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Retrieves the registry of IBANs and their aliases.
+     *
+     * @return the IBAN registry.
+     */
+    public IBANRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Retrieves the directory of users, accounts and cards.
+     *
+     * @return the entity directory.
+     */
+    public EntityDirectory getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retrieves the registry of commerciants.
+     *
+     * @return the commerciant registry.
+     */
+    public CommerciantRegistry getCommerciants() {
+        return commerciants;
+    }
+
+    /**
+     * Retrieves the split payments that still wait for the answers of their users.
+     *
+     * @return the pending split registry.
+     */
+    public PendingSplitRegistry getPendingSplits() {
+        return pendingSplits;
+    }
+
+    /**
+     * Retrieves the lock table that guards the balances of the accounts of the run.
+     *
+     * @return the account locks.
+     */
+    public AccountLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * Retrieves the output the results of the run are written to.
+     *
+     * @return the output sink.
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+
+    /**
+     * Retrieves the metrics of the run.
+     *
+     * @return the metrics, or {@code null} if the run is not measured.
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,86 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class FileOutputSink implements OutputSink {
+    private static final int BUFFER_SIZE = 65536;
+
+    private final FileChannel channel;
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    /**
+     * Opens the output file and starts the array of results. The results are written with
+     * the default pretty printer, so the file is the same as the one produced by printing
+     * an in-memory array with {@code writerWithDefaultPrettyPrinter}.
+     *
+     * @param mapper the mapper used to write the results.
+     * @param path the output file, which is created or truncated.
+     * @throws IOException if the file cannot be opened.
+     */
+    public FileOutputSink(final ObjectMapper mapper, final Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        generator = mapper.getFactory().createGenerator(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        writer = JsonService.streamWriter();
+        generator.writeStartArray();
+    }
+
+    /**
+     * Writes the result of a command into the output buffer, which reaches the file
+     * whenever it fills up.
+     *
+     * @param result the result to append.
+     */
+    @Override
+    public void add(final JsonNode result) {
+        try {
+            writer.writeValue(generator, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lets the result of a command write its tokens straight into the output buffer.
+     *
+     * @param result the result to append.
+     */
+    @Override
+    public void write(final JsonWritable result) {
+        try {
+            result.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ends the array of results, flushes everything to the file and closes it.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            generator.writeEndArray();
+            generator.close();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -4,27 +4,36 @@ import org.poo.accounts.ClassicAccount;
 import org.poo.cards.Card;
 import org.poo.users.User;
 
-public class Finder {
-    private User user;
-    private ClassicAccount account;
-    private Card card;
+public final class Finder {
+    /**
+     * The result of a lookup that matched nothing.
+     */
+    public static final Finder EMPTY = new Finder(null, null, null);
+
+    private final User user;
+    private final ClassicAccount account;
+    private final Card card;
 
     /**
-     * Retrieves the user associated with the current operation.
+     * Constructs a new {@code Finder} holding the result of a lookup.
      *
-     * @return the {@code User} object.
+     * @param user    the user that was found, or {@code null}.
+     * @param account the account that was found, or {@code null}.
+     * @param card    the card that was found, or {@code null}.
      */
-    public User getUser() {
-        return user;
+    public Finder(final User user, final ClassicAccount account, final Card card) {
+        this.user = user;
+        this.account = account;
+        this.card = card;
     }
 
     /**
-     * Sets the user associated with the current operation.
+     * Retrieves the user associated with the current operation.
      *
-     * @param user the {@code User} object to set.
+     * @return the {@code User} object.
      */
-    public void setUser(final User user) {
-        this.user = user;
+    public User getUser() {
+        return user;
     }
 
     /**
@@ -36,15 +45,6 @@ public class Finder {
         return account;
     }
 
-    /**
-     * Sets the account associated with the current operation.
-     *
-     * @param account the {@code ClassicAccount} object to set.
-     */
-    public void setAccount(final ClassicAccount account) {
-        this.account = account;
-    }
-
     /**
      * Retrieves the card associated with the current operation.
      *
@@ -53,13 +53,4 @@ public class Finder {
     public Card getCard() {
         return card;
     }
-
-    /**
-     * Sets the card associated with the current operation.
-     *
-     * @param card the {@code Card} object to set.
-     */
-    public void setCard(final Card card) {
-        this.card = card;
-    }
 }
@@ -2,17 +2,21 @@ package org.poo.app;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class IBANRegistry {
     private Map<String, List<String>> ibanAliases;
+    private Map<String, Map<String, Integer>> aliasesByIban;
 
     /**
      * Initializes an empty registry for IBAN aliases.
      */
     public IBANRegistry() {
         ibanAliases = new HashMap<String, List<String>>();
+        aliasesByIban = new HashMap<String, Map<String, Integer>>();
     }
 
     /**
@@ -29,6 +33,8 @@ public class IBANRegistry {
         }
 
         ibanAliases.computeIfAbsent(alias, k -> new ArrayList<String>()).add(iban);
+        aliasesByIban.computeIfAbsent(iban, k -> new LinkedHashMap<String, Integer>())
+                .merge(alias, 1, Integer::sum);
     }
 
     /**
@@ -59,19 +65,19 @@ public class IBANRegistry {
 
     /**
      * Retrieves the IBAN associated with a given alias or IBAN identifier.
+     * When several IBANs were registered under the same alias, the last one wins.
      *
      * @param identifier the alias or IBAN to search for.
      * @return the IBAN if found; {@code null} otherwise.
      */
     public String getIBAN(final String identifier) {
-        if (ibanAliases.containsKey(identifier)) {
-            return ibanAliases.get(identifier).getLast();
+        List<String> ibans = ibanAliases.get(identifier);
+        if (ibans != null) {
+            return ibans.getLast();
         }
 
-        for (Map.Entry<String, List<String>> entry : ibanAliases.entrySet()) {
-            if (entry.getValue().contains(identifier)) {
-                return identifier;
-            }
+        if (aliasesByIban.containsKey(identifier)) {
+            return identifier;
         }
 
         return null;
@@ -79,7 +85,8 @@ public class IBANRegistry {
 
     /**
      * Removes an IBAN from the registry. If the IBAN is the last entry under a specific alias,
-     * the alias is also removed.
+     * the alias is also removed. An IBAN kept under several aliases is removed from the one
+     * it was first registered under.
      *
      * @param identifier the alias or IBAN to remove.
      * @return {@code true} if the IBAN was removed successfully; {@code false} otherwise.
@@ -89,15 +96,47 @@ public class IBANRegistry {
             return false;
         }
 
-        for (Map.Entry<String, List<String>> entry : ibanAliases.entrySet()) {
-            if (entry.getValue().remove(identifier)) {
-                if (entry.getValue().isEmpty()) {
-                    ibanAliases.remove(entry.getKey());
-                }
-                return true;
+        Map<String, Integer> aliases = aliasesByIban.get(identifier);
+        if (aliases == null) {
+            return false;
+        }
+
+        Iterator<Map.Entry<String, Integer>> first = aliases.entrySet().iterator();
+        Map.Entry<String, Integer> entry = first.next();
+        String alias = entry.getKey();
+        if (entry.getValue() == 1) {
+            first.remove();
+            if (aliases.isEmpty()) {
+                aliasesByIban.remove(identifier);
             }
+        } else {
+            entry.setValue(entry.getValue() - 1);
         }
 
-        return false;
+        List<String> ibans = ibanAliases.get(alias);
+        ibans.remove(identifier);
+        if (ibans.isEmpty()) {
+            ibanAliases.remove(alias);
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the IBANs registered under every alias, the latest one last.
+     *
+     * @return the live map from aliases to IBANs.
+     */
+    Map<String, List<String>> getIbanAliases() {
+        return ibanAliases;
+    }
+
+    /**
+     * Retrieves the aliases of every IBAN, the oldest one first, with how many times each
+     * was registered.
+     *
+     * @return the live map from IBANs to their aliases.
+     */
+    Map<String, Map<String, Integer>> getAliasesByIban() {
+        return aliasesByIban;
     }
 }
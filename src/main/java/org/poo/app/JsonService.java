@@ -0,0 +1,144 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Holds the JSON objects shared by the whole application. An {@code ObjectMapper} caches the
+ * serializers it builds, so reusing a single one is much cheaper than creating one for every
+ * command. The mapper and the writers are thread-safe once configured.
+ */
+public final class JsonService {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory NODES = MAPPER.getNodeFactory();
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+    private static final ObjectWriter STREAM_WRITER = MAPPER.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * for coding style
+     */
+    private JsonService() {
+    }
+
+    /**
+     * Retrieves the mapper shared by the application.
+     *
+     * @return the shared {@code ObjectMapper}.
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Retrieves the factory used to create JSON nodes.
+     *
+     * @return the shared {@code JsonNodeFactory}.
+     */
+    public static JsonNodeFactory nodes() {
+        return NODES;
+    }
+
+    /**
+     * Retrieves a writer that uses the default pretty printer.
+     *
+     * @return the pretty-printing {@code ObjectWriter}.
+     */
+    public static ObjectWriter prettyWriter() {
+        return PRETTY_WRITER;
+    }
+
+    /**
+     * Retrieves a writer for values written one after another into the same generator.
+     * It does not flush after each value, leaving that to the generator's buffer.
+     *
+     * @return the streaming {@code ObjectWriter}.
+     */
+    public static ObjectWriter streamWriter() {
+        return STREAM_WRITER;
+    }
+
+    /**
+     * Creates an empty JSON object.
+     *
+     * @return a new {@code ObjectNode}.
+     */
+    public static ObjectNode objectNode() {
+        return NODES.objectNode();
+    }
+
+    /**
+     * Creates an empty JSON array.
+     *
+     * @return a new {@code ArrayNode}.
+     */
+    public static ArrayNode arrayNode() {
+        return NODES.arrayNode();
+    }
+
+    /**
+     * Creates the result of a command that failed, with the error described in its output:
+     * {@code {command, timestamp, output: {description, timestamp}}}.
+     *
+     * @param command the name of the command.
+     * @param timestamp the timestamp of the command.
+     * @param description the description of the error.
+     * @return the result of the command.
+     */
+    public static ObjectNode errorResult(final String command, final int timestamp,
+                                         final String description) {
+        return errorResult(command, timestamp, description, timestamp);
+    }
+
+    /**
+     * Creates the result of a command that failed, when the error carries a timestamp of its
+     * own: {@code {command, timestamp, output: {description, timestamp}}}.
+     *
+     * @param command the name of the command.
+     * @param timestamp the timestamp of the result.
+     * @param description the description of the error.
+     * @param errorTimestamp the timestamp written inside the output.
+     * @return the result of the command.
+     */
+    public static ObjectNode errorResult(final String command, final int timestamp,
+                                         final String description, final int errorTimestamp) {
+        ObjectNode errorNode = NODES.objectNode();
+        errorNode.put("description", description);
+        errorNode.put("timestamp", errorTimestamp);
+        return result(command, timestamp).set("output", errorNode);
+    }
+
+    /**
+     * Creates the result of a command that was rejected: {@code {command, timestamp,
+     * output: {error}}}.
+     *
+     * @param command the name of the command.
+     * @param timestamp the timestamp of the command.
+     * @param error the error message.
+     * @return the result of the command.
+     */
+    public static ObjectNode errorMessage(final String command, final int timestamp,
+                                          final String error) {
+        ObjectNode errorNode = NODES.objectNode();
+        errorNode.put("error", error);
+        return result(command, timestamp).set("output", errorNode);
+    }
+
+    /**
+     * Creates the start of a command result: {@code {command, timestamp}}.
+     *
+     * @param command the name of the command.
+     * @param timestamp the timestamp of the command.
+     * @return the result, to which the output is still to be added.
+     */
+    public static ObjectNode result(final String command, final int timestamp) {
+        ObjectNode node = NODES.objectNode();
+        node.put("command", command);
+        node.put("timestamp", timestamp);
+        return node;
+    }
+}
@@ -0,0 +1,20 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * The {@code JsonWritable} interface is implemented by anything that can write itself
+ * as a single JSON value, token by token, without building a tree first.
+ */
+@FunctionalInterface
+public interface JsonWritable {
+    /**
+     * Writes this object as one JSON value.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the value cannot be written.
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
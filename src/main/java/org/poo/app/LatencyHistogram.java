@@ -0,0 +1,115 @@
+package org.poo.app;
+
+/**
+ * Counts latencies in buckets of logarithmic width: every power of two is split in
+ * {@value #SUB_BUCKETS} equal buckets, so any value is known within about 6%, from single
+ * nanoseconds to hours, with a fixed array. Recording never allocates. The histogram is not
+ * thread-safe; its owner must guard it.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int OCTAVES = Long.SIZE - SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[(OCTAVES + 1) * SUB_BUCKETS];
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency, in nanoseconds; negative values count as 0.
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Retrieves the number of recorded latencies.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the sum of the recorded latencies.
+     *
+     * @return the total, in nanoseconds.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Retrieves the largest recorded latency.
+     *
+     * @return the maximum, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in, never above the
+     * largest recorded latency.
+     *
+     * @param fraction the percentile, between 0 and 1, as in 0.99 for p99.
+     * @return the latency, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(final double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Finds the bucket of a latency.
+     *
+     * @param value the latency, not negative.
+     * @return the index of its bucket.
+     */
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Computes the largest latency that falls in a bucket.
+     *
+     * @param index the index of the bucket.
+     * @return the upper bound, in nanoseconds.
+     */
+    private static long upperBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
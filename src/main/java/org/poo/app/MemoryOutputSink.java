@@ -0,0 +1,61 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public final class MemoryOutputSink implements OutputSink {
+    private final ArrayNode results;
+
+    /**
+     * Constructs a sink that keeps every result in an in-memory array.
+     */
+    public MemoryOutputSink() {
+        results = JsonService.arrayNode();
+    }
+
+    /**
+     * Appends the result of a command to the in-memory array.
+     *
+     * @param result the result to append.
+     */
+    @Override
+    public void add(final JsonNode result) {
+        results.add(result);
+    }
+
+    /**
+     * Records the tokens the result writes and appends them to the in-memory array as a tree.
+     *
+     * @param result the result to append.
+     */
+    @Override
+    public void write(final JsonWritable result) {
+        try (TokenBuffer buffer = new TokenBuffer(JsonService.mapper(), false)) {
+            result.writeTo(buffer);
+            JsonNode tree = JsonService.mapper().readTree(buffer.asParser());
+            results.add(tree);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves every result added so far.
+     *
+     * @return the array of results.
+     */
+    public ArrayNode getResults() {
+        return results;
+    }
+
+    /**
+     * Does nothing, since the results stay available after the sink is closed.
+     */
+    @Override
+    public void close() {
+    }
+}
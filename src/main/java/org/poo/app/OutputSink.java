@@ -0,0 +1,28 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+
+/**
+ * The {@code OutputSink} interface receives the results that commands print, in the order
+ * they are produced. Implementations decide whether a result is kept in memory or written
+ * out right away.
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * Appends the result of a command to the output. The node must not be changed afterwards,
+     * since it may already have been written.
+     *
+     * @param result the result to append.
+     */
+    void add(JsonNode result);
+
+    /**
+     * Appends the result of a command by letting it write itself. Nothing is kept from
+     * the result after the call returns.
+     *
+     * @param result the result to append.
+     */
+    void write(JsonWritable result);
+}
@@ -0,0 +1,437 @@
+package org.poo.app;
+
+import org.poo.accounts.BusinessAccount;
+import org.poo.accounts.ClassicAccount;
+import org.poo.accounts.SavingsAccount;
+import org.poo.business.BusinessCommerciant;
+import org.poo.business.Employee;
+import org.poo.business.Manager;
+import org.poo.cards.Card;
+import org.poo.cards.OneTimeCard;
+import org.poo.commerciants.Commerciant;
+import org.poo.commerciants.Seller;
+import org.poo.exchangeRates.ExchangeRate;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.UserInput;
+import org.poo.servicePlan.PlanFactory;
+import org.poo.transactions.RecordedTransaction;
+import org.poo.transactions.TimestampIndexedHistory;
+import org.poo.transactions.TransactionStrategy;
+import org.poo.transactions.split_payment.PendingSplitRegistry;
+import org.poo.transactions.split_payment.SplitPaymentTransaction;
+import org.poo.users.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the state of a run from a snapshot written by {@link SnapshotWriter}. The file is
+ * mapped into memory rather than read through a stream, and the history entries are not
+ * parsed at all: each one becomes a {@link RecordedTransaction} pointing at its JSON in the
+ * mapping, so restoring costs about one pass over the users, accounts and cards.
+ */
+final class SnapshotReader {
+    private final ByteBuffer in;
+    private final ExecutionContext context;
+    private User[] users;
+    private ClassicAccount[] accounts;
+    private TransactionStrategy[] entries;
+
+    /**
+     * Constructs a reader of one snapshot.
+     *
+     * @param in the mapped snapshot.
+     * @param context the fresh run the state is restored into.
+     */
+    private SnapshotReader(final ByteBuffer in, final ExecutionContext context) {
+        this.in = in;
+        this.context = context;
+    }
+
+    /**
+     * Restores the state saved in a snapshot into a run that has not set anything up yet.
+     *
+     * @param file the snapshot.
+     * @param context the fresh run the state is restored into.
+     * @return the users of the saved run, in the order they were given as input.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    static List<User> read(final Path file, final ExecutionContext context) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.remaining() < 2 * Integer.BYTES || mapped.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException(file + " is not a snapshot");
+        }
+        int version = mapped.getInt();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException(file + " is a snapshot of version " + version
+                    + ", expected " + SnapshotWriter.VERSION);
+        }
+        return new SnapshotReader(mapped, context).readState();
+    }
+
+    /**
+     * Reads every section of the snapshot, in the order the writer wrote them.
+     *
+     * @return the users of the saved run.
+     */
+    private List<User> readState() {
+        long ibanPosition = in.getLong();
+        long cardPosition = in.getLong();
+        context.getIds().restorePositions(ibanPosition, cardPosition);
+        List<ExchangeRate> base = readRates();
+        context.getBank().restore(base, readRates());
+        readSellers();
+        readEntries();
+
+        users = new User[in.getInt()];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = readUser();
+        }
+        accounts = new ClassicAccount[in.getInt()];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = readAccount();
+        }
+        for (User user : users) {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                user.getAccounts().add(accounts[in.getInt()]);
+            }
+        }
+
+        EntityDirectory directory = context.getDirectory();
+        for (User user : users) {
+            directory.addUser(user);
+        }
+        for (User user : users) {
+            for (ClassicAccount account : user.getAccounts()) {
+                directory.addAccount(user, account);
+            }
+        }
+        directory.setRegisteredAccounts(in.getInt());
+
+        readAliases(context.getRegistry());
+        readSplits(context.getPendingSplits());
+        return Arrays.asList(users);
+    }
+
+    /**
+     * Reads a list of exchange rates.
+     *
+     * @return the rates.
+     */
+    private List<ExchangeRate> readRates() {
+        int count = in.getInt();
+        List<ExchangeRate> rates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String from = readString();
+            String to = readString();
+            ExchangeRate rate = new ExchangeRate(from, to, in.getDouble());
+            rate.setTimestamp(in.getInt());
+            rates.add(rate);
+        }
+        return rates;
+    }
+
+    /**
+     * Registers the commerciants again, in their original order, with their counters.
+     */
+    private void readSellers() {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            CommerciantInput input = new CommerciantInput();
+            input.setCommerciant(readString());
+            input.setId(in.getInt());
+            input.setAccount(readString());
+            input.setType(readString());
+            input.setCashbackStrategy(readString());
+            Seller seller = new Seller(input);
+            int counted = in.getInt();
+            for (int j = 0; j < counted; j++) {
+                int accountId = in.getInt();
+                seller.getTransactionCounts().put(accountId, in.getInt());
+            }
+            context.getCommerciants().register(seller);
+        }
+    }
+
+    /**
+     * Turns every saved history entry into a {@link RecordedTransaction} over its bytes.
+     */
+    private void readEntries() {
+        entries = new TransactionStrategy[in.getInt()];
+        for (int i = 0; i < entries.length; i++) {
+            int timestamp = in.getInt();
+            int length = in.getInt();
+            entries[i] = new RecordedTransaction(timestamp, in.slice(in.position(), length));
+            in.position(in.position() + length);
+        }
+    }
+
+    /**
+     * Appends the saved entries of a history.
+     *
+     * @param history the empty history of a user, an account or a commerciant.
+     */
+    private void readHistory(final TimestampIndexedHistory<TransactionStrategy> history) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            history.add(entries[in.getInt()]);
+        }
+    }
+
+    /**
+     * Reads a user, without accounts.
+     *
+     * @return the user.
+     */
+    private User readUser() {
+        UserInput input = new UserInput();
+        input.setFirstName(readString());
+        input.setLastName(readString());
+        input.setEmail(readString());
+        input.setBirthDate(readString());
+        input.setOccupation(readString());
+        User user = new User(input);
+        user.setServicePlan(PlanFactory.createPlan(readString()));
+        user.setNumberOfSavingsAccounts(in.getInt());
+        user.setBigTransactions(in.getInt());
+        readHistory(user.getTransactions());
+        return user;
+    }
+
+    /**
+     * Reads an account with its cards, coupons, history and payments.
+     *
+     * @return the account.
+     */
+    private ClassicAccount readAccount() {
+        byte kind = in.get();
+        String iban = readString();
+        String currency = readString();
+        String type = readString();
+        ClassicAccount account;
+        if (kind == SnapshotWriter.BUSINESS) {
+            account = new BusinessAccount(iban, currency, type, users[in.getInt()],
+                    context.getBank(), context.getLocks());
+        } else if (kind == SnapshotWriter.SAVINGS) {
+            account = new SavingsAccount(iban, currency, type, in.getDouble(),
+                    context.getLocks());
+        } else {
+            account = new ClassicAccount(iban, currency, type, context.getLocks());
+        }
+        account.setBalance(in.getDouble());
+        account.setMinBalance(in.getDouble());
+        account.setTotalSpentPerCommerciant(in.getDouble());
+        account.setAccountId(in.getInt());
+        double[] coupons = new double[in.getInt()];
+        for (int i = 0; i < coupons.length; i++) {
+            coupons[i] = in.getDouble();
+        }
+        account.restoreCoupons(coupons, in.getInt());
+
+        int cards = in.getInt();
+        for (int i = 0; i < cards; i++) {
+            boolean oneTime = in.get() != 0;
+            String number = readString();
+            String creator = readString();
+            String status = readString();
+            Card card = oneTime ? new OneTimeCard(number, creator)
+                    : new Card(number, creator, status);
+            card.setStatus(status);
+            account.getCards().add(card);
+        }
+        readHistory(account.getTransactions());
+
+        Commerciant commerciants = account.getCommerciants();
+        readHistory(commerciants.getPayments());
+        int names = in.getInt();
+        for (int i = 0; i < names; i++) {
+            String name = readString();
+            int payments = in.getInt();
+            for (int j = 0; j < payments; j++) {
+                commerciants.recordSpending(name, in.getInt(), in.getDouble());
+            }
+        }
+
+        if (account instanceof BusinessAccount business) {
+            readBusiness(business);
+        }
+        return account;
+    }
+
+    /**
+     * Reads the limits, the associates and the commerciants of a business account.
+     *
+     * @param account the business account, as its constructor left it.
+     */
+    private void readBusiness(final BusinessAccount account) {
+        account.setDepositLimit(in.getDouble());
+        account.setSpendingLimit(in.getDouble());
+        account.setTotalDeposited(in.getDouble());
+        account.setTotalSpent(in.getDouble());
+        // The owner is the user the account was created for
+        in.getInt();
+        readEmployee(account.getOwner());
+
+        int employees = in.getInt();
+        for (int i = 0; i < employees; i++) {
+            String email = readString();
+            Employee employee = new Employee(users[in.getInt()], 0);
+            readEmployee(employee);
+            account.getEmployees().put(email, employee);
+        }
+        int managers = in.getInt();
+        for (int i = 0; i < managers; i++) {
+            String email = readString();
+            Manager manager = new Manager(users[in.getInt()], 0);
+            readEmployee(manager);
+            account.getManagers().put(email, manager);
+        }
+
+        int commerciants = in.getInt();
+        for (int i = 0; i < commerciants; i++) {
+            String key = readString();
+            BusinessCommerciant commerciant = new BusinessCommerciant(readString());
+            commerciant.setEmployees(readStrings());
+            commerciant.setManagers(readStrings());
+            commerciant.setTotalReceived(in.getDouble());
+            account.getBusinessCommerciants().put(key, commerciant);
+        }
+    }
+
+    /**
+     * Reads what an associate of a business account has done so far, after its user.
+     *
+     * @param employee the associate to fill in.
+     */
+    private void readEmployee(final Employee employee) {
+        employee.setUsername(readString());
+        employee.setDeposited(in.getDouble());
+        employee.setSpent(in.getDouble());
+        employee.setOrder(in.getInt());
+    }
+
+    /**
+     * Registers the aliases of the IBANs again, both ways, in their original order.
+     *
+     * @param registry the empty registry of IBANs and aliases.
+     */
+    private void readAliases(final IBANRegistry registry) {
+        int aliases = in.getInt();
+        for (int i = 0; i < aliases; i++) {
+            String alias = readString();
+            registry.getIbanAliases().put(alias, readStrings());
+        }
+        int ibans = in.getInt();
+        for (int i = 0; i < ibans; i++) {
+            String iban = readString();
+            int count = in.getInt();
+            Map<String, Integer> byIban = new LinkedHashMap<>();
+            for (int j = 0; j < count; j++) {
+                String alias = readString();
+                byIban.put(alias, in.getInt());
+            }
+            registry.getAliasesByIban().put(iban, byIban);
+        }
+    }
+
+    /**
+     * Creates the split payments that were still waiting and queues them again for every
+     * user, in their original order.
+     *
+     * @param pendingSplits the empty registry of pending split payments.
+     */
+    private void readSplits(final PendingSplitRegistry pendingSplits) {
+        SplitPaymentTransaction[] splits = new SplitPaymentTransaction[in.getInt()];
+        for (int i = 0; i < splits.length; i++) {
+            CommandInput command = new CommandInput();
+            command.setCommand(CommandType.SPLIT_PAYMENT.getName());
+            command.setTimestamp(in.getInt());
+            command.setSplitPaymentType(readString());
+            command.setCurrency(readString());
+            command.setAmount(in.getDouble());
+            command.setAccounts(readStrings());
+            int amounts = in.getInt();
+            if (amounts != SnapshotWriter.NONE) {
+                double[] amountForUsers = new double[amounts];
+                for (int j = 0; j < amounts; j++) {
+                    amountForUsers[j] = in.getDouble();
+                }
+                command.setAmountForUsers(amountForUsers);
+            }
+
+            ArrayList<Finder> finders = new ArrayList<>();
+            int count = in.getInt();
+            for (int j = 0; j < count; j++) {
+                int user = in.getInt();
+                int account = in.getInt();
+                finders.add(new Finder(user == SnapshotWriter.NONE ? null : users[user],
+                        account == SnapshotWriter.NONE ? null : accounts[account], null));
+            }
+            splits[i] = new SplitPaymentTransaction(command, finders, context.getBank(),
+                    pendingSplits);
+            int approvals = in.getInt();
+            for (int j = 0; j < approvals; j++) {
+                String email = readString();
+                if (in.get() != 0) {
+                    splits[i].restoreApproval(email);
+                }
+            }
+        }
+
+        int queues = in.getInt();
+        for (int i = 0; i < queues; i++) {
+            String email = readString();
+            int count = in.getInt();
+            for (int j = 0; j < count; j++) {
+                pendingSplits.add(email, splits[in.getInt()]);
+            }
+        }
+    }
+
+    /**
+     * Reads a list of strings.
+     *
+     * @return the strings, or {@code null} if none were saved.
+     */
+    private List<String> readStrings() {
+        int count = in.getInt();
+        if (count == SnapshotWriter.NONE) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString());
+        }
+        return strings;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the string, or {@code null} if none was saved.
+     */
+    private String readString() {
+        int length = in.getInt();
+        if (length == SnapshotWriter.NONE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
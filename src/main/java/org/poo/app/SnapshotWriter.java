@@ -0,0 +1,551 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.BusinessAccount;
+import org.poo.accounts.ClassicAccount;
+import org.poo.accounts.SavingsAccount;
+import org.poo.business.BusinessCommerciant;
+import org.poo.business.Employee;
+import org.poo.cards.Card;
+import org.poo.cards.OneTimeCard;
+import org.poo.commerciants.Commerciant;
+import org.poo.commerciants.Seller;
+import org.poo.commerciants.SpendingSeries;
+import org.poo.commerciants.TransactionCounts;
+import org.poo.exchangeRates.Bnr;
+import org.poo.exchangeRates.ExchangeRate;
+import org.poo.fileio.CommandInput;
+import org.poo.transactions.TransactionStrategy;
+import org.poo.transactions.split_payment.SplitPaymentTransaction;
+import org.poo.users.User;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the complete state of a run to a compact binary file, read back by
+ * {@link SnapshotReader}. Every user, account, history entry and split payment is written
+ * once and referenced by its index everywhere else, so objects that were shared stay shared.
+ * History entries are kept as the compact JSON they print, since they never change once
+ * their command is over. Numbers are big-endian; a string is its UTF-8 length, or -1 for
+ * {@code null}, followed by its bytes.
+ */
+final class SnapshotWriter {
+    /**
+     * The first four bytes of every snapshot, "POOS".
+     */
+    static final int MAGIC = 0x504F4F53;
+    /**
+     * The version of the layout; a reader refuses any other one.
+     */
+    static final int VERSION = 2;
+    /**
+     * The index written for a missing reference, and the length of a missing string or array.
+     */
+    static final int NONE = -1;
+    /**
+     * The kind of a classic account.
+     */
+    static final byte CLASSIC = 0;
+    /**
+     * The kind of a savings account.
+     */
+    static final byte SAVINGS = 1;
+    /**
+     * The kind of a business account.
+     */
+    static final byte BUSINESS = 2;
+
+    private final DataOutputStream out;
+    private final Map<User, Integer> userIds;
+    private final Map<ClassicAccount, Integer> accountIds;
+    private final List<ClassicAccount> accounts;
+    private final Map<TransactionStrategy, Integer> entryIds;
+    private final List<TransactionStrategy> entries;
+    private final Map<SplitPaymentTransaction, Integer> splitIds;
+    private final List<SplitPaymentTransaction> splits;
+    private final ByteArrayOutputStream scratch;
+
+    /**
+     * Constructs a writer of one snapshot.
+     *
+     * @param out the stream the snapshot is written to.
+     */
+    private SnapshotWriter(final DataOutputStream out) {
+        this.out = out;
+        userIds = new IdentityHashMap<>();
+        accountIds = new IdentityHashMap<>();
+        accounts = new ArrayList<>();
+        entryIds = new IdentityHashMap<>();
+        entries = new ArrayList<>();
+        splitIds = new IdentityHashMap<>();
+        splits = new ArrayList<>();
+        scratch = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Writes the state of a run to a file, replacing it if it exists. No command may be
+     * running while the state is written.
+     *
+     * @param users the users of the run, in the order they were given as input.
+     * @param context the generators, exchange rates and registries of the run.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(final List<User> users, final ExecutionContext context, final Path file)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            new SnapshotWriter(out).writeState(users, context);
+        }
+    }
+
+    /**
+     * Writes every section of the snapshot, in the order the reader rebuilds them.
+     *
+     * @param users the users of the run.
+     * @param context the generators, exchange rates and registries of the run.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    private void writeState(final List<User> users, final ExecutionContext context)
+            throws IOException {
+        Map<String, List<SplitPaymentTransaction>> queued = context.getPendingSplits().snapshot();
+        index(users, queued);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(context.getIds().getIbanPosition());
+        out.writeLong(context.getIds().getCardPosition());
+        writeBank(context.getBank());
+        writeSellers(context.getCommerciants().getSellers());
+        writeEntries();
+
+        out.writeInt(users.size());
+        for (User user : users) {
+            writeUser(user);
+        }
+        out.writeInt(accounts.size());
+        for (ClassicAccount account : accounts) {
+            writeAccount(account);
+        }
+        for (User user : users) {
+            out.writeInt(user.getAccounts().size());
+            for (ClassicAccount account : user.getAccounts()) {
+                out.writeInt(accountIds.get(account));
+            }
+        }
+        out.writeInt(context.getDirectory().getRegisteredAccounts());
+
+        writeAliases(context.getRegistry());
+        writeSplits(queued);
+    }
+
+    /**
+     * Numbers the users, the accounts, the history entries and the pending split payments.
+     * Accounts that were deleted but still take part in a pending split are numbered too.
+     *
+     * @param users the users of the run.
+     * @param queued the split payments queued for each user.
+     */
+    private void index(final List<User> users,
+                       final Map<String, List<SplitPaymentTransaction>> queued) {
+        for (User user : users) {
+            userIds.putIfAbsent(user, userIds.size());
+            for (ClassicAccount account : user.getAccounts()) {
+                indexAccount(account);
+            }
+        }
+        for (List<SplitPaymentTransaction> queue : queued.values()) {
+            for (SplitPaymentTransaction split : queue) {
+                if (splitIds.putIfAbsent(split, splits.size()) == null) {
+                    splits.add(split);
+                    for (Finder finder : split.getFinders()) {
+                        indexAccount(finder.getAccount());
+                    }
+                }
+            }
+        }
+
+        for (User user : users) {
+            indexEntries(user.getTransactions());
+        }
+        for (ClassicAccount account : accounts) {
+            indexEntries(account.getTransactions());
+            indexEntries(account.getCommerciants().getPayments());
+        }
+    }
+
+    /**
+     * Numbers an account, unless it already has a number.
+     *
+     * @param account the account, or {@code null}.
+     */
+    private void indexAccount(final ClassicAccount account) {
+        if (account != null && accountIds.putIfAbsent(account, accounts.size()) == null) {
+            accounts.add(account);
+        }
+    }
+
+    /**
+     * Numbers the entries of a history that do not have a number yet.
+     *
+     * @param history the history.
+     */
+    private void indexEntries(final List<? extends TransactionStrategy> history) {
+        for (TransactionStrategy entry : history) {
+            if (entryIds.putIfAbsent(entry, entries.size()) == null) {
+                entries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Writes the exchange rates as they were set up, followed by every update since.
+     *
+     * @param bank the exchange rates of the run.
+     * @throws IOException if the rates cannot be written.
+     */
+    private void writeBank(final Bnr bank) throws IOException {
+        writeRates(bank.getBaseRates());
+        writeRates(bank.getUpdates());
+    }
+
+    /**
+     * Writes a list of exchange rates.
+     *
+     * @param rates the rates.
+     * @throws IOException if the rates cannot be written.
+     */
+    private void writeRates(final List<ExchangeRate> rates) throws IOException {
+        out.writeInt(rates.size());
+        for (ExchangeRate rate : rates) {
+            writeString(rate.getFrom());
+            writeString(rate.getTo());
+            out.writeDouble(rate.getRate());
+            out.writeInt(rate.getTimestamp());
+        }
+    }
+
+    /**
+     * Writes the commerciants, in the order they were registered, with the number of
+     * transactions every account made with them.
+     *
+     * @param sellers the commerciants.
+     * @throws IOException if the commerciants cannot be written.
+     */
+    private void writeSellers(final List<Seller> sellers) throws IOException {
+        out.writeInt(sellers.size());
+        for (Seller seller : sellers) {
+            writeString(seller.getCommerciant());
+            out.writeInt(seller.getId());
+            writeString(seller.getIban());
+            writeString(seller.getType());
+            writeString(seller.getCashbackType());
+            TransactionCounts counts = seller.getTransactionCounts();
+            int[] counted = counts.accountIds();
+            int[] values = counts.counts();
+            out.writeInt(counted.length);
+            for (int i = 0; i < counted.length; i++) {
+                out.writeInt(counted[i]);
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes every history entry once: its timestamp and the compact JSON it prints.
+     *
+     * @throws IOException if an entry cannot be written.
+     */
+    private void writeEntries() throws IOException {
+        out.writeInt(entries.size());
+        for (TransactionStrategy entry : entries) {
+            scratch.reset();
+            try (JsonGenerator generator = JsonService.mapper().getFactory()
+                    .createGenerator(scratch)) {
+                entry.writeTo(generator);
+            }
+            out.writeInt(entry.getTimestamp());
+            out.writeInt(scratch.size());
+            scratch.writeTo(out);
+        }
+    }
+
+    /**
+     * Writes the history entries of a user, an account or a commerciant, by index.
+     *
+     * @param history the history.
+     * @throws IOException if the history cannot be written.
+     */
+    private void writeHistory(final List<? extends TransactionStrategy> history)
+            throws IOException {
+        out.writeInt(history.size());
+        for (TransactionStrategy entry : history) {
+            out.writeInt(entryIds.get(entry));
+        }
+    }
+
+    /**
+     * Writes the personal details, the service plan and the history of a user. The accounts
+     * are written after every account is.
+     *
+     * @param user the user.
+     * @throws IOException if the user cannot be written.
+     */
+    private void writeUser(final User user) throws IOException {
+        writeString(user.getFirstName());
+        writeString(user.getLastName());
+        writeString(user.getEmail());
+        writeString(user.getBirthDate());
+        writeString(user.getOccupation());
+        writeString(user.getServicePlan().getPlan());
+        out.writeInt(user.getNumberOfSavingsAccounts());
+        out.writeInt(user.getBigTransactions());
+        writeHistory(user.getTransactions());
+    }
+
+    /**
+     * Writes an account with its cards, coupons, history and payments, and the associates
+     * and limits of a business account.
+     *
+     * @param account the account.
+     * @throws IOException if the account cannot be written.
+     */
+    private void writeAccount(final ClassicAccount account) throws IOException {
+        if (account instanceof BusinessAccount business) {
+            out.writeByte(BUSINESS);
+            writeString(account.getIban());
+            writeString(account.getCurrency());
+            writeString(account.getType());
+            out.writeInt(userId(business.getOwner().getUser()));
+        } else if (account instanceof SavingsAccount savings) {
+            out.writeByte(SAVINGS);
+            writeString(account.getIban());
+            writeString(account.getCurrency());
+            writeString(account.getType());
+            out.writeDouble(savings.getInterest());
+        } else {
+            out.writeByte(CLASSIC);
+            writeString(account.getIban());
+            writeString(account.getCurrency());
+            writeString(account.getType());
+        }
+        out.writeDouble(account.getBalance());
+        out.writeDouble(account.getMinBalance());
+        out.writeDouble(account.getTotalSpentPerCommerciant());
+        out.writeInt(account.getAccountId());
+        double[] coupons = account.getCoupons();
+        out.writeInt(coupons.length);
+        for (double coupon : coupons) {
+            out.writeDouble(coupon);
+        }
+        out.writeInt(account.getRedeemedCoupons());
+
+        out.writeInt(account.getCards().size());
+        for (Card card : account.getCards()) {
+            out.writeBoolean(card instanceof OneTimeCard);
+            writeString(card.getCardNumber());
+            writeString(card.getCreatorEmail());
+            writeString(card.getStatus());
+        }
+        writeHistory(account.getTransactions());
+
+        Commerciant commerciants = account.getCommerciants();
+        writeHistory(commerciants.getPayments());
+        out.writeInt(commerciants.getSpendings().size());
+        for (Map.Entry<String, SpendingSeries> entry : commerciants.getSpendings().entrySet()) {
+            writeString(entry.getKey());
+            SpendingSeries series = entry.getValue();
+            out.writeInt(series.size());
+            for (int i = 0; i < series.size(); i++) {
+                out.writeInt(series.getTimestamp(i));
+                out.writeDouble(series.getAmount(i));
+            }
+        }
+
+        if (account instanceof BusinessAccount business) {
+            writeBusiness(business);
+        }
+    }
+
+    /**
+     * Writes the limits, the associates and the commerciants of a business account.
+     *
+     * @param account the business account.
+     * @throws IOException if the account cannot be written.
+     */
+    private void writeBusiness(final BusinessAccount account) throws IOException {
+        out.writeDouble(account.getDepositLimit());
+        out.writeDouble(account.getSpendingLimit());
+        out.writeDouble(account.getTotalDeposited());
+        out.writeDouble(account.getTotalSpent());
+        writeEmployee(account.getOwner());
+        writeAssociates(account.getEmployees());
+        writeAssociates(account.getManagers());
+
+        out.writeInt(account.getBusinessCommerciants().size());
+        for (Map.Entry<String, BusinessCommerciant> entry
+                : account.getBusinessCommerciants().entrySet()) {
+            BusinessCommerciant commerciant = entry.getValue();
+            writeString(entry.getKey());
+            writeString(commerciant.getCommerciant());
+            writeStrings(commerciant.getEmployees());
+            writeStrings(commerciant.getManagers());
+            out.writeDouble(commerciant.getTotalReceived());
+        }
+    }
+
+    /**
+     * Writes the employees or the managers of a business account, by email.
+     *
+     * @param associates the associates.
+     * @throws IOException if the associates cannot be written.
+     */
+    private void writeAssociates(final Map<String, ? extends Employee> associates)
+            throws IOException {
+        out.writeInt(associates.size());
+        for (Map.Entry<String, ? extends Employee> entry : associates.entrySet()) {
+            writeString(entry.getKey());
+            writeEmployee(entry.getValue());
+        }
+    }
+
+    /**
+     * Writes what an associate of a business account has done so far.
+     *
+     * @param employee the associate.
+     * @throws IOException if the associate cannot be written.
+     */
+    private void writeEmployee(final Employee employee) throws IOException {
+        out.writeInt(userId(employee.getUser()));
+        writeString(employee.getUsername());
+        out.writeDouble(employee.getDeposited());
+        out.writeDouble(employee.getSpent());
+        out.writeInt(employee.getOrder());
+    }
+
+    /**
+     * Writes the aliases of the IBANs, both ways, in the order they were registered.
+     *
+     * @param registry the registry of IBANs and aliases.
+     * @throws IOException if the aliases cannot be written.
+     */
+    private void writeAliases(final IBANRegistry registry) throws IOException {
+        out.writeInt(registry.getIbanAliases().size());
+        for (Map.Entry<String, List<String>> entry : registry.getIbanAliases().entrySet()) {
+            writeString(entry.getKey());
+            writeStrings(entry.getValue());
+        }
+        out.writeInt(registry.getAliasesByIban().size());
+        for (Map.Entry<String, Map<String, Integer>> entry
+                : registry.getAliasesByIban().entrySet()) {
+            writeString(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<String, Integer> alias : entry.getValue().entrySet()) {
+                writeString(alias.getKey());
+                out.writeInt(alias.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the split payments that still wait for answers, followed by the queue of
+     * every user.
+     *
+     * @param queued the split payments queued for each user.
+     * @throws IOException if the split payments cannot be written.
+     */
+    private void writeSplits(final Map<String, List<SplitPaymentTransaction>> queued)
+            throws IOException {
+        out.writeInt(splits.size());
+        for (SplitPaymentTransaction split : splits) {
+            CommandInput command = split.getCommand();
+            out.writeInt(command.getTimestamp());
+            writeString(command.getSplitPaymentType());
+            writeString(command.getCurrency());
+            out.writeDouble(command.getAmount());
+            writeStrings(command.getAccounts());
+            double[] amounts = command.getAmountForUsers();
+            out.writeInt(amounts == null ? NONE : amounts.length);
+            if (amounts != null) {
+                for (double amount : amounts) {
+                    out.writeDouble(amount);
+                }
+            }
+
+            out.writeInt(split.getFinders().size());
+            for (Finder finder : split.getFinders()) {
+                out.writeInt(userId(finder.getUser()));
+                out.writeInt(finder.getAccount() == null
+                        ? NONE : accountIds.get(finder.getAccount()));
+            }
+            out.writeInt(split.getApprovals().size());
+            for (Map.Entry<String, Boolean> approval : split.getApprovals().entrySet()) {
+                writeString(approval.getKey());
+                out.writeBoolean(approval.getValue());
+            }
+        }
+
+        out.writeInt(queued.size());
+        for (Map.Entry<String, List<SplitPaymentTransaction>> entry : queued.entrySet()) {
+            writeString(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (SplitPaymentTransaction split : entry.getValue()) {
+                out.writeInt(splitIds.get(split));
+            }
+        }
+    }
+
+    /**
+     * Finds the index of a user.
+     *
+     * @param user the user, or {@code null}.
+     * @return the index, or {@link #NONE} if the user is not one of the run.
+     */
+    private int userId(final User user) {
+        Integer id = user == null ? null : userIds.get(user);
+        return id == null ? NONE : id;
+    }
+
+    /**
+     * Writes a list of strings, or its absence.
+     *
+     * @param strings the strings, or {@code null}.
+     * @throws IOException if the strings cannot be written.
+     */
+    private void writeStrings(final List<String> strings) throws IOException {
+        if (strings == null) {
+            out.writeInt(NONE);
+            return;
+        }
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(string);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes, or its absence.
+     *
+     * @param string the string, or {@code null}.
+     * @throws IOException if the string cannot be written.
+     */
+    private void writeString(final String string) throws IOException {
+        if (string == null) {
+            out.writeInt(NONE);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -2,6 +2,7 @@ package org.poo.cards;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.poo.users.User;
+import org.poo.utils.IdGenerator;
 
 public class Card {
     protected String cardNumber;
@@ -32,6 +33,7 @@ public class Card {
      * @param user       the user who owns the card, must not be null.
      * @param cardHolder the name of the cardholder, must not be null or empty.
      * @param timestamp  the timestamp of the transaction.
+     * @param ids        the generator of the run, used if the card gets a new number.
      * @return an integer representing the result of the card usage (currently always {@code 0}
      * because we do not wish to change the card).
      */
@@ -39,7 +41,8 @@ public class Card {
             final String account,
             final User user,
             final String cardHolder,
-            final int timestamp
+            final int timestamp,
+            final IdGenerator ids
     ) {
         return 0;
     }
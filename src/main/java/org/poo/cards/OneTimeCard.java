@@ -4,7 +4,7 @@ import org.poo.transactions.AddCardTransaction;
 import org.poo.transactions.DeleteCardTransaction;
 import org.poo.transactions.TransactionStrategy;
 import org.poo.users.User;
-import org.poo.utils.Utils;
+import org.poo.utils.IdGenerator;
 
 public class OneTimeCard extends Card {
     /**
@@ -33,6 +33,7 @@ public class OneTimeCard extends Card {
      * @param user       the user who owns the card, must not be null.
      * @param cardHolder the name of the cardholder, must not be null or empty.
      * @param timestamp  the timestamp of the transaction.
+     * @param ids        the generator of the run, used if the card gets a new number.
      * @return an integer indicating the result of the card usage (always {@code 1}).
      */
     @Override
@@ -40,13 +41,14 @@ public class OneTimeCard extends Card {
             final String account,
             final User user,
             final String cardHolder,
-            final int timestamp
+            final int timestamp,
+            final IdGenerator ids
     ) {
         TransactionStrategy trans = new DeleteCardTransaction(
                 "The card has been destroyed",
                 timestamp, account, cardNumber, cardHolder);
         user.getTransactions().add(trans);
-        cardNumber = Utils.generateCardNumber();
+        cardNumber = ids.generateCardNumber();
         trans = new AddCardTransaction(
                 account, cardNumber, cardHolder,
                 "New card created", timestamp);
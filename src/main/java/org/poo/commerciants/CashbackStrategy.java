@@ -1,6 +1,7 @@
 package org.poo.commerciants;
 
 import org.poo.accounts.ClassicAccount;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
 public interface CashbackStrategy {
@@ -12,11 +13,13 @@ public interface CashbackStrategy {
      * @param account the account used for the transaction
      * @param user the user performing the transaction
      * @param transactionAmount the amount of the transaction
+     * @param rules the pricing rules of the run
      * @return the calculated cashback amount
      */
     double calculateCashback(
             Seller seller,
             ClassicAccount account,
             User user,
-            double transactionAmount);
+            double transactionAmount,
+            PricingRules rules);
 }
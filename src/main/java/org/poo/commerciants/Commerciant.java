@@ -1,26 +1,85 @@
 package org.poo.commerciants;
 
 import org.poo.transactions.PayOnlineTransaction;
+import org.poo.transactions.TimestampIndexedHistory;
+import org.poo.transactions.TransactionStrategy;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class Commerciant {
-    private ArrayList<PayOnlineTransaction> payments;
+    private TimestampIndexedHistory<TransactionStrategy> payments;
+    private TreeMap<String, SpendingSeries> spendings;
 
     /**
      * Constructs a new {@code Commerciant} instance with an empty list of payments.
      */
    public Commerciant() {
-       payments = new ArrayList<>();
+       payments = new TimestampIndexedHistory<>();
+       spendings = new TreeMap<>();
    }
 
     /**
      * Retrieves the list of online payment transactions for the merchant.
      *
-     * @return an {@code ArrayList} of {@code PayOnlineTransaction} objects
-     * representing payments to the merchant.
+     * @return a {@code TimestampIndexedHistory} of the entries of the payments to the
+     * merchant: {@code PayOnlineTransaction} objects, or the saved copies of a restored run.
      */
-    public ArrayList<PayOnlineTransaction> getPayments() {
+    public TimestampIndexedHistory<TransactionStrategy> getPayments() {
         return payments;
     }
+
+    /**
+     * Records a completed online payment and adds its amount to the running totals of
+     * its commerciant.
+     *
+     * @param payment the payment to record; its commerciant and amount must already be set.
+     */
+    public void recordPayment(final PayOnlineTransaction payment) {
+        payments.add(payment);
+        recordSpending(payment.getCommerciant(), payment.getTimestamp(), payment.getAmount());
+    }
+
+    /**
+     * Adds an amount to the running totals of a commerciant, without an entry in the
+     * payments, as when the totals of a saved run are restored.
+     *
+     * @param commerciant the name of the commerciant.
+     * @param timestamp the timestamp of the payment.
+     * @param amount the amount paid.
+     */
+    public void recordSpending(final String commerciant, final int timestamp,
+                               final double amount) {
+        spendings.computeIfAbsent(commerciant, name -> new SpendingSeries())
+                .add(timestamp, amount);
+    }
+
+    /**
+     * Retrieves the payments made to every commerciant, with their running totals.
+     *
+     * @return a read-only view of the series, sorted by commerciant name.
+     */
+    public Map<String, SpendingSeries> getSpendings() {
+        return Collections.unmodifiableMap(spendings);
+    }
+
+    /**
+     * Computes how much was spent at every commerciant within a time window.
+     *
+     * @param start the first timestamp of the window.
+     * @param end the last timestamp of the window.
+     * @return the totals sorted by commerciant name; commerciants without payments in the
+     * window are left out.
+     */
+    public TreeMap<String, Double> getTotals(final int start, final int end) {
+        TreeMap<String, Double> totals = new TreeMap<>();
+        for (Map.Entry<String, SpendingSeries> entry : spendings.entrySet()) {
+            Double total = entry.getValue().total(start, end);
+            if (total != null) {
+                totals.put(entry.getKey(), total);
+            }
+        }
+        return totals;
+    }
 }
@@ -0,0 +1,48 @@
+package org.poo.commerciants;
+
+/**
+ * The kinds of commerciants that can give out coupons. The number of payments that unlocks
+ * each coupon and the share it gives back are set by the pricing rules.
+ */
+public enum CommerciantCategory {
+    FOOD("Food"),
+    CLOTHES("Clothes"),
+    TECH("Tech");
+
+    private static final CommerciantCategory[] VALUES = values();
+
+    private final String name;
+
+    /**
+     * Constructs a category.
+     *
+     * @param name the type of the commerciants, as it appears in the input.
+     */
+    CommerciantCategory(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Finds the category of a commerciant type.
+     *
+     * @param name the type, as it appears in the input.
+     * @return the category, or {@code null} if the type has no coupons.
+     */
+    public static CommerciantCategory fromName(final String name) {
+        for (CommerciantCategory category : VALUES) {
+            if (category.name.equals(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the type of the commerciants, as it appears in the input.
+     *
+     * @return the name of the category.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,94 @@
+package org.poo.commerciants;
+
+import org.poo.fileio.CommerciantInput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CommerciantRegistry {
+    private ArrayList<Seller> sellers;
+    private Map<String, Seller> sellersByName;
+    private Map<String, Seller> sellersByIban;
+    private Map<Integer, Seller> sellersById;
+
+    /**
+     * Initializes an empty registry of commerciants.
+     */
+    public CommerciantRegistry() {
+        sellers = new ArrayList<>();
+        sellersByName = new HashMap<>();
+        sellersByIban = new HashMap<>();
+        sellersById = new HashMap<>();
+    }
+
+    /**
+     * Creates a seller for every commerciant in the input and registers it.
+     *
+     * @param commerciants the commerciants given as input; may be {@code null}.
+     */
+    public void setUp(final CommerciantInput[] commerciants) {
+        if (commerciants == null) {
+            return;
+        }
+        for (CommerciantInput commerciant : commerciants) {
+            register(new Seller(commerciant));
+        }
+    }
+
+    /**
+     * Registers a seller. A seller with the same name as an earlier one replaces it in the
+     * lookups by name, while the lookups by IBAN and id keep the seller registered first.
+     *
+     * @param seller the seller to register.
+     */
+    public void register(final Seller seller) {
+        sellers.add(seller);
+        sellersByName.put(seller.getCommerciant(), seller);
+        if (seller.getIban() != null) {
+            sellersByIban.putIfAbsent(seller.getIban(), seller);
+        }
+        sellersById.putIfAbsent(seller.getId(), seller);
+    }
+
+    /**
+     * Retrieves a seller by the name of the commerciant.
+     *
+     * @param name the name of the commerciant.
+     * @return the {@code Seller}, or {@code null} if no commerciant has that name.
+     */
+    public Seller findByName(final String name) {
+        return sellersByName.get(name);
+    }
+
+    /**
+     * Retrieves a seller by the IBAN of its account.
+     *
+     * @param iban the IBAN of the commerciant's account.
+     * @return the {@code Seller}, or {@code null} if no commerciant has that IBAN.
+     */
+    public Seller findByIban(final String iban) {
+        return sellersByIban.get(iban);
+    }
+
+    /**
+     * Retrieves a seller by its id.
+     *
+     * @param id the id of the commerciant.
+     * @return the {@code Seller}, or {@code null} if no commerciant has that id.
+     */
+    public Seller findById(final int id) {
+        return sellersById.get(id);
+    }
+
+    /**
+     * Retrieves every registered seller, in the order they were registered.
+     *
+     * @return a read-only view of the sellers.
+     */
+    public List<Seller> getSellers() {
+        return Collections.unmodifiableList(sellers);
+    }
+}
@@ -1,6 +1,7 @@
 package org.poo.commerciants;
 
 import org.poo.accounts.ClassicAccount;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
 public class NumberOfTransactionsCashback implements CashbackStrategy {
@@ -16,6 +17,7 @@ public class NumberOfTransactionsCashback implements CashbackStrategy {
      * @param user the user performing the transaction,
      *             whose details may influence the cashback calculation
      * @param transactionAmount the monetary amount of the transaction
+     * @param rules the pricing rules of the run, which set when each coupon is unlocked
      * @return the cashback amount for the transaction,
      * which is always 0.0 in the current implementation
      */
@@ -23,34 +25,20 @@ public class NumberOfTransactionsCashback implements CashbackStrategy {
             final Seller seller,
             final ClassicAccount account,
             final User user,
-            final double transactionAmount
+            final double transactionAmount,
+            final PricingRules rules
     ) {
-        Integer transactions = seller.getNumberOfTransactions().get(account);
+        int transactions;
 
         if (seller.getCashbackType().equals("nrOfTransactions")) {
-            if (transactions == null) {
-                transactions = 1;
-            } else {
-                transactions = transactions + 1;
-            }
+            transactions = seller.countTransaction(account);
+        } else {
+            transactions = seller.getNumberOfTransactions(account);
         }
-        seller.getNumberOfTransactions().put(account, transactions);
 
-        if (transactions == null) {
-            return 0;
-        }
-        if (transactions == 2) {
-            if (account.getCoupons().get("Food") != -1) {
-                account.getCoupons().put("Food", 0.02);
-            }
-        } else if (transactions == 5) {
-            if (account.getCoupons().get("Clothes") != -1) {
-                account.getCoupons().put("Clothes", 0.05);
-            }
-        } else if (transactions == 10) {
-            if (account.getCoupons().get("Tech") != -1) {
-                account.getCoupons().put("Tech", 0.1);
-            }
+        CommerciantCategory unlocked = rules.couponUnlockedAt(transactions);
+        if (unlocked != null) {
+            account.grantCoupon(unlocked, rules.couponRate(unlocked));
         }
         return 0.0;
     }
@@ -3,16 +3,14 @@ package org.poo.commerciants;
 import org.poo.accounts.ClassicAccount;
 import org.poo.fileio.CommerciantInput;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class Seller {
     private String commerciant;
     private String type;
+    private CommerciantCategory category;
     private int id;
     private String iban;
 
-    private Map<ClassicAccount, Integer> numberOfTransactions;
+    private TransactionCounts numberOfTransactions;
     private CashbackStrategy cashbackStrategy;
     private String cashbackType;
 
@@ -32,9 +30,10 @@ public class Seller {
     ) {
         this.commerciant = commerciant;
         this.type = type;
+        this.category = CommerciantCategory.fromName(type);
         this.cashbackType = cashbackType;
         this.cashbackStrategy = cashbackStrategy;
-        numberOfTransactions = new HashMap<>();
+        numberOfTransactions = new TransactionCounts();
     }
 
     /**
@@ -46,6 +45,7 @@ public class Seller {
     public Seller(final CommerciantInput commerciantInput) {
         this.commerciant = commerciantInput.getCommerciant();
         this.type = commerciantInput.getType();
+        this.category = CommerciantCategory.fromName(type);
         this.cashbackType = commerciantInput.getCashbackStrategy();
         this.id = commerciantInput.getId();
         this.iban = commerciantInput.getAccount();
@@ -56,7 +56,7 @@ public class Seller {
             this.cashbackStrategy = new NumberOfTransactionsCashback();
         }
 
-        numberOfTransactions = new HashMap<>();
+        numberOfTransactions = new TransactionCounts();
     }
 
     /**
@@ -93,6 +93,16 @@ public class Seller {
      */
     public void setType(final String type) {
         this.type = type;
+        this.category = CommerciantCategory.fromName(type);
+    }
+
+    /**
+     * Retrieves the category of the seller, which decides the coupons its payments use.
+     *
+     * @return the category, or {@code null} if the type of the seller has no coupons
+     */
+    public CommerciantCategory getCategory() {
+        return category;
     }
 
     /**
@@ -150,13 +160,50 @@ public class Seller {
     }
 
     /**
-     * Retrieves the mapping of ClassicAccount objects to the number of transactions
-     * associated with each account.
+     * Retrieves the number of transactions the given account made with the seller.
+     *
+     * @param account the buyer's account, which must have been registered in the bank.
+     * @return the number of transactions, or 0 if the account never paid this seller.
+     * @throws IllegalArgumentException if the account was never registered.
+     */
+    public int getNumberOfTransactions(final ClassicAccount account) {
+        return numberOfTransactions.get(registeredId(account));
+    }
+
+    /**
+     * Counts one more transaction made by the given account with the seller. The counters
+     * are kept only for the accounts that paid the seller, keyed by the dense account id.
+     *
+     * @param account the buyer's account, which must have been registered in the bank.
+     * @return the number of transactions after this one.
+     * @throws IllegalArgumentException if the account was never registered.
+     */
+    public int countTransaction(final ClassicAccount account) {
+        return numberOfTransactions.increment(registeredId(account));
+    }
+
+    /**
+     * Retrieves the dense id of an account that pays the seller.
+     *
+     * @param account the buyer's account.
+     * @return the id of the account.
+     * @throws IllegalArgumentException if the account was never registered.
+     */
+    private static int registeredId(final ClassicAccount account) {
+        int accountId = account.getAccountId();
+        if (accountId == ClassicAccount.NO_ID) {
+            throw new IllegalArgumentException("Account " + account.getIban()
+                    + " is not registered in the bank");
+        }
+        return accountId;
+    }
+
+    /**
+     * Retrieves the number of transactions every account made with the seller.
      *
-     * @return a Map where the key is a ClassicAccount and the value is an Integer
-     * representing the number of transactions for that account.
+     * @return the counters, keyed by account id.
      */
-    public Map<ClassicAccount, Integer> getNumberOfTransactions() {
+    public TransactionCounts getTransactionCounts() {
         return numberOfTransactions;
     }
 
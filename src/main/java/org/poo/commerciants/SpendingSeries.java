@@ -0,0 +1,140 @@
+package org.poo.commerciants;
+
+import java.util.Arrays;
+
+public class SpendingSeries {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] timestamps;
+    private double[] amounts;
+    private double[] prefixSums;
+    private int size;
+    private boolean ordered;
+
+    /**
+     * Constructs an empty series of payments to a single commerciant.
+     */
+    public SpendingSeries() {
+        timestamps = new int[INITIAL_CAPACITY];
+        amounts = new double[INITIAL_CAPACITY];
+        prefixSums = new double[INITIAL_CAPACITY + 1];
+        ordered = true;
+    }
+
+    /**
+     * Appends a payment to the series and extends the running totals with it.
+     *
+     * @param timestamp the timestamp of the payment.
+     * @param amount the amount paid.
+     */
+    public void add(final int timestamp, final double amount) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+            prefixSums = Arrays.copyOf(prefixSums, size * 2 + 1);
+        }
+        if (size > 0 && timestamps[size - 1] > timestamp) {
+            ordered = false;
+        }
+        timestamps[size] = timestamp;
+        amounts[size] = amount;
+        prefixSums[size + 1] = prefixSums[size] + amount;
+        size++;
+    }
+
+    /**
+     * Retrieves the number of payments in the series.
+     *
+     * @return the size of the series.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the timestamp of a payment.
+     *
+     * @param index the position of the payment, in the order it was made.
+     * @return the timestamp.
+     */
+    public int getTimestamp(final int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Retrieves the amount of a payment.
+     *
+     * @param index the position of the payment, in the order it was made.
+     * @return the amount.
+     */
+    public double getAmount(final int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Adds up the payments whose timestamps fall within the given bounds, one after the other,
+     * in the order they were made. A window that starts with the first payment is read straight
+     * from the running totals; any other window adds its own payments again, since subtracting
+     * two running totals would round differently.
+     *
+     * @param start the first timestamp of the window.
+     * @param end the last timestamp of the window.
+     * @return the total of the window, or {@code null} if no payment falls within it.
+     */
+    public Double total(final int start, final int end) {
+        if (!ordered) {
+            return scan(start, end);
+        }
+        int first = firstAfter(start - 1L);
+        int last = firstAfter(end);
+        if (first >= last) {
+            return null;
+        }
+        if (first == 0) {
+            return prefixSums[last];
+        }
+        double total = 0.0;
+        for (int i = first; i < last; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Adds up the payments within the given bounds by looking at every payment of the series.
+     *
+     * @param start the first timestamp of the window.
+     * @param end the last timestamp of the window.
+     * @return the total of the window, or {@code null} if no payment falls within it.
+     */
+    private Double scan(final int start, final int end) {
+        Double total = null;
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] >= start && timestamps[i] <= end) {
+                total = (total == null ? 0.0 : total) + amounts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds, in a series in timestamp order, the first payment whose timestamp is greater than
+     * the given one.
+     *
+     * @param timestamp the timestamp to compare with.
+     * @return the position of that payment, or the size of the series if there is none.
+     */
+    private int firstAfter(final long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,155 @@
+package org.poo.commerciants;
+
+import java.util.Arrays;
+
+/**
+ * The number of transactions each account made with one commerciant, keyed by the dense
+ * account id. The counts live in an open-addressing table of primitive ints with linear
+ * probing, so a commerciant only pays for the accounts that actually paid it and nothing is
+ * boxed when a payment is counted.
+ */
+public final class TransactionCounts {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty table.
+     */
+    public TransactionCounts() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Retrieves the count of an account.
+     *
+     * @param accountId the dense id of the account, not negative.
+     * @return the count, or 0 if the account was never counted.
+     */
+    public int get(final int accountId) {
+        int slot = find(accountId);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * Adds one to the count of an account.
+     *
+     * @param accountId the dense id of the account, not negative.
+     * @return the count after this one.
+     */
+    public int increment(final int accountId) {
+        int slot = claim(accountId);
+        return ++values[slot];
+    }
+
+    /**
+     * Sets the count of an account, as when the counts of a saved run are restored.
+     *
+     * @param accountId the dense id of the account, not negative.
+     * @param count the count.
+     */
+    public void put(final int accountId, final int count) {
+        values[claim(accountId)] = count;
+    }
+
+    /**
+     * Retrieves the number of accounts that have a count.
+     *
+     * @return the number of accounts.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the ids of the accounts that have a count, in the same order as
+     * {@link #counts()}.
+     *
+     * @return a new array with the ids.
+     */
+    public int[] accountIds() {
+        int[] ids = new int[size];
+        int next = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                ids[next++] = key;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Retrieves the counts, in the same order as {@link #accountIds()}.
+     *
+     * @return a new array with the counts.
+     */
+    public int[] counts() {
+        int[] counts = new int[size];
+        int next = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                counts[next++] = values[slot];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Finds the slot of an account, inserting it with a count of 0 if it has none.
+     *
+     * @param accountId the dense id of the account.
+     * @return the slot.
+     */
+    private int claim(final int accountId) {
+        int slot = find(accountId);
+        if (keys[slot] != EMPTY) {
+            return slot;
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            slot = find(accountId);
+        }
+        keys[slot] = accountId;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Finds the slot holding an account, or the empty slot where it would go.
+     *
+     * @param accountId the dense id of the account.
+     * @return the slot.
+     */
+    private int find(final int accountId) {
+        int mask = keys.length - 1;
+        int slot = (accountId * GOLDEN_RATIO) >>> Integer.numberOfLeadingZeros(mask);
+        while (keys[slot] != EMPTY && keys[slot] != accountId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the table and places every count again.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int target = find(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+}
@@ -3,17 +3,59 @@ package org.poo.exchangeRates;
 import org.poo.fileio.ObjectInput;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * The exchange rates of a run, and the conversions derived from them. Lookups take no lock,
+ * so the commands of a run can convert amounts in parallel. The rates only change through
+ * {@link #setUp}, {@link #updateExchangeRate} and {@link #restore}, which the scheduler runs
+ * while no other command is in flight; the monitor only orders them with each other.
+ */
 public class Bnr {
+    /**
+     * The id returned for a currency that does not appear in any exchange rate.
+     */
+    public static final int UNKNOWN_CURRENCY = -1;
+    /**
+     * The number of conversion rows kept in the derived-rate cache by default.
+     */
+    public static final int DEFAULT_CACHED_ROWS = 256;
+    private static final double NO_RATE = -1;
+
     private ArrayList<ExchangeRate> exchangeRates;
+    private List<ExchangeRate> baseRates;
+    private List<ExchangeRate> updates;
+    private Map<String, Integer> currencyIds;
+    private VersionedRateStore store;
+    private int[][] outgoing;
+    private DerivedRateCache derivedRates;
+    private int topologyTimestamp;
 
     /**
      * Constructs a new {@code Bnr} instance and initializes the list of exchange rates.
      */
     public Bnr() {
+        this(DEFAULT_CACHED_ROWS);
+    }
+
+    /**
+     * Constructs a new {@code Bnr} instance whose derived-rate cache keeps the conversions
+     * of at most {@code cachedRows} source currencies.
+     *
+     * @param cachedRows the capacity of the derived-rate cache.
+     */
+    public Bnr(final int cachedRows) {
         exchangeRates = new ArrayList<>();
+        baseRates = new ArrayList<>();
+        updates = new ArrayList<>();
+        currencyIds = new HashMap<>();
+        store = new VersionedRateStore();
+        derivedRates = new DerivedRateCache(cachedRows);
+        buildGraph();
     }
 
     /**
@@ -22,7 +64,7 @@ public class Bnr {
      *
      * @param inputData the input data containing exchange rates to be set up.
      */
-    public void setUp(final ObjectInput inputData) {
+    public synchronized void setUp(final ObjectInput inputData) {
         int length;
 
         if (inputData.getExchangeRates() != null) {
@@ -35,6 +77,32 @@ public class Bnr {
         }
 
         coverAllExchangeRates();
+        buildGraph();
+        recordBase();
+    }
+
+    /**
+     * Remembers the base rates as they are now and forgets the updates made so far, so the
+     * rates can later be rebuilt by {@link #restore(List, List)}.
+     */
+    private void recordBase() {
+        baseRates = new ArrayList<>(exchangeRates.size());
+        for (ExchangeRate rate : exchangeRates) {
+            baseRates.add(copyOf(rate));
+        }
+        updates.clear();
+    }
+
+    /**
+     * Copies an exchange rate, since the base rates change as they are updated.
+     *
+     * @param rate the rate to copy.
+     * @return the copy.
+     */
+    private static ExchangeRate copyOf(final ExchangeRate rate) {
+        ExchangeRate copy = new ExchangeRate(rate.getFrom(), rate.getTo(), rate.getRate());
+        copy.setTimestamp(rate.getTimestamp());
+        return copy;
     }
 
     /**
@@ -46,8 +114,230 @@ public class Bnr {
         int size = exchangeRates.size();
         for (int i = 0; i < size; i++) {
             ExchangeRate excR = exchangeRates.get(i);
-            exchangeRates.add(new ExchangeRate(excR.getTo(), excR.getFrom(), 1 / excR.getRate()));
+            ExchangeRate reverse = new ExchangeRate(excR.getTo(), excR.getFrom(),
+                    1 / excR.getRate());
+            reverse.setTimestamp(excR.getTimestamp());
+            exchangeRates.add(reverse);
+        }
+    }
+
+    /**
+     * Rebuilds the rate store from the base rates, which all count as known from the start.
+     */
+    private void buildGraph() {
+        currencyIds.clear();
+        store.clear();
+        topologyTimestamp = Integer.MIN_VALUE;
+        for (ExchangeRate rate : exchangeRates) {
+            int edge = store.addEdge(intern(rate.getFrom()), intern(rate.getTo()),
+                    Integer.MIN_VALUE);
+            store.record(edge, rate.getTimestamp(), rate.getRate());
+        }
+        buildAdjacency();
+    }
+
+    /**
+     * Gives a currency the next free id, unless it already has one.
+     *
+     * @param currency the currency code.
+     * @return the id of the currency.
+     */
+    private int intern(final String currency) {
+        return currencyIds.computeIfAbsent(currency, k -> currencyIds.size());
+    }
+
+    /**
+     * Turns the edges of the store into adjacency lists that keep the order of the base rates.
+     * As many conversion rows as fit in the derived-rate cache are computed right away.
+     */
+    private void buildAdjacency() {
+        int count = currencyIds.size();
+
+        int[] degree = new int[count];
+        for (int edge = 0; edge < store.getSize(); edge++) {
+            degree[store.getFrom(edge)]++;
+        }
+        outgoing = new int[count][];
+        for (int i = 0; i < count; i++) {
+            outgoing[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+        for (int edge = 0; edge < store.getSize(); edge++) {
+            int from = store.getFrom(edge);
+            outgoing[from][degree[from]++] = edge;
+        }
+
+        derivedRates.reset(count);
+        for (int source = 0; source < Math.min(count, derivedRates.getCapacity()); source++) {
+            derivedRates.put(source, computeRow(source));
+        }
+    }
+
+    /**
+     * Fills a conversion row with a breadth-first search from the source currency, so a
+     * conversion always follows the path with the fewest exchanges, and among those the one
+     * whose rates come first in the list.
+     *
+     * @param source the id of the source currency.
+     * @return the filled row.
+     */
+    private ConversionRow computeRow(final int source) {
+        ConversionRow row = new ConversionRow(outgoing.length);
+        double[] rates = row.getRates();
+        int[] parents = row.getParentEdges();
+        int[] order = row.getOrder();
+        boolean[] visited = new boolean[outgoing.length];
+        Arrays.fill(rates, NO_RATE);
+        Arrays.fill(parents, VersionedRateStore.NO_EDGE);
+        rates[source] = 1.0;
+        visited[source] = true;
+        order[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int current = order[head++];
+            for (int edge : outgoing[current]) {
+                int next = store.getTo(edge);
+                if (!visited[next]) {
+                    visited[next] = true;
+                    rates[next] = rates[current] * store.getRate(edge);
+                    parents[next] = edge;
+                    order[tail++] = next;
+                }
+            }
+        }
+        row.setReached(tail);
+        return row;
+    }
+
+    /**
+     * Changes the rate between two currencies, starting with the given timestamp, and sets
+     * the reciprocal rate accordingly. Earlier rates stay available to
+     * {@link #getExchangeRate(String, String, int)}.
+     * If the pair already had a rate, only the cached conversions whose path goes through
+     * it are recomputed. A new pair changes the shape of the graph, so every row is dropped.
+     *
+     * @param from the currency code of the source currency.
+     * @param to the currency code of the target currency.
+     * @param rate the new exchange rate from the source currency to the target currency.
+     * @param timestamp the timestamp from which the new rate applies.
+     */
+    public synchronized void updateExchangeRate(final String from, final String to,
+                                                final double rate, final int timestamp) {
+        if (from.equals(to)) {
+            return;
+        }
+        ExchangeRate update = new ExchangeRate(from, to, rate);
+        update.setTimestamp(timestamp);
+        updates.add(update);
+
+        int source = getCurrencyId(from);
+        int target = getCurrencyId(to);
+        int forward = VersionedRateStore.NO_EDGE;
+        if (source != UNKNOWN_CURRENCY && target != UNKNOWN_CURRENCY) {
+            forward = store.findEdge(source, target);
+        }
+
+        if (forward == VersionedRateStore.NO_EDGE) {
+            ExchangeRate direct = new ExchangeRate(from, to, rate);
+            ExchangeRate reverse = new ExchangeRate(to, from, 1 / rate);
+            direct.setTimestamp(timestamp);
+            reverse.setTimestamp(timestamp);
+            exchangeRates.add(direct);
+            exchangeRates.add(reverse);
+            store.record(store.addEdge(intern(from), intern(to), timestamp), timestamp, rate);
+            store.record(store.addEdge(intern(to), intern(from), timestamp), timestamp, 1 / rate);
+            topologyTimestamp = Math.max(topologyTimestamp, timestamp);
+            buildAdjacency();
+            return;
+        }
+
+        int backward = store.findEdge(target, source);
+        store.record(forward, timestamp, rate);
+        store.record(backward, timestamp, 1 / rate);
+        exchangeRates.get(forward).setRate(store.getRate(forward));
+        exchangeRates.get(forward).setTimestamp(timestamp);
+        exchangeRates.get(backward).setRate(store.getRate(backward));
+        exchangeRates.get(backward).setTimestamp(timestamp);
+
+        for (int i = 0; i < outgoing.length; i++) {
+            ConversionRow row = derivedRates.peek(i);
+            if (row != null) {
+                refreshBelow(row, target, forward);
+                refreshBelow(row, source, backward);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the rates of a cached row that were derived through the given edge.
+     * The paths themselves do not change, only the rates multiplied along them.
+     *
+     * @param row the cached conversion row.
+     * @param head the currency the edge leads to.
+     * @param edge the edge whose rate changed.
+     */
+    private void refreshBelow(final ConversionRow row, final int head, final int edge) {
+        int[] parents = row.getParentEdges();
+        if (parents[head] != edge) {
+            return;
+        }
+        double[] rates = row.getRates();
+        int[] order = row.getOrder();
+        boolean[] visited = new boolean[outgoing.length];
+        visited[head] = true;
+        int start = 0;
+        while (order[start] != head) {
+            start++;
+        }
+        for (int i = start; i < row.getReached(); i++) {
+            int current = order[i];
+            int parent = parents[current];
+            if (current == head || visited[store.getFrom(parent)]) {
+                visited[current] = true;
+                rates[current] = rates[store.getFrom(parent)] * store.getRate(parent);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the id under which a currency is stored in the rate graph.
+     *
+     * @param currency the currency code.
+     * @return the id of the currency, or {@link #UNKNOWN_CURRENCY} if no rate mentions it.
+     */
+    public int getCurrencyId(final String currency) {
+        return currencyIds.getOrDefault(currency, UNKNOWN_CURRENCY);
+    }
+
+    /**
+     * Retrieves the exchange rate between two currencies given by their ids.
+     *
+     * @param from the id of the source currency.
+     * @param to the id of the target currency.
+     * @return the exchange rate between the two currencies, or -1 if no conversion is possible.
+     */
+    public double getExchangeRate(final int from, final int to) {
+        if (from == UNKNOWN_CURRENCY || to == UNKNOWN_CURRENCY) {
+            return NO_RATE;
         }
+
+        return currentRow(from).getRates()[to];
+    }
+
+    /**
+     * Retrieves the cached conversion row of a source currency, computing it on a miss.
+     *
+     * @param source the id of the source currency.
+     * @return the conversion row.
+     */
+    private ConversionRow currentRow(final int source) {
+        ConversionRow row = derivedRates.get(source);
+        if (row == null) {
+            row = computeRow(source);
+            derivedRates.put(source, row);
+        }
+        return row;
     }
 
     /**
@@ -59,48 +349,150 @@ public class Bnr {
      * @return the exchange rate between the two currencies, or -1 if no conversion is possible.
      */
     public double getExchangeRate(final String from, final String to) {
-        Queue<ExchangeRateNode> queue = new LinkedList<>();
-        ArrayList<String> visited = new ArrayList<>();
-
-        queue.add(new ExchangeRateNode(from, 1.0));
-        visited.add(from);
+        if (from.equals(to)) {
+            return 1.0;
+        }
+        return getExchangeRate(getCurrencyId(from), getCurrencyId(to));
+    }
 
-        while (!queue.isEmpty()) {
-            ExchangeRateNode currentNode = queue.poll();
-            String currentCurrency = currentNode.getCurrency();
-            double currentRate = currentNode.getRate();
+    /**
+     * Retrieves the exchange rate between two currencies as it was at the given timestamp,
+     * using for every pair the latest rate set no later than that moment.
+     * While the pairs known at that moment are the current ones, the conversion follows
+     * the cached path and each of its rates is found in O(log versions).
+     *
+     * @param from the currency code of the source currency.
+     * @param to the currency code of the target currency.
+     * @param atTimestamp the moment of the conversion.
+     * @return the exchange rate between the two currencies, or -1 if no conversion is possible.
+     */
+    public double getExchangeRate(final String from, final String to, final int atTimestamp) {
+        if (from.equals(to)) {
+            return 1.0;
+        }
+        int source = getCurrencyId(from);
+        int target = getCurrencyId(to);
+        if (source == UNKNOWN_CURRENCY || target == UNKNOWN_CURRENCY) {
+            return NO_RATE;
+        }
+        if (atTimestamp < topologyTimestamp) {
+            return historicRate(source, target, atTimestamp);
+        }
 
-            if (currentCurrency.equals(to)) {
-                return currentRate;
-            }
+        int[] parents = currentRow(source).getParentEdges();
+        if (parents[target] == VersionedRateStore.NO_EDGE) {
+            return NO_RATE;
+        }
+        int[] path = new int[outgoing.length];
+        int length = 0;
+        for (int current = target; current != source; current = store.getFrom(path[length++])) {
+            path[length] = parents[current];
+        }
+        double rate = 1.0;
+        for (int i = length - 1; i >= 0; i--) {
+            rate *= store.getRate(path[i], atTimestamp);
+        }
+        return rate;
+    }
 
-            for (ExchangeRate rate : exchangeRates) {
-                if (rate.getFrom().equals(currentCurrency) && !visited.contains(rate.getTo())) {
-                    visited.add(rate.getTo());
-                    queue.add(new ExchangeRateNode(rate.getTo(), currentRate * rate.getRate()));
+    /**
+     * Searches for a conversion using only the pairs that existed at the given timestamp.
+     *
+     * @param source the id of the source currency.
+     * @param target the id of the target currency.
+     * @param atTimestamp the moment of the conversion.
+     * @return the exchange rate, or -1 if no conversion was possible at that moment.
+     */
+    private double historicRate(final int source, final int target, final int atTimestamp) {
+        double[] rates = new double[outgoing.length];
+        boolean[] visited = new boolean[outgoing.length];
+        int[] queue = new int[outgoing.length];
+        rates[source] = 1.0;
+        visited[source] = true;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int edge : outgoing[current]) {
+                int next = store.getTo(edge);
+                if (!visited[next] && store.existsAt(edge, atTimestamp)) {
+                    visited[next] = true;
+                    rates[next] = rates[current] * store.getRate(edge, atTimestamp);
+                    queue[tail++] = next;
                 }
             }
         }
-
-        return -1;
+        return visited[target] ? rates[target] : NO_RATE;
     }
 
     /**
-     * Gets the list of all exchange rates currently stored in the {@code Bnr}.
+     * Gets the base exchange rates: the ones given as input, the ones added by updates,
+     * and their reciprocals, each with its most recent rate.
+     * Rates derived from them are never added to this list.
      *
-     * @return the list of exchange rates.
+     * @return a read-only view of the base exchange rates.
      */
-    public ArrayList<ExchangeRate> getExchangeRates() {
-        return exchangeRates;
+    public List<ExchangeRate> getExchangeRates() {
+        return Collections.unmodifiableList(exchangeRates);
     }
 
     /**
-     * Sets the list of exchange rates.
+     * Replaces the base exchange rates and drops every derived rate computed from the old ones.
      *
      * @param exchangeRates the new list of exchange rates to be set.
      */
     public void setExchangeRates(final ArrayList<ExchangeRate> exchangeRates) {
         this.exchangeRates = exchangeRates;
+        buildGraph();
+        recordBase();
+    }
+
+    /**
+     * Gets the base rates as they were set up, before any update.
+     *
+     * @return a read-only view of the rates, reciprocals included.
+     */
+    public List<ExchangeRate> getBaseRates() {
+        return Collections.unmodifiableList(baseRates);
     }
 
+    /**
+     * Gets every update made to the rates since they were set up, in the order it was made.
+     *
+     * @return a copy of the list of updates.
+     */
+    public List<ExchangeRate> getUpdates() {
+        return new ArrayList<>(updates);
+    }
+
+    /**
+     * Rebuilds the rates of another bank from its base rates and its updates. Every rate,
+     * every earlier version of a rate and every conversion comes out as it was in that bank.
+     *
+     * @param base the base rates of the other bank, reciprocals included.
+     * @param changes the updates made to them, in order.
+     */
+    public synchronized void restore(final List<ExchangeRate> base,
+                                     final List<ExchangeRate> changes) {
+        exchangeRates = new ArrayList<>(base.size());
+        for (ExchangeRate rate : base) {
+            exchangeRates.add(copyOf(rate));
+        }
+        buildGraph();
+        recordBase();
+        for (ExchangeRate change : changes) {
+            updateExchangeRate(change.getFrom(), change.getTo(), change.getRate(),
+                    change.getTimestamp());
+        }
+    }
+
+    /**
+     * Retrieves the cache of derived conversion rows, which also counts its hits and misses.
+     *
+     * @return the derived-rate cache.
+     */
+    public DerivedRateCache getDerivedRates() {
+        return derivedRates;
+    }
 }
@@ -0,0 +1,67 @@
+package org.poo.exchangeRates;
+
+public final class ConversionRow {
+    private final double[] rates;
+    private final int[] parentEdges;
+    private final int[] order;
+    private int reached;
+
+    /**
+     * Constructs an empty row for a graph with the given number of currencies.
+     *
+     * @param currencies the number of currencies in the rate graph.
+     */
+    public ConversionRow(final int currencies) {
+        rates = new double[currencies];
+        parentEdges = new int[currencies];
+        order = new int[currencies];
+    }
+
+    /**
+     * Retrieves the rates from the source currency to every currency.
+     *
+     * @return the rates, indexed by currency id; unreachable currencies hold -1.
+     */
+    public double[] getRates() {
+        return rates;
+    }
+
+    /**
+     * Retrieves, for every currency, the edge through which the search reached it.
+     * Together these edges form the tree of paths that the rates were computed on.
+     *
+     * @return the parent edges, indexed by currency id; the source and unreachable
+     * currencies hold {@link VersionedRateStore#NO_EDGE}.
+     */
+    public int[] getParentEdges() {
+        return parentEdges;
+    }
+
+    /**
+     * Retrieves the currencies in the order the search reached them. A currency always
+     * comes after the one it was reached from.
+     *
+     * @return the currency ids; only the first {@link #getReached()} entries are meaningful.
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Retrieves the number of currencies reachable from the source, the source included.
+     *
+     * @return the number of reached currencies.
+     */
+    public int getReached() {
+        return reached;
+    }
+
+    /**
+     * Sets the number of currencies reachable from the source.
+     *
+     * @param reached the number of reached currencies.
+     */
+    public void setReached(final int reached) {
+        this.reached = reached;
+    }
+}
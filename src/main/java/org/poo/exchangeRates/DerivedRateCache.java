@@ -0,0 +1,169 @@
+package org.poo.exchangeRates;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of conversion rows, one per source currency. Lookups take no lock: a row
+ * is published once, through a volatile write, and a hit only stamps the row with the value
+ * of a shared clock, so recency is approximate when several threads read at once. Storing a
+ * row after a miss locks the cache, and a full cache evicts the row with the oldest stamp.
+ * Rows may be changed in place only while no lookup runs, as when the rates are updated.
+ */
+public final class DerivedRateCache {
+    private final int capacity;
+    private final AtomicInteger clock;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private volatile AtomicReferenceArray<ConversionRow> rows;
+    private volatile int[] lastUsed;
+    private int size;
+
+    /**
+     * Constructs an empty cache that keeps the conversion rows of at most {@code capacity}
+     * source currencies. When it is full, the row that was used least recently is evicted.
+     *
+     * @param capacity the maximum number of rows kept at once; must be positive.
+     */
+    public DerivedRateCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must hold at least one row");
+        }
+        this.capacity = capacity;
+        clock = new AtomicInteger();
+        hits = new LongAdder();
+        misses = new LongAdder();
+        reset(0);
+    }
+
+    /**
+     * Drops every row and prepares the cache for a graph with the given number of currencies.
+     * The hit and miss counters are kept.
+     *
+     * @param currencies the number of currencies in the rate graph.
+     */
+    public synchronized void reset(final int currencies) {
+        lastUsed = new int[currencies];
+        rows = new AtomicReferenceArray<>(currencies);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the conversion row of a source currency and marks it as recently used.
+     *
+     * @param source the id of the source currency.
+     * @return the conversions from the source to every currency, or {@code null} if the row
+     * is not cached.
+     */
+    public ConversionRow get(final int source) {
+        ConversionRow row = rows.get(source);
+        if (row == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        lastUsed[source] = clock.incrementAndGet();
+        return row;
+    }
+
+    /**
+     * Stores the conversion row of a source currency, evicting the least recently used
+     * row if the cache is full.
+     *
+     * @param source the id of the source currency.
+     * @param row the conversions from the source to every currency.
+     */
+    public synchronized void put(final int source, final ConversionRow row) {
+        if (rows.get(source) == null) {
+            if (size == capacity) {
+                invalidate(oldest());
+            }
+            size++;
+        }
+        lastUsed[source] = clock.incrementAndGet();
+        rows.set(source, row);
+    }
+
+    /**
+     * Retrieves the conversion row of a source currency without counting a lookup
+     * or changing its recency.
+     *
+     * @param source the id of the source currency.
+     * @return the cached row, or {@code null} if the row is not cached.
+     */
+    public ConversionRow peek(final int source) {
+        return rows.get(source);
+    }
+
+    /**
+     * Removes the row of a single source currency, if it is cached.
+     *
+     * @param source the id of the source currency.
+     */
+    public synchronized void invalidate(final int source) {
+        if (rows.getAndSet(source, null) != null) {
+            size--;
+        }
+    }
+
+    /**
+     * Removes every cached row without changing the number of currencies.
+     */
+    public synchronized void clear() {
+        rows = new AtomicReferenceArray<>(rows.length());
+        size = 0;
+    }
+
+    /**
+     * Finds the cached row with the oldest stamp.
+     *
+     * @return the id of its source currency.
+     */
+    private int oldest() {
+        int oldest = -1;
+        for (int source = 0; source < rows.length(); source++) {
+            if (rows.get(source) != null
+                    && (oldest == -1 || lastUsed[source] - lastUsed[oldest] < 0)) {
+                oldest = source;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Retrieves the maximum number of rows the cache keeps.
+     *
+     * @return the capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the number of rows currently cached.
+     *
+     * @return the number of cached rows.
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of lookups that found their row in the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups that had to compute their row.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
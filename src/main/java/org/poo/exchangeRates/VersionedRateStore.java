@@ -0,0 +1,172 @@
+package org.poo.exchangeRates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public final class VersionedRateStore {
+    /**
+     * The id returned when no edge connects two currencies.
+     */
+    public static final int NO_EDGE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ID_BITS = 32;
+    private static final long ID_MASK = 0xFFFFFFFFL;
+
+    private int[] from;
+    private int[] to;
+    private int[] since;
+    private double[] latest;
+    private ArrayList<NavigableMap<Integer, Double>> histories;
+    private Map<Long, Integer> edgesByPair;
+    private int size;
+
+    /**
+     * Constructs an empty store.
+     */
+    public VersionedRateStore() {
+        clear();
+    }
+
+    /**
+     * Removes every edge and its history.
+     */
+    public void clear() {
+        from = new int[INITIAL_CAPACITY];
+        to = new int[INITIAL_CAPACITY];
+        since = new int[INITIAL_CAPACITY];
+        latest = new double[INITIAL_CAPACITY];
+        histories = new ArrayList<>();
+        edgesByPair = new HashMap<>();
+        size = 0;
+    }
+
+    /**
+     * Adds an edge between two currencies, without any rate yet. If the pair is already
+     * connected, the new edge is stored but lookups by pair keep returning the first one.
+     *
+     * @param source the id of the source currency.
+     * @param target the id of the target currency.
+     * @param existsSince the first timestamp at which the edge can be used in a conversion.
+     * @return the id of the new edge.
+     */
+    public int addEdge(final int source, final int target, final int existsSince) {
+        if (size == from.length) {
+            from = Arrays.copyOf(from, size * 2);
+            to = Arrays.copyOf(to, size * 2);
+            since = Arrays.copyOf(since, size * 2);
+            latest = Arrays.copyOf(latest, size * 2);
+        }
+        from[size] = source;
+        to[size] = target;
+        since[size] = existsSince;
+        histories.add(new TreeMap<>());
+        edgesByPair.putIfAbsent(pairKey(source, target), size);
+        return size++;
+    }
+
+    /**
+     * Records the rate an edge has starting with the given timestamp.
+     *
+     * @param edge the id of the edge.
+     * @param timestamp the timestamp from which the rate applies.
+     * @param rate the exchange rate.
+     */
+    public void record(final int edge, final int timestamp, final double rate) {
+        NavigableMap<Integer, Double> history = histories.get(edge);
+        history.put(timestamp, rate);
+        latest[edge] = history.lastEntry().getValue();
+    }
+
+    /**
+     * Finds the edge that connects two currencies.
+     *
+     * @param source the id of the source currency.
+     * @param target the id of the target currency.
+     * @return the id of the edge, or {@link #NO_EDGE} if the currencies are not connected.
+     */
+    public int findEdge(final int source, final int target) {
+        return edgesByPair.getOrDefault(pairKey(source, target), NO_EDGE);
+    }
+
+    /**
+     * Retrieves the most recent rate of an edge.
+     *
+     * @param edge the id of the edge.
+     * @return the rate with the highest timestamp.
+     */
+    public double getRate(final int edge) {
+        return latest[edge];
+    }
+
+    /**
+     * Retrieves the rate an edge had at a given timestamp. A timestamp before the first
+     * recorded version gets that first version.
+     *
+     * @param edge the id of the edge.
+     * @param timestamp the moment of the conversion.
+     * @return the rate in effect at that timestamp.
+     */
+    public double getRate(final int edge, final int timestamp) {
+        NavigableMap<Integer, Double> history = histories.get(edge);
+        Map.Entry<Integer, Double> version = history.floorEntry(timestamp);
+        if (version == null) {
+            version = history.firstEntry();
+        }
+        return version.getValue();
+    }
+
+    /**
+     * Checks whether an edge could be used in a conversion at the given timestamp.
+     *
+     * @param edge the id of the edge.
+     * @param timestamp the moment of the conversion.
+     * @return {@code true} if the edge already existed at that timestamp.
+     */
+    public boolean existsAt(final int edge, final int timestamp) {
+        return since[edge] <= timestamp;
+    }
+
+    /**
+     * Retrieves the source currency of an edge.
+     *
+     * @param edge the id of the edge.
+     * @return the id of the source currency.
+     */
+    public int getFrom(final int edge) {
+        return from[edge];
+    }
+
+    /**
+     * Retrieves the target currency of an edge.
+     *
+     * @param edge the id of the edge.
+     * @return the id of the target currency.
+     */
+    public int getTo(final int edge) {
+        return to[edge];
+    }
+
+    /**
+     * Retrieves the number of edges in the store.
+     *
+     * @return the number of edges.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Packs a pair of currency ids into a single key.
+     *
+     * @param source the id of the source currency.
+     * @param target the id of the target currency.
+     * @return the key of the pair.
+     */
+    private static long pairKey(final int source, final int target) {
+        return ((long) source << ID_BITS) | (target & ID_MASK);
+    }
+}
@@ -1,7 +1,10 @@
 package org.poo.fileio;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -24,6 +27,8 @@ public final class CommandInput {
     private String splitPaymentType;
     private String type;
     private String location;
+    private String from;
+    private String to;
     private int timestamp;
     private int startTimestamp;
     private int endTimestamp;
@@ -32,6 +37,20 @@ public final class CommandInput {
     private double depositLimit;
     private double amount;
     private double minBalance;
+    private double rate;
     private List<String> accounts;
-    private List<Double> amountForUsers;
+    private double[] amountForUsers;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private CommandType commandType;
+
+    /**
+     * Sets the name of the command and decodes its type.
+     *
+     * @param command the name of the command.
+     */
+    public void setCommand(final String command) {
+        this.command = command;
+        this.commandType = CommandType.fromName(command);
+    }
 }
@@ -0,0 +1,77 @@
+package org.poo.fileio;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The commands an input file can give. A command name is decoded into its type once, when
+ * the command is read, so the rest of the run compares types instead of strings.
+ */
+public enum CommandType {
+    PRINT_USERS("printUsers"),
+    ADD_ACCOUNT("addAccount"),
+    CREATE_CARD("createCard"),
+    CREATE_ONE_TIME_CARD("createOneTimeCard"),
+    ADD_FUNDS("addFunds"),
+    DELETE_ACCOUNT("deleteAccount"),
+    DELETE_CARD("deleteCard"),
+    SET_MINIMUM_BALANCE("setMinimumBalance"),
+    WITHDRAW_SAVINGS("withdrawSavings"),
+    PAY_ONLINE("payOnline"),
+    SEND_MONEY("sendMoney"),
+    SET_ALIAS("setAlias"),
+    PRINT_TRANSACTIONS("printTransactions"),
+    CHECK_CARD_STATUS("checkCardStatus"),
+    CHANGE_INTEREST_RATE("changeInterestRate"),
+    ADD_INTEREST("addInterest"),
+    SPLIT_PAYMENT("splitPayment"),
+    ACCEPT_SPLIT_PAYMENT("acceptSplitPayment"),
+    REJECT_SPLIT_PAYMENT("rejectSplitPayment"),
+    REPORT("report"),
+    SPENDINGS_REPORT("spendingsReport"),
+    BUSINESS_REPORT("businessReport"),
+    UPGRADE_PLAN("upgradePlan"),
+    CASH_WITHDRAWAL("cashWithdrawal"),
+    ADD_NEW_BUSINESS_ASSOCIATE("addNewBusinessAssociate"),
+    CHANGE_SPENDING_LIMIT("changeSpendingLimit"),
+    CHANGE_DEPOSIT_LIMIT("changeDepositLimit"),
+    UPDATE_EXCHANGE_RATE("updateExchangeRate");
+
+    private static final Map<String, CommandType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CommandType type : values()) {
+            BY_NAME.put(type.name, type);
+        }
+    }
+
+    private final String name;
+
+    /**
+     * Constructs a command type.
+     *
+     * @param name the name of the command, as it appears in the input.
+     */
+    CommandType(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Finds the type of a command name.
+     *
+     * @param name the name, as it appears in the input.
+     * @return the type, or {@code null} if no command has that name.
+     */
+    public static CommandType fromName(final String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+    /**
+     * Retrieves the name of the command, as it appears in the input.
+     *
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+}
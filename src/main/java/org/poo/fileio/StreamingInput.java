@@ -0,0 +1,136 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+public final class StreamingInput implements Closeable {
+    private final JsonParser parser;
+    private final ObjectReader commandReader;
+    private final ObjectInput setUp;
+    private boolean streaming;
+    private CommandInput[] bufferedCommands;
+    private int nextBuffered;
+
+    /**
+     * Opens an input file and reads every section that comes before the commands.
+     * If the users, the commerciants and the exchange rates are all known by the time
+     * the commands start, the commands are left in the file and decoded one at a time.
+     * Otherwise, the commands are buffered and the rest of the file is read first.
+     *
+     * @param mapper the mapper used to decode the sections of the input.
+     * @param file the input file.
+     * @throws IOException if the file cannot be read or is not a JSON object.
+     */
+    public StreamingInput(final ObjectMapper mapper, final File file) throws IOException {
+        parser = mapper.getFactory().createParser(file);
+        commandReader = mapper.readerFor(CommandInput.class);
+        setUp = new ObjectInput();
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new IOException("The input must be a JSON object");
+        }
+        readSections(mapper);
+    }
+
+    /**
+     * Reads the top-level fields of the input until the commands can be streamed
+     * or the end of the input is reached.
+     *
+     * @param mapper the mapper used to decode the sections of the input.
+     * @throws IOException if the input cannot be decoded.
+     */
+    private void readSections(final ObjectMapper mapper) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "users" -> setUp.setUsers(mapper.readValue(parser, UserInput[].class));
+                case "commerciants" -> setUp.setCommerciants(
+                        mapper.readValue(parser, CommerciantInput[].class));
+                case "exchangeRates" -> setUp.setExchangeRates(
+                        mapper.readValue(parser, ExchangeInput[].class));
+                case "commands" -> {
+                    if (parser.currentToken() != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    } else if (isSetUpComplete()) {
+                        streaming = true;
+                        return;
+                    } else {
+                        bufferedCommands = mapper.readValue(parser, CommandInput[].class);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Checks whether every section needed before the first command has been read.
+     *
+     * @return {@code true} if the users, commerciants and exchange rates are known.
+     */
+    private boolean isSetUpComplete() {
+        return setUp.getUsers() != null && setUp.getCommerciants() != null
+                && setUp.getExchangeRates() != null;
+    }
+
+    /**
+     * Retrieves the sections of the input that describe the initial state of the bank.
+     *
+     * @return an {@code ObjectInput} with the users, commerciants and exchange rates,
+     * but without commands.
+     */
+    public ObjectInput getSetUp() {
+        return setUp;
+    }
+
+    /**
+     * Checks whether the commands are decoded straight from the file, as opposed to
+     * having been buffered because a set-up section came after them.
+     *
+     * @return {@code true} if the commands are streamed.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Decodes the next command of the input.
+     *
+     * @return the next command, or {@code null} once every command was read.
+     * @throws IOException if the command cannot be decoded.
+     */
+    public CommandInput nextCommand() throws IOException {
+        if (bufferedCommands != null) {
+            if (nextBuffered < bufferedCommands.length) {
+                return bufferedCommands[nextBuffered++];
+            }
+            return null;
+        }
+        if (!streaming) {
+            return null;
+        }
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            return commandReader.readValue(parser);
+        }
+        streaming = false;
+        return null;
+    }
+
+    /**
+     * Closes the underlying input file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -1,27 +1,57 @@
 package org.poo.main;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.app.AppManager;
+import org.poo.app.CommandMetrics;
+import org.poo.app.ExecutionContext;
+import org.poo.app.FileOutputSink;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
-import org.poo.fileio.ObjectInput;
-import org.poo.utils.Utils;
+import org.poo.fileio.StreamingInput;
+import org.poo.servicePlan.PricingRules;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
 public final class Main {
+    /**
+     * The system property with the number of input files that are run at the same time.
+     * When it is missing or below 2, the files are run one after the other.
+     */
+    public static final String THREADS_PROPERTY = "poo.threads";
+    /**
+     * The system property with the number of threads the commands of a single input file
+     * are executed on. When it is missing or below 2, they are executed one after the other.
+     */
+    public static final String WORKERS_PROPERTY = "poo.workers";
+    /**
+     * The system property that, when {@code true}, measures every command of a run and prints
+     * a summary of their latencies per command name once the run ends.
+     */
+    public static final String METRICS_PROPERTY = "poo.metrics";
+    /**
+     * The system property with the path of a JSON file that changes the default commissions,
+     * cashback rates, upgrade fees and coupons. Every run loads the file for itself.
+     */
+    public static final String PRICING_PROPERTY = "poo.pricing";
+
     /**
      * for coding style
      */
@@ -51,16 +81,61 @@ public final class Main {
                 sorted(Comparator.comparingInt(Main::fileConsumer))
                 .toList();
 
-        for (File file : sortedFiles) {
-            String filepath = CheckerConstants.OUT_PATH + file.getName();
-            File out = new File(filepath);
-            boolean isCreated = out.createNewFile();
-            if (isCreated) {
-                action(file.getName(), filepath);
+        runAll(sortedFiles, Integer.getInteger(THREADS_PROPERTY, 1));
+
+        Checker.calculateScore();
+    }
+
+    /**
+     * Runs every input file and writes its output. Each run owns its own execution context,
+     * so with more than one thread the files are run on a pool and their outputs are the same
+     * as when they are run one after the other.
+     *
+     * @param files   the input files, in the order they are started.
+     * @param threads the number of files that are run at the same time.
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void runAll(final List<File> files, final int threads) throws IOException {
+        if (threads < 2) {
+            for (File file : files) {
+                String filepath = CheckerConstants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                if (isCreated) {
+                    action(file.getName(), filepath);
+                }
             }
+            return;
         }
 
-        Checker.calculateScore();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> runs = new ArrayList<>();
+            for (File file : files) {
+                String filepath = CheckerConstants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                if (isCreated) {
+                    runs.add(pool.submit(() -> {
+                        action(file.getName(), filepath);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<Void> run : runs) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running the input files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
     /**
@@ -70,11 +145,8 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = JsonService.mapper();
         File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
-
-        ArrayNode output = objectMapper.createArrayNode();
 
         /*
          * TODO Implement your function here
@@ -95,12 +167,21 @@ public final class Main {
          *
          */
 
-        AppManager appManager = new AppManager();
-        appManager.start(output, inputData);
-
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        Utils.resetRandom();
-        objectWriter.writeValue(new File(filePath2), output);
+        CommandMetrics metrics = Boolean.getBoolean(METRICS_PROPERTY)
+                ? new CommandMetrics() : null;
+        String pricingPath = System.getProperty(PRICING_PROPERTY);
+        PricingRules pricing = pricingPath == null
+                ? PricingRules.defaults() : PricingRules.load(new File(pricingPath));
+        try (StreamingInput input = new StreamingInput(objectMapper, file);
+             OutputSink output = new FileOutputSink(objectMapper, Paths.get(filePath2))) {
+            AppManager appManager = new AppManager(new ExecutionContext(output, metrics,
+                    pricing));
+            appManager.setWorkers(Integer.getInteger(WORKERS_PROPERTY, 1));
+            appManager.start(input);
+        }
+        if (metrics != null) {
+            System.out.print(metrics.summary(filePath1));
+        }
     }
 
     /**
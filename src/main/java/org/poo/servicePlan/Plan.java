@@ -2,13 +2,15 @@ package org.poo.servicePlan;
 
 public interface Plan {
     /**
-     * Calculates the commission rate for a given transaction amount.
+     * Calculates the commission rate for a given transaction amount, as set by the pricing
+     * rules for this plan.
      *
      * @param amount the transaction amount for which the commission rate is to be determined
+     * @param rules the pricing rules of the run
      * @return the commission rate as a percentage (e.g., 0.05 for 5%)
      */
-    default double getComissionRate(double amount) {
-        return 0;
+    default double getComissionRate(double amount, PricingRules rules) {
+        return rules.commissionRate(getId(), amount);
     }
 
     /**
@@ -0,0 +1,299 @@
+package org.poo.servicePlan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.poo.app.JsonService;
+import org.poo.commerciants.CommerciantCategory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The commissions, cashback rates, upgrade fees and coupons of every service plan, kept in
+ * tables indexed by the id of the plan, the spending tier and the commerciant category, so
+ * no rate is looked up by name while payments are made. Every run owns its own rules, which
+ * start from the rates below; a JSON file can change any of them, and the entries it leaves
+ * out keep their default.
+ */
+public final class PricingRules {
+    private static final String[] PLANS = {"standard", "student", "silver", "gold"};
+    private static final CommerciantCategory[] CATEGORIES = CommerciantCategory.values();
+    private static final double[] COMMISSION_RATES = {0.002, 0, 0.001, 0};
+    private static final double[] COMMISSION_FROM = {
+        Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 500.0, Double.NEGATIVE_INFINITY
+    };
+    private static final double[] SPENDING_TIERS = {100, 300, 500};
+    private static final double[][] CASHBACK_RATES = {
+        {0.001, 0.002, 0.0025},
+        {0.001, 0.002, 0.0025},
+        {0.003, 0.004, 0.005},
+        {0.005, 0.0055, 0.007}
+    };
+    private static final int[][] UPGRADE_FEES = {
+        {0, 0, 100, 350},
+        {0, 0, 100, 350},
+        {0, 0, 0, 250},
+        {0, 0, 0, 0}
+    };
+    private static final int[] COUPON_UNLOCKS = {2, 5, 10};
+    private static final double[] COUPON_RATES = {0.02, 0.05, 0.1};
+
+    private final double[] commissionRates;
+    private final double[] commissionFrom;
+    private final double[] spendingTiers;
+    private final double[][] cashbackRates;
+    private final int[][] upgradeFees;
+    private final int[] couponUnlocks;
+    private final double[] couponRates;
+
+    /**
+     * Constructs the tables with the default rates and the given spending tiers.
+     *
+     * @param spendingTiers the totals where each cashback tier starts.
+     */
+    private PricingRules(final double[] spendingTiers) {
+        commissionRates = COMMISSION_RATES.clone();
+        commissionFrom = COMMISSION_FROM.clone();
+        this.spendingTiers = spendingTiers;
+        cashbackRates = new double[PLANS.length][];
+        upgradeFees = new int[PLANS.length][];
+        for (int i = 0; i < PLANS.length; i++) {
+            cashbackRates[i] = CASHBACK_RATES[i].clone();
+            upgradeFees[i] = UPGRADE_FEES[i].clone();
+        }
+        couponUnlocks = COUPON_UNLOCKS.clone();
+        couponRates = COUPON_RATES.clone();
+    }
+
+    /**
+     * Builds the rules with the default rates.
+     *
+     * @return the default rules.
+     */
+    public static PricingRules defaults() {
+        return new PricingRules(SPENDING_TIERS.clone());
+    }
+
+    /**
+     * Builds the rules from a JSON file. The file may hold the objects {@code commissions}
+     * (plan to {@code rate} and, optionally, the {@code from} amount where it starts),
+     * {@code cashback} (plan to one rate per spending tier), {@code upgradeFees} (current
+     * plan to new plan to fee) and {@code coupons} (category to the {@code transactions}
+     * that unlock it and its {@code rate}), and the array {@code spendingTiers}. The tiers must
+     * be strictly ascending, every rate and fee must not be negative and every coupon must be
+     * unlocked by a different, positive number of transactions.
+     *
+     * @param file the file to read.
+     * @return the rules, with the defaults for everything the file leaves out.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the rules in the file break any of the above.
+     */
+    public static PricingRules load(final File file) throws IOException {
+        JsonNode config = JsonService.mapper().readTree(file);
+        PricingRules rules = new PricingRules(config.has("spendingTiers")
+                ? readRates(config.get("spendingTiers"), -1) : SPENDING_TIERS.clone());
+
+        for (Map.Entry<String, JsonNode> entry : fields(config.path("commissions"))) {
+            int plan = planIndex(entry.getKey());
+            rules.commissionRates[plan] = entry.getValue().path("rate").asDouble();
+            if (entry.getValue().has("from")) {
+                rules.commissionFrom[plan] = entry.getValue().get("from").asDouble();
+            }
+        }
+        for (Map.Entry<String, JsonNode> entry : fields(config.path("cashback"))) {
+            rules.cashbackRates[planIndex(entry.getKey())] =
+                    readRates(entry.getValue(), rules.spendingTiers.length);
+        }
+        for (Map.Entry<String, JsonNode> entry : fields(config.path("upgradeFees"))) {
+            int from = planIndex(entry.getKey());
+            for (Map.Entry<String, JsonNode> fee : fields(entry.getValue())) {
+                rules.upgradeFees[from][planIndex(fee.getKey())] = fee.getValue().asInt();
+            }
+        }
+        for (Map.Entry<String, JsonNode> entry : fields(config.path("coupons"))) {
+            CommerciantCategory category = CommerciantCategory.fromName(entry.getKey());
+            if (category == null) {
+                throw new IllegalArgumentException("Unknown category " + entry.getKey());
+            }
+            rules.couponUnlocks[category.ordinal()] =
+                    entry.getValue().path("transactions").asInt();
+            rules.couponRates[category.ordinal()] = entry.getValue().path("rate").asDouble();
+        }
+        rules.validate();
+        return rules;
+    }
+
+    /**
+     * Computes the commission a plan takes from a transaction.
+     *
+     * @param planId the id of the plan.
+     * @param amount the amount of the transaction.
+     * @return the commission rate, or 0 if the amount is below the one where it starts.
+     */
+    public double commissionRate(final int planId, final double amount) {
+        int plan = planId - 1;
+        if (Double.compare(amount, commissionFrom[plan]) >= 0) {
+            return commissionRates[plan];
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the highest spending tier reached by a total.
+     *
+     * @param totalSpent the total spent at the commerciant.
+     * @return the index of the tier, or -1 if the total is below every tier.
+     */
+    public int spendingTier(final double totalSpent) {
+        for (int tier = spendingTiers.length - 1; tier >= 0; tier--) {
+            if (totalSpent >= spendingTiers[tier]) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the cashback rate of a plan in a spending tier.
+     *
+     * @param planId the id of the plan.
+     * @param tier the index of the tier, as found by {@link #spendingTier(double)}.
+     * @return the share of the transaction given back.
+     */
+    public double cashbackRate(final int planId, final int tier) {
+        return cashbackRates[planId - 1][tier];
+    }
+
+    /**
+     * Retrieves the fee of moving from one plan to another.
+     *
+     * @param fromPlanId the id of the current plan.
+     * @param toPlanId the id of the new plan.
+     * @return the fee, in RON.
+     */
+    public int upgradeFee(final int fromPlanId, final int toPlanId) {
+        return upgradeFees[fromPlanId - 1][toPlanId - 1];
+    }
+
+    /**
+     * Finds the category whose coupon is unlocked by a given number of payments.
+     *
+     * @param transactions the number of payments made so far.
+     * @return the category, or {@code null} if no coupon is unlocked.
+     */
+    public CommerciantCategory couponUnlockedAt(final int transactions) {
+        for (CommerciantCategory category : CATEGORIES) {
+            if (couponUnlocks[category.ordinal()] == transactions) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the share of a payment the coupon of a category gives back.
+     *
+     * @param category the category.
+     * @return the rate of the coupon.
+     */
+    public double couponRate(final CommerciantCategory category) {
+        return couponRates[category.ordinal()];
+    }
+
+    /**
+     * Checks that the tables make sense together, as {@link #load(File)} requires.
+     */
+    private void validate() {
+        for (int tier = 1; tier < spendingTiers.length; tier++) {
+            if (spendingTiers[tier] <= spendingTiers[tier - 1]) {
+                throw new IllegalArgumentException("The spending tiers must be strictly "
+                        + "ascending: " + Arrays.toString(spendingTiers));
+            }
+        }
+        for (int plan = 0; plan < PLANS.length; plan++) {
+            requireNonNegative(PLANS[plan] + " commission", commissionRates[plan]);
+            if (cashbackRates[plan].length != spendingTiers.length) {
+                throw new IllegalArgumentException("Every plan needs a cashback rate per tier");
+            }
+            for (double rate : cashbackRates[plan]) {
+                requireNonNegative(PLANS[plan] + " cashback", rate);
+            }
+            for (int to = 0; to < PLANS.length; to++) {
+                requireNonNegative(PLANS[plan] + " to " + PLANS[to] + " fee",
+                        upgradeFees[plan][to]);
+            }
+        }
+        for (CommerciantCategory category : CATEGORIES) {
+            int unlock = couponUnlocks[category.ordinal()];
+            requireNonNegative(category + " coupon", couponRates[category.ordinal()]);
+            if (unlock <= 0) {
+                throw new IllegalArgumentException("The " + category + " coupon must be "
+                        + "unlocked by a positive number of transactions, not " + unlock);
+            }
+            for (int other = 0; other < category.ordinal(); other++) {
+                if (couponUnlocks[other] == unlock) {
+                    throw new IllegalArgumentException("The " + CATEGORIES[other] + " and "
+                            + category + " coupons are both unlocked at " + unlock);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejects a negative rate or fee.
+     *
+     * @param name what the value is, for the message.
+     * @param value the value.
+     */
+    private static void requireNonNegative(final String name, final double value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The " + name + " is negative: " + value);
+        }
+    }
+
+    /**
+     * Finds the row of a plan in the tables.
+     *
+     * @param name the name of the plan.
+     * @return the index of the plan.
+     */
+    private static int planIndex(final String name) {
+        for (int i = 0; i < PLANS.length; i++) {
+            if (PLANS[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown plan " + name);
+    }
+
+    /**
+     * Reads an array of rates.
+     *
+     * @param node the array.
+     * @param expected the number of rates it must hold, or -1 for any number.
+     * @return the rates.
+     */
+    private static double[] readRates(final JsonNode node, final int expected) {
+        if (!node.isArray() || (expected >= 0 && node.size() != expected)) {
+            throw new IllegalArgumentException("Expected " + expected + " rates, got " + node);
+        }
+        double[] rates = new double[node.size()];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = node.get(i).asDouble();
+        }
+        return rates;
+    }
+
+    /**
+     * Lists the fields of an object, or nothing if the node is missing.
+     *
+     * @param node the object.
+     * @return the fields, in the order of the file.
+     */
+    private static Iterable<Map.Entry<String, JsonNode>> fields(final JsonNode node) {
+        Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+        return () -> iterator;
+    }
+}
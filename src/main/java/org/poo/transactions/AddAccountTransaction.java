@@ -1,14 +1,20 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
 import org.poo.accounts.SavingsAccount;
+import org.poo.app.EntityDirectory;
+import org.poo.app.ExecutionContext;
 import org.poo.app.IBANRegistry;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
-import org.poo.utils.Utils;
+import org.poo.utils.IdGenerator;
+
+import java.io.IOException;
 
 public class AddAccountTransaction implements TransactionStrategy {
     private int timestamp;
@@ -21,27 +27,35 @@ public class AddAccountTransaction implements TransactionStrategy {
     @JsonIgnore
     private IBANRegistry registry;
     @JsonIgnore
+    private EntityDirectory directory;
+    @JsonIgnore
     private Bnr bank;
+    @JsonIgnore
+    private IdGenerator ids;
+    @JsonIgnore
+    private AccountLocks locks;
 
     /**
      * Constructs a new {@code AddAccountTransaction} based on the given command input,
-     * IBAN registry, and user.
+     * execution context, and user.
      *
      * @param command the command input containing details about the account type and currency.
-     * @param registry the IBAN registry used to register the new account's IBAN.
+     * @param context the run whose IBAN generator, registries, bank and locks are used.
      * @param currentUser the user who will receive the new account.
      */
     public AddAccountTransaction(
             final CommandInput command,
-            final IBANRegistry registry,
-            final User currentUser,
-            final Bnr bank
+            final ExecutionContext context,
+            final User currentUser
     ) {
         this.timestamp = command.getTimestamp();
         this.command = command;
-        this.registry = registry;
+        this.registry = context.getRegistry();
+        this.directory = context.getDirectory();
         this.currentUser = currentUser;
-        this.bank = bank;
+        this.bank = context.getBank();
+        this.ids = context.getIds();
+        this.locks = context.getLocks();
     }
 
     /**
@@ -53,28 +67,46 @@ public class AddAccountTransaction implements TransactionStrategy {
     public void makeTransaction() {
         String iban = "";
         if (command.getAccountType().equals("classic")) {
-            iban = Utils.generateIBAN();
+            iban = ids.generateIBAN();
             String currency = command.getCurrency();
-            currentUser.getAccounts().add(new ClassicAccount(iban, currency, "classic"));
+            currentUser.getAccounts().add(new ClassicAccount(iban, currency, "classic", locks));
             currentUser.getAccounts().getLast().getTransactions().add(this);
         } else if (command.getAccountType().equals("savings")) {
-            iban = Utils.generateIBAN();
+            iban = ids.generateIBAN();
             String currency = command.getCurrency();
             double interest = command.getInterestRate();
-            currentUser.getAccounts().add(new SavingsAccount(iban, currency, "savings", interest));
+            currentUser.getAccounts().add(
+                    new SavingsAccount(iban, currency, "savings", interest, locks));
             currentUser.setNumberOfSavingsAccounts(currentUser.getNumberOfSavingsAccounts() + 1);
         } else if (command.getAccountType().equals("business")) {
-            iban = Utils.generateIBAN();
+            iban = ids.generateIBAN();
             String currency = command.getCurrency();
             currentUser.getAccounts().add(
-                    new BusinessAccount(iban, currency, "business", currentUser, bank));
+                    new BusinessAccount(iban, currency, "business", currentUser, bank, locks));
         }
         description = "New account created";
         registry.registerIBAN(iban, iban);
+        if (!iban.isEmpty()) {
+            directory.addAccount(currentUser, currentUser.getAccounts().getLast());
+        }
         currentUser.getTransactions().add(this);
         currentUser.getAccounts().getLast().getTransactions().add(this);
     }
 
+    /**
+     * Writes the account creation as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeStringField("description", description);
+        generator.writeEndObject();
+    }
+
     /**
      * Gets the timestamp of the transaction.
      *
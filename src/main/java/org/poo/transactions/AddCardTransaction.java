@@ -1,12 +1,18 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.EntityDirectory;
+import org.poo.app.ExecutionContext;
 import org.poo.cards.Card;
 import org.poo.cards.OneTimeCard;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
 import org.poo.users.User;
-import org.poo.utils.Utils;
+import org.poo.utils.IdGenerator;
+
+import java.io.IOException;
 
 public class AddCardTransaction implements TransactionStrategy {
     private int timestamp;
@@ -20,17 +26,28 @@ public class AddCardTransaction implements TransactionStrategy {
     @JsonIgnore
     private String email;
     @JsonIgnore
+    private EntityDirectory directory;
+    @JsonIgnore
     private User currentUser;
+    @JsonIgnore
+    private IdGenerator ids;
 
     /**
      * Constructs a new {@code AddCardTransaction} based on the given command input and user.
      * This constructor is used when adding a card based on a command.
      *
      * @param command the command input containing details about the card and the account.
+     * @param context the run whose directory and card number generator are used.
      * @param currentUser the user to whom the card will be added.
      */
-    public AddCardTransaction(final CommandInput command, final User currentUser) {
+    public AddCardTransaction(
+            final CommandInput command,
+            final ExecutionContext context,
+            final User currentUser
+    ) {
         this.command = command;
+        this.directory = context.getDirectory();
+        this.ids = context.getIds();
         this.currentUser = currentUser;
         timestamp = command.getTimestamp();
         email = command.getEmail();
@@ -80,7 +97,24 @@ public class AddCardTransaction implements TransactionStrategy {
     }
 
     /**
-     * Searches for the given IBAN in the user's accounts.
+     * Writes the card creation as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeStringField("description", description);
+        generator.writeStringField("cardHolder", cardHolder);
+        generator.writeStringField("card", card);
+        generator.writeStringField("account", account);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Looks up the given IBAN among the user's accounts.
      * If found, a new card is generated and added to the account.
      *
      * @param user the user whose accounts are being searched.
@@ -92,24 +126,26 @@ public class AddCardTransaction implements TransactionStrategy {
             return 0;
         }
 
-        for (ClassicAccount currAccount : user.getAccounts()) {
-            if (currAccount.getIban().equals(iban)) {
-                String cardNumber = Utils.generateCardNumber();
-                card = cardNumber;
-                if (command.getCommand().equals("createCard")) {
-                    currAccount.getCards().add(new Card(cardNumber, command.getEmail(), "active"));
-                } else if (command.getCommand().equals("createOneTimeCard")) {
-                    currAccount.getCards().add(new OneTimeCard(cardNumber, command.getEmail()));
-                }
-                    if (currAccount.getType().equals("classic")) {
-                    currAccount.getTransactions().add(this);
-                }
-
-                return 1;
-            }
+        ClassicAccount currAccount = directory.findByIban(iban).getAccount();
+        if (!directory.holdsAccount(user, currAccount)) {
+            return 0;
+        }
+
+        String cardNumber = ids.generateCardNumber();
+        card = cardNumber;
+        Card newCard;
+        if (command.getCommandType() == CommandType.CREATE_ONE_TIME_CARD) {
+            newCard = new OneTimeCard(cardNumber, command.getEmail());
+        } else {
+            newCard = new Card(cardNumber, command.getEmail(), "active");
+        }
+        currAccount.getCards().add(newCard);
+        directory.addCard(currAccount, newCard);
+        if (currAccount.getType().equals("classic")) {
+            currAccount.getTransactions().add(this);
         }
 
-        return 0;
+        return 1;
     }
 
     /**
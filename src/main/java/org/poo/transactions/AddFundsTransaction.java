@@ -60,7 +60,7 @@ public class AddFundsTransaction implements TransactionStrategy {
             }
         }
 
-        currentAccount.setBalance(currentAccount.getBalance() + command.getAmount());
+        currentAccount.credit(command.getAmount());
     }
 
     /**
@@ -1,13 +1,15 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 public class AddInterestTransaction implements TransactionStrategy {
     private double amount;
     private String currency;
@@ -21,7 +23,7 @@ public class AddInterestTransaction implements TransactionStrategy {
     @JsonIgnore
     private User user;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code AddInterestTransaction} based on the given command,
@@ -34,7 +36,7 @@ public class AddInterestTransaction implements TransactionStrategy {
      */
     public AddInterestTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final User user,
             final ClassicAccount account
     ) {
@@ -55,17 +57,8 @@ public class AddInterestTransaction implements TransactionStrategy {
             return;
         }
         if (account.getType().equals("classic")) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "This is not a savings account");
-            errorNode.put("timestamp", timestamp);
-
-            node.set("output", errorNode);
-            output.add(node);
+            output.add(JsonService.errorResult(command.getCommand(), timestamp,
+                    "This is not a savings account"));
 
             return;
         }
@@ -79,6 +72,22 @@ public class AddInterestTransaction implements TransactionStrategy {
         account.getTransactions().add(this);
     }
 
+    /**
+     * Writes the interest income as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("amount", amount);
+        generator.writeStringField("currency", currency);
+        generator.writeStringField("description", description);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeEndObject();
+    }
+
     /**
      * Gets the timestamp of the transaction.
      *
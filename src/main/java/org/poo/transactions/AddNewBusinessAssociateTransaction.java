@@ -3,6 +3,7 @@ package org.poo.transactions;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.poo.accounts.BusinessAccount;
+import org.poo.app.EntityDirectory;
 import org.poo.business.Employee;
 import org.poo.business.Manager;
 import org.poo.fileio.CommandInput;
@@ -12,6 +13,8 @@ import org.poo.users.User;
 public class AddNewBusinessAssociateTransaction implements TransactionStrategy {
     private int timestamp;
 
+    @JsonIgnore
+    private EntityDirectory directory;
     @JsonIgnore
     private BusinessAccount businessAccount;
     @JsonIgnore
@@ -31,16 +34,19 @@ public class AddNewBusinessAssociateTransaction implements TransactionStrategy {
      * @param command the {@code CommandInput} object that contains details about the transaction,
      *                including the role of the associate (e.g., employee or manager) and the
      *                timestamp.
+     * @param directory the directory in which the associate's access to the account is indexed.
      * @param account the {@code BusinessAccount} to which the new associate will be added.
      * @param user the {@code User} object representing the individual to be added as a business
      *             associate (employee or manager).
      */
     public AddNewBusinessAssociateTransaction(
             final CommandInput command,
+            final EntityDirectory directory,
             final BusinessAccount account,
             final User user
     ) {
         this.command = command;
+        this.directory = directory;
         this.user = user;
         this.businessAccount = account;
         timestamp = command.getTimestamp();
@@ -77,6 +83,7 @@ public class AddNewBusinessAssociateTransaction implements TransactionStrategy {
                 businessAccount.getEmployees().put(user.getEmail(),
                         new Employee(user, employeeOrder));
                 user.getAccounts().add(businessAccount);
+                directory.addAccount(user, businessAccount);
                 employeeOrder++;
             }
         } else if (command.getRole().equals("manager")) {
@@ -87,6 +94,7 @@ public class AddNewBusinessAssociateTransaction implements TransactionStrategy {
                 managerOrder = businessAccount.getManagers().size();
                 businessAccount.getManagers().put(user.getEmail(), new Manager(user, managerOrder));
                 user.getAccounts().add(businessAccount);
+                directory.addAccount(user, businessAccount);
                 managerOrder++;
             }
         }
@@ -2,13 +2,17 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.OutputSink;
 import org.poo.cards.Card;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CashWithdrawTransaction implements TransactionStrategy {
     private String description;
@@ -24,9 +28,11 @@ public class CashWithdrawTransaction implements TransactionStrategy {
     @JsonIgnore
     private Card card;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
     @JsonIgnore
     private Bnr bank;
+    @JsonIgnore
+    private PricingRules pricing;
 
     /**
      * Constructs a new {@code CashWithdrawTransaction} with the specified parameters.
@@ -35,16 +41,18 @@ public class CashWithdrawTransaction implements TransactionStrategy {
      * @param user the {@code User} initiating the cash withdrawal transaction
      * @param account the {@code ClassicAccount} from which the cash is being withdrawn
      * @param card the {@code Card} associated with the account being used for the withdrawal
-     * @param output the {@code ArrayNode} used to store output details for the transaction
+     * @param output the {@code OutputSink} used to store output details for the transaction
      * @param bank the {@code Bnr} bank instance processing the withdrawal transaction
+     * @param pricing the {@code PricingRules} that set the commission of the withdrawal
      */
     public CashWithdrawTransaction(
             final CommandInput commandInput,
             final User user,
             final ClassicAccount account,
             final Card card,
-            final ArrayNode output,
-            final Bnr bank
+            final OutputSink output,
+            final Bnr bank,
+            final PricingRules pricing
     ) {
         this.commandInput = commandInput;
         this.user = user;
@@ -52,6 +60,7 @@ public class CashWithdrawTransaction implements TransactionStrategy {
         this.card = card;
         this.output = output;
         this.bank = bank;
+        this.pricing = pricing;
         timestamp = commandInput.getTimestamp();
         description = null;
         amount = null;
@@ -107,13 +116,12 @@ public class CashWithdrawTransaction implements TransactionStrategy {
                 tempAmount = commandInput.getAmount();
             }
 
-            double commission = user.getServicePlan().getComissionRate(commandInput.getAmount());
+            double commission = user.getServicePlan()
+                    .getComissionRate(commandInput.getAmount(), pricing);
 
-            if (account.getBalance() - tempAmount - commission * tempAmount
-                    <= account.getMinBalance()) {
+            if (!account.debitIfAvailable(tempAmount, tempAmount * commission)) {
                 description = "Insufficient funds";
             } else {
-                account.setBalance(account.getBalance() - tempAmount - tempAmount * commission);
                 amount = commandInput.getAmount();
                 description = "Cash withdrawal of " + amount;
             }
@@ -121,6 +129,26 @@ public class CashWithdrawTransaction implements TransactionStrategy {
         }
     }
 
+    /**
+     * Writes the withdrawal as it appears in the transaction history, skipping the amount
+     * when it was never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        generator.writeNumberField("timestamp", timestamp);
+        if (amount != null) {
+            generator.writeNumberField("amount", amount);
+        }
+        generator.writeEndObject();
+    }
+
     /**
      * Retrieves the description of the transaction.
      *
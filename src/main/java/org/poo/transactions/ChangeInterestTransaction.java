@@ -1,13 +1,15 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 public class ChangeInterestTransaction implements TransactionStrategy {
     private String description;
     private int timestamp;
@@ -19,7 +21,7 @@ public class ChangeInterestTransaction implements TransactionStrategy {
     @JsonIgnore
     private ClassicAccount account;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code ChangeInterestTransaction} with the given command,
@@ -33,7 +35,7 @@ public class ChangeInterestTransaction implements TransactionStrategy {
      */
     public ChangeInterestTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final User user,
             final ClassicAccount account
     ) {
@@ -56,17 +58,8 @@ public class ChangeInterestTransaction implements TransactionStrategy {
             return;
         }
         if (account.getType().equals("classic")) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "This is not a savings account");
-            errorNode.put("timestamp", timestamp);
-
-            node.set("output", errorNode);
-            output.add(node);
+            output.add(JsonService.errorResult(command.getCommand(), timestamp,
+                    "This is not a savings account"));
 
             return;
         }
@@ -75,6 +68,20 @@ public class ChangeInterestTransaction implements TransactionStrategy {
         user.getTransactions().add(this);
     }
 
+    /**
+     * Writes the interest rate change as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("description", description);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeEndObject();
+    }
+
     /**
      * Gets the description of the transaction.
      *
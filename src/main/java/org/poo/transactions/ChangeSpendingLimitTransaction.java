@@ -1,15 +1,16 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.accounts.BusinessAccount;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
 import org.poo.users.User;
 
 public class ChangeSpendingLimitTransaction implements TransactionStrategy {
     private int timestamp;
     private String error;
-    private ArrayNode output;
+    private OutputSink output;
 
     @JsonIgnore
     private User user;
@@ -27,14 +28,14 @@ public class ChangeSpendingLimitTransaction implements TransactionStrategy {
      * @param user the {@code User} performing the transaction, typically the account owner
      * @param account the {@code BusinessAccount} for which the spending or deposit limit is
      *                being changed
-     * @param output an {@code ArrayNode} used to store the result or any error messages generated
+     * @param output an {@code OutputSink} used to store the result or any error messages generated
      *               during the transaction
      */
     public ChangeSpendingLimitTransaction(
             final CommandInput command,
             final User user,
             final BusinessAccount account,
-            final ArrayNode output
+            final OutputSink output
     ) {
         this.command = command;
         this.user = user;
@@ -66,19 +67,19 @@ public class ChangeSpendingLimitTransaction implements TransactionStrategy {
     @Override
     public void makeTransaction() {
         if (user != account.getOwner().getUser()) {
-            if (command.getCommand().equals("changeSpendingLimit")) {
+            if (command.getCommandType() == CommandType.CHANGE_SPENDING_LIMIT) {
                 CheckCardStatusTransaction.printError(command,
                         "You must be owner in order to change spending limit.", timestamp, output);
-            } else if (command.getCommand().equals("changeDepositLimit")) {
+            } else if (command.getCommandType() == CommandType.CHANGE_DEPOSIT_LIMIT) {
                 CheckCardStatusTransaction.printError(command,
                         "You must be owner in order to change deposit limit.", timestamp, output);
             }
             return;
         }
 
-        if (command.getCommand().equals("changeSpendingLimit")) {
+        if (command.getCommandType() == CommandType.CHANGE_SPENDING_LIMIT) {
             account.setSpendingLimit(command.getAmount());
-        } else if (command.getCommand().equals("changeDepositLimit")) {
+        } else if (command.getCommandType() == CommandType.CHANGE_DEPOSIT_LIMIT) {
             account.setDepositLimit(command.getAmount());
         }
     }
@@ -2,14 +2,16 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.cards.Card;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CheckCardStatusTransaction implements TransactionStrategy {
     private static final long WARNING_BALANCE = 30;
@@ -25,7 +27,7 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
     @JsonIgnore
     private Card card;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code CheckCardStatusTransaction} with the given command,
@@ -39,7 +41,7 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
      */
     public CheckCardStatusTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final User user,
             final ClassicAccount currentAccount,
             final Card card
@@ -58,23 +60,78 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
      * If the account or card is null, an error message is added to the output.
      */
     public void makeTransaction() {
-        if (currentAccount == null || card == null) {
+        check(command, output, user, currentAccount, card, this);
+    }
+
+    /**
+     * Checks the status of a card, as {@link #makeTransaction()} does. Nothing is kept
+     * between two calls, so the dispatcher runs the command through this method, and an
+     * entry is only created when the status of the card changes.
+     *
+     * @param command the command input containing the transaction details.
+     * @param output the output the errors are added to.
+     * @param user the user who owns the account and card.
+     * @param account the account associated with the card, or {@code null}.
+     * @param card the card whose status will be checked, or {@code null}.
+     */
+    public static void check(final CommandInput command, final OutputSink output,
+                             final User user, final ClassicAccount account, final Card card) {
+        check(command, output, user, account, card, null);
+    }
+
+    /**
+     * Checks the status of a card and records any change in the history of its user.
+     *
+     * @param command the command input containing the transaction details.
+     * @param output the output the errors are added to.
+     * @param user the user who owns the account and card.
+     * @param account the account associated with the card, or {@code null}.
+     * @param card the card whose status will be checked, or {@code null}.
+     * @param entry the entry to record, or {@code null} to create one if needed.
+     */
+    private static void check(final CommandInput command, final OutputSink output,
+                              final User user, final ClassicAccount account, final Card card,
+                              final CheckCardStatusTransaction entry) {
+        if (account == null || card == null) {
             printError(command, "Card not found", command.getTimestamp(), output);
+            return;
+        }
+
+        String status;
+        String change;
+        if (account.getBalance() <= account.getMinBalance()) {
+            status = "frozen";
+            change = "You have reached the minimum amount of funds, the card will be frozen";
+        } else if (account.getBalance() - account.getMinBalance() <= WARNING_BALANCE
+                && account.getMinBalance() != 0) {
+            status = "warning";
+            change = "The card is in a warning stage";
         } else {
-             if (currentAccount.getBalance() <= currentAccount.getMinBalance()) {
-                 description = "You have reached the minimum amount of funds, "
-                         + "the card will be frozen";
-                 timestamp = command.getTimestamp();
-                 card.setStatus("frozen");
-                 user.getTransactions().add(this);
-             } else if (currentAccount.getBalance() - currentAccount.getMinBalance()
-                     <= WARNING_BALANCE && currentAccount.getMinBalance() != 0) {
-                 description = "The card is in a warning stage";
-                 timestamp = command.getTimestamp();
-                 card.setStatus("warning");
-                 user.getTransactions().add(this);
-             }
+            return;
         }
+
+        CheckCardStatusTransaction recorded = entry != null ? entry
+                : new CheckCardStatusTransaction(command, output, user, account, card);
+        recorded.description = change;
+        recorded.timestamp = command.getTimestamp();
+        card.setStatus(status);
+        user.getTransactions().add(recorded);
+    }
+
+    /**
+     * Writes the card status change as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        generator.writeNumberField("timestamp", getTimestamp());
+        generator.writeEndObject();
     }
 
     /**
@@ -88,18 +145,10 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
             final CommandInput command,
             final String description,
             final int timestamp,
-            final ArrayNode output
+            final OutputSink output
     ) {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode cardNode = mapper.createObjectNode();
-        cardNode.put("command", command.getCommand());
-        cardNode.put("timestamp", timestamp);
-
-        ObjectNode errorNode = mapper.createObjectNode();
-        errorNode.put("description", description);
-        errorNode.put("timestamp", command.getTimestamp());
-        cardNode.set("output", errorNode);
-        output.add(cardNode);
+        output.add(JsonService.errorResult(command.getCommand(), timestamp, description,
+                command.getTimestamp()));
     }
 
     /**
@@ -183,7 +232,7 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
      *
      * @return the output array.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -192,7 +241,7 @@ public class CheckCardStatusTransaction implements TransactionStrategy {
      *
      * @param output the output array to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 
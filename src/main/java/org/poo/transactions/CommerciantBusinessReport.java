@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.BusinessAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.business.BusinessCommerciant;
 import org.poo.fileio.CommandInput;
 
@@ -15,7 +17,7 @@ import java.util.stream.Collectors;
 public class CommerciantBusinessReport implements TransactionStrategy {
     private CommandInput command;
     private BusinessAccount account;
-    private ArrayNode output;
+    private OutputSink output;
     private int timestamp;
 
     /**
@@ -30,7 +32,7 @@ public class CommerciantBusinessReport implements TransactionStrategy {
     public CommerciantBusinessReport(
             final CommandInput command,
             final BusinessAccount account,
-            final ArrayNode output
+            final OutputSink output
     ) {
         this.command = command;
         this.account = account;
@@ -57,22 +59,27 @@ public class CommerciantBusinessReport implements TransactionStrategy {
      */
     @Override
     public void makeTransaction() {
-        if (account == null) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "Account not found");
-            errorNode.put("timestamp", timestamp);
+        report(command, account, output);
+    }
 
-            node.set("output", errorNode);
-            output.add(node);
+    /**
+     * Writes the commerciant report of a business account, or an error if there is no such
+     * account. Nothing is kept between two calls, so the dispatcher runs the command through
+     * this method without creating a transaction.
+     *
+     * @param command the command input containing the details of the report.
+     * @param account the business account, or {@code null} if it was not found.
+     * @param output the output the report is added to.
+     */
+    public static void report(final CommandInput command, final BusinessAccount account,
+                              final OutputSink output) {
+        if (account == null) {
+            output.add(JsonService.errorResult(command.getCommand(), command.getTimestamp(),
+                    "Account not found"));
             return;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = JsonService.mapper();
         ObjectNode node = mapper.createObjectNode();
         node.put("timestamp", command.getTimestamp());
         node.put("command", command.getCommand());
@@ -149,21 +156,21 @@ public class CommerciantBusinessReport implements TransactionStrategy {
     }
 
     /**
-     * Retrieves the output data represented as an {@code ArrayNode}.
+     * Retrieves the output data represented as an {@code OutputSink}.
      *
      * @return the output data contained within this instance.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
     /**
      * Sets the output data for a transaction or operation.
      *
-     * @param output the {@code ArrayNode} containing the output data to be associated
+     * @param output the {@code OutputSink} receiving the output data to be associated
      *               with the current transaction or operation.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 
@@ -1,13 +1,17 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.EntityDirectory;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 public class DeleteAccountTransaction implements TransactionStrategy {
     private String description;
     private int timestamp;
@@ -15,11 +19,13 @@ public class DeleteAccountTransaction implements TransactionStrategy {
     @JsonIgnore
     private CommandInput command;
     @JsonIgnore
+    private EntityDirectory directory;
+    @JsonIgnore
     private User currentUser;
     @JsonIgnore
     private ClassicAccount account;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
     @JsonIgnore
     private String email;
 
@@ -28,14 +34,17 @@ public class DeleteAccountTransaction implements TransactionStrategy {
      *
      * @param command the command input containing the transaction details.
      * @param output the output array where the transaction result will be stored.
+     * @param directory the directory from which the deleted account is removed.
      * @param currentUser the user who owns the account to be deleted.
      */
     public DeleteAccountTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
+            final EntityDirectory directory,
             final User currentUser
     ) {
         this.command = command;
+        this.directory = directory;
         this.currentUser = currentUser;
         this.output = output;
         this.description = command.getDescription();
@@ -50,11 +59,8 @@ public class DeleteAccountTransaction implements TransactionStrategy {
      * and a success message is added.
      */
     public void makeTransaction() {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode cardNode = mapper.createObjectNode();
-        cardNode.put("command", command.getCommand());
-        cardNode.put("timestamp", timestamp);
-        ObjectNode outputNode = mapper.createObjectNode();
+        ObjectNode cardNode = JsonService.result(command.getCommand(), timestamp);
+        ObjectNode outputNode = JsonService.objectNode();
 
         int idx = searchAccount(currentUser, command.getAccount());
         if (idx == -1) {
@@ -63,8 +69,10 @@ public class DeleteAccountTransaction implements TransactionStrategy {
         } else {
             ClassicAccount wantedAccount = currentUser.getAccounts().get(idx);
             if (wantedAccount.getBalance() == 0) {
+                directory.removeCards(wantedAccount);
                 wantedAccount.getCards().clear();
                 currentUser.getAccounts().remove(idx);
+                directory.removeAccount(currentUser, wantedAccount);
                 outputNode.put("success", "Account deleted");
                 outputNode.put("timestamp", timestamp);
             } else {
@@ -80,6 +88,20 @@ public class DeleteAccountTransaction implements TransactionStrategy {
         output.add(cardNode);
     }
 
+    /**
+     * Writes the failed deletion as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("description", description);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeEndObject();
+    }
+
     /**
      * Searches for an account with the specified IBAN in the given user.
      *
@@ -160,7 +182,7 @@ public class DeleteAccountTransaction implements TransactionStrategy {
      *
      * @return the output array.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -169,7 +191,7 @@ public class DeleteAccountTransaction implements TransactionStrategy {
      *
      * @param output the output array to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 
@@ -1,11 +1,15 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.EntityDirectory;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 public class DeleteCardTransaction implements TransactionStrategy {
     private String description;
     private int timestamp;
@@ -17,6 +21,8 @@ public class DeleteCardTransaction implements TransactionStrategy {
     @JsonIgnore
     private CommandInput command;
     @JsonIgnore
+    private EntityDirectory directory;
+    @JsonIgnore
     private ClassicAccount currentAccount;
     @JsonIgnore
     private User currentUser;
@@ -27,15 +33,18 @@ public class DeleteCardTransaction implements TransactionStrategy {
      * Constructs a new {@code DeleteCardTransaction} with the given command, account, and user.
      *
      * @param command the command input containing the transaction details.
+     * @param directory the directory from which the deleted card is removed.
      * @param currentAccount the account from which the card will be deleted.
      * @param currentUser the user who owns the account.
      */
     public DeleteCardTransaction(
             final CommandInput command,
+            final EntityDirectory directory,
             final ClassicAccount currentAccount,
             final User currentUser
     ) {
         this.command = command;
+        this.directory = directory;
         this.currentAccount = currentAccount;
         this.currentUser = currentUser;
         email = command.getEmail();
@@ -96,6 +105,7 @@ public class DeleteCardTransaction implements TransactionStrategy {
                 }
 
                 currentAccount.getCards().remove(idx);
+                directory.removeCard(command.getCardNumber());
                 if (currentUser != null) {
                     currentUser.getTransactions().add(this);
                     description = "The card has been destroyed";
@@ -107,6 +117,23 @@ public class DeleteCardTransaction implements TransactionStrategy {
         }
     }
 
+    /**
+     * Writes the card deletion as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("description", description);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeStringField("account", account);
+        generator.writeStringField("card", card);
+        generator.writeStringField("cardHolder", cardHolder);
+        generator.writeEndObject();
+    }
+
     /**
      * Searches for a card in the account's list of cards by the card number.
      *
@@ -1,10 +1,8 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
@@ -16,7 +14,7 @@ public class MinBalanceTransaction implements TransactionStrategy {
     private CommandInput command;
     private User currentUser;
     private ClassicAccount account;
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code MinBalanceTransaction} with the given command, output,
@@ -29,7 +27,7 @@ public class MinBalanceTransaction implements TransactionStrategy {
      */
     public MinBalanceTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final User currentUser,
             final ClassicAccount account
     ) {
@@ -43,16 +41,10 @@ public class MinBalanceTransaction implements TransactionStrategy {
 
     /**
      * Executes the transaction by setting the minimum balance of the account.
-     * If the user or account is invalid, an error is added to the output.
+     * If the user or account is invalid, nothing is changed.
      */
     public void makeTransaction() {
-        if (currentUser == null || account == null) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode balanceNode = mapper.createObjectNode();
-            balanceNode.put("command", command.getCommand());
-            balanceNode.put("timestamp", timestamp);
-            balanceNode.put("error", "Invalid user");
-        } else {
+        if (currentUser != null && account != null) {
             account.setMinBalance(command.getAmount());
         }
     }
@@ -116,7 +108,7 @@ public class MinBalanceTransaction implements TransactionStrategy {
      *
      * @return the output.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -125,7 +117,7 @@ public class MinBalanceTransaction implements TransactionStrategy {
      *
      * @param output the output to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 }
@@ -2,16 +2,23 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.EntityDirectory;
+import org.poo.app.ExecutionContext;
+import org.poo.app.Finder;
+import org.poo.app.OutputSink;
 import org.poo.business.BusinessCommerciant;
 import org.poo.cards.Card;
 import org.poo.commerciants.Seller;
 import org.poo.exchangeRates.Bnr;
-import org.poo.exchangeRates.ExchangeRate;
 import org.poo.fileio.CommandInput;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
+import org.poo.utils.IdGenerator;
+
+import java.io.IOException;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class PayOnlineTransaction implements TransactionStrategy {
@@ -21,7 +28,8 @@ public class PayOnlineTransaction implements TransactionStrategy {
 
     private String description;
     private int timestamp;
-    private Double amount;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private double amount;
     private String commerciant;
 
     @JsonIgnore
@@ -33,29 +41,38 @@ public class PayOnlineTransaction implements TransactionStrategy {
     @JsonIgnore
     private Card card;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
     @JsonIgnore
     private Bnr bank;
+    @JsonIgnore
+    private PricingRules pricing;
+    @JsonIgnore
+    private EntityDirectory directory;
+    @JsonIgnore
+    private IdGenerator ids;
 
     /**
-     * Constructs a new {@code PayOnlineTransaction} with the given command, output, bank,
-     * and user.
+     * Constructs a new {@code PayOnlineTransaction} with the given command, execution context,
+     * commerciant and user.
      *
      * @param command the command input containing transaction details.
-     * @param output the output to store the results of the transaction.
-     * @param bank the bank responsible for exchange rate handling.
+     * @param context the run whose output, bank, pricing rules, directory and card number
+     *                generator are used.
+     * @param seller the commerciant receiving the payment.
      * @param currentUser the user performing the transaction.
      */
     public PayOnlineTransaction(
             final CommandInput command,
-            final ArrayNode output,
-            final Bnr bank,
+            final ExecutionContext context,
             final Seller seller,
             final User currentUser
     ) {
         this.command = command;
-        this.output = output;
-        this.bank = bank;
+        this.output = context.getOutput();
+        this.bank = context.getBank();
+        this.pricing = context.getPricing();
+        this.directory = context.getDirectory();
+        this.ids = context.getIds();
         this.seller = seller;
         this.currentUser = currentUser;
         this.timestamp = command.getTimestamp();
@@ -87,8 +104,6 @@ public class PayOnlineTransaction implements TransactionStrategy {
                 double exchangeRate1;
                 if (!currency.equals(command.getCurrency())) {
                     exchangeRate1 = bank.getExchangeRate(command.getCurrency(), currency);
-                    bank.getExchangeRates().add(new ExchangeRate(command.getCurrency(),
-                            currency, exchangeRate1));
                     transactionAmount = command.getAmount() * exchangeRate1;
                 } else {
                     transactionAmount = command.getAmount();
@@ -102,12 +117,7 @@ public class PayOnlineTransaction implements TransactionStrategy {
                     }
                 }
 
-                double coupon = 0.0;
-                if (account.getCoupons().get(seller.getType()) != -1.0
-                        && account.getCoupons().get(seller.getType()) != 0) {
-                    coupon = account.getCoupons().get(seller.getType()) * transactionAmount;
-                    account.getCoupons().put(seller.getType(), -1.0);
-                }
+                double coupon = account.redeemCoupon(seller.getCategory(), transactionAmount);
 
                 double commission;
                 if (!account.getCurrency().equals("RON")) {
@@ -117,10 +127,10 @@ public class PayOnlineTransaction implements TransactionStrategy {
                         commission = business.getOwner()
                                 .getUser()
                                 .getServicePlan()
-                                .getComissionRate(transactionAmount * exchangeRate);
+                                .getComissionRate(transactionAmount * exchangeRate, pricing);
                     } else {
                         commission = currentUser.getServicePlan()
-                                .getComissionRate(transactionAmount * exchangeRate);
+                                .getComissionRate(transactionAmount * exchangeRate, pricing);
                     }
                 } else {
                     if (account.getType().equals("business")) {
@@ -128,17 +138,17 @@ public class PayOnlineTransaction implements TransactionStrategy {
                         commission = business.getOwner()
                                 .getUser()
                                 .getServicePlan()
-                                .getComissionRate(transactionAmount);
+                                .getComissionRate(transactionAmount, pricing);
                     } else {
                         commission = currentUser.getServicePlan()
-                                .getComissionRate(transactionAmount);
+                                .getComissionRate(transactionAmount, pricing);
                     }
                 }
 
                 int cardChanged = 0;
 
-                if (account.getBalance() - transactionAmount - commission * transactionAmount
-                        <= account.getMinBalance()) {
+                if (!account.debitIfAvailable(transactionAmount,
+                        transactionAmount * commission)) {
                     description = "Insufficient funds";
                 } else {
                     double cashback;
@@ -151,14 +161,14 @@ public class PayOnlineTransaction implements TransactionStrategy {
                                             seller,
                                             account,
                                             business.getOwner().getUser(),
-                                            transactionAmount * exchangeRate
+                                            transactionAmount * exchangeRate, pricing
                                     );
                         } else {
                             cashback = seller.getCashbackStrategy().calculateCashback(
                                     seller,
                                     account,
                                     currentUser,
-                                    transactionAmount * exchangeRate
+                                    transactionAmount * exchangeRate, pricing
                             );
                         }
                     } else {
@@ -168,11 +178,11 @@ public class PayOnlineTransaction implements TransactionStrategy {
                                     seller,
                                     account,
                                     business.getOwner().getUser(),
-                                    transactionAmount
+                                    transactionAmount, pricing
                             );
                         } else {
                             cashback = seller.getCashbackStrategy().calculateCashback(
-                                    seller, account, currentUser, transactionAmount);
+                                    seller, account, currentUser, transactionAmount, pricing);
                         }
                     }
 
@@ -184,8 +194,7 @@ public class PayOnlineTransaction implements TransactionStrategy {
 
                     cashback = cashback * exchangeRate2 + coupon;
 
-                    account.setBalance(account.getBalance()
-                            - transactionAmount - transactionAmount * commission + cashback);
+                    account.credit(cashback);
 
                     if (transactionAmount / exchangeRate2
                             + transactionAmount * commission / exchangeRate2 >= THRESHOLD
@@ -197,7 +206,7 @@ public class PayOnlineTransaction implements TransactionStrategy {
                     commerciant = command.getCommerciant();
 
                     if (account.getType().equals("classic")) {
-                        account.getCommerciants().getPayments().add(this);
+                        account.getCommerciants().recordPayment(this);
                     } else if (account.getType().equals("business")) {
                         BusinessAccount business = (BusinessAccount) account;
 
@@ -241,22 +250,24 @@ public class PayOnlineTransaction implements TransactionStrategy {
                     }
 
                     description = "Card payment";
+                    String cardNumber = card.getCardNumber();
                     cardChanged = card.useCard(account.getIban(), currentUser,
-                            currentUser.getEmail(), timestamp);
+                            currentUser.getEmail(), timestamp, ids);
+                    if (cardChanged == 1) {
+                        directory.renumberCard(cardNumber, card);
+                    }
                 }
 
                 if (cardChanged == 1) {
-                    currentUser.getTransactions().add(currentUser.getTransactions().size() - 2,
-                            this);
+                    currentUser.getTransactions().addBeforeLast(2, this);
                     if (currentUser.getBigTransactions() == NO_BIGTRANSACTIONS
                             && currentUser.getServicePlan().getPlan().equals("silver")) {
                         currentUser.setBigTransactions(NO_STOP);
                         command.setAccount(account.getIban());
                         command.setNewPlanType("gold");
                         currentUser.getTransactions()
-                                .add(currentUser.getTransactions().size() - 2,
-                                new UpgradePlanTransaction(command, currentUser, account,
-                                        bank, output, 1));
+                                .addBeforeLast(2, new UpgradePlanTransaction(command,
+                                        currentUser, account, bank, pricing, output, 1));
                     }
                 } else {
                     currentUser.getTransactions().add(this);
@@ -267,36 +278,57 @@ public class PayOnlineTransaction implements TransactionStrategy {
                         command.setNewPlanType("gold");
                         currentUser.getTransactions()
                                 .add(new UpgradePlanTransaction(command, currentUser, account,
-                                        bank, output, 1));
+                                        bank, pricing, output, 1));
                     }
                 }
             }
     }
 
     /**
-     * Searches for a card in the user's accounts and checks its status. If the card is found,
+     * Writes the payment as it appears in the transaction history and in spending reports,
+     * skipping the fields that were never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        generator.writeNumberField("timestamp", timestamp);
+        if (amount != 0.0) {
+            generator.writeNumberField("amount", amount);
+        }
+        if (commerciant != null) {
+            generator.writeStringField("commerciant", commerciant);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Looks up a card among the user's accounts and checks its status. If the card is found,
      * it returns the account linked to the card.
      *
      * @param cardNumber the card number to search for.
      * @return the account associated with the card, or {@code null} if the card is not found.
      */
     private ClassicAccount pickCard(final String cardNumber) {
-        for (ClassicAccount account : currentUser.getAccounts()) {
-            for (int i = 0; i < account.getCards().size(); i++) {
-                if (account.getCards().get(i).getCardNumber().equals(cardNumber)) {
-                    if (account.getCards().get(i).getStatus().equals("frozen")) {
-                        description = "The card is frozen";
-                    }
-                    if (account.getType().equals("classic")) {
-                        account.getTransactions().add(this);
-                    }
-                    card = account.getCards().get(i);
-                    return account;
-                }
-            }
+        Finder found = directory.findByCard(cardNumber);
+        ClassicAccount account = found.getAccount();
+        if (!directory.holdsAccount(currentUser, account)) {
+            return null;
         }
 
-        return null;
+        if (found.getCard().getStatus().equals("frozen")) {
+            description = "The card is frozen";
+        }
+        if (account.getType().equals("classic")) {
+            account.getTransactions().add(this);
+        }
+        card = found.getCard();
+        return account;
     }
 
     /**
@@ -359,7 +391,7 @@ public class PayOnlineTransaction implements TransactionStrategy {
      *
      * @return the output.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -368,16 +400,16 @@ public class PayOnlineTransaction implements TransactionStrategy {
      *
      * @param output the output to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 
     /**
      * Gets the amount involved in the transaction.
      *
-     * @return the amount.
+     * @return the amount, or 0 if the payment was not made.
      */
-    public Double getAmount() {
+    public double getAmount() {
         return amount;
     }
 
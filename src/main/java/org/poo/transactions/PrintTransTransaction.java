@@ -1,8 +1,6 @@
 package org.poo.transactions;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
@@ -10,7 +8,7 @@ public class PrintTransTransaction implements TransactionStrategy {
     private CommandInput command;
     private int timestamp;
     private User user;
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code PrintTransTransaction} with the given command, output, and user.
@@ -21,7 +19,7 @@ public class PrintTransTransaction implements TransactionStrategy {
      */
     public PrintTransTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final User user
     ) {
         this.command = command;
@@ -35,18 +33,17 @@ public class PrintTransTransaction implements TransactionStrategy {
      * to the output in a structured format.
      */
     public void makeTransaction() {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode transactionNode = mapper.createObjectNode();
-        transactionNode.put("command", command.getCommand());
-        transactionNode.put("timestamp", timestamp);
-
-        ArrayNode printNode = mapper.createArrayNode();
-        for (TransactionStrategy transaction : user.getTransactions()) {
-            ObjectNode node = mapper.convertValue(transaction, ObjectNode.class);
-            printNode.add(node);
-        }
-        transactionNode.set("output", printNode);
-        output.add(transactionNode);
+        output.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", command.getCommand());
+            generator.writeNumberField("timestamp", timestamp);
+            generator.writeArrayFieldStart("output");
+            for (TransactionStrategy transaction : user.getTransactions()) {
+                transaction.writeTo(generator);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
     }
 
     /**
@@ -108,7 +105,7 @@ public class PrintTransTransaction implements TransactionStrategy {
      *
      * @return the output.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -117,7 +114,7 @@ public class PrintTransTransaction implements TransactionStrategy {
      *
      * @param output the output to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 }
@@ -5,17 +5,20 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.cards.Card;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class PrintUserTransaction implements TransactionStrategy {
     private String command;
     private int timestamp;
     private ArrayList<User> allUsers;
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code PrintUserTransaction} with the given command, output,
@@ -27,7 +30,7 @@ public class PrintUserTransaction implements TransactionStrategy {
      */
     public PrintUserTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final ArrayList<User> allUsers
     ) {
         this.command = command.getCommand();
@@ -42,7 +45,21 @@ public class PrintUserTransaction implements TransactionStrategy {
      */
     @Override
     public void makeTransaction() {
-        ObjectMapper mapper = new ObjectMapper();
+        print(command, timestamp, allUsers, output);
+    }
+
+    /**
+     * Prints every user with their accounts and cards. Nothing is kept between two calls, so
+     * the dispatcher runs the command through this method without creating a transaction.
+     *
+     * @param command the name of the command.
+     * @param timestamp the timestamp of the command.
+     * @param allUsers the users to print, in input order.
+     * @param output the output the result is added to.
+     */
+    public static void print(final String command, final int timestamp,
+                             final List<User> allUsers, final OutputSink output) {
+        ObjectMapper mapper = JsonService.mapper();
         ObjectNode printUsersNode = mapper.createObjectNode();
         printUsersNode.put("command", command);
         printUsersNode.put("timestamp", timestamp);
@@ -126,7 +143,7 @@ public class PrintUserTransaction implements TransactionStrategy {
      *
      * @return the output.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
@@ -135,7 +152,7 @@ public class PrintUserTransaction implements TransactionStrategy {
      *
      * @param output the output to set.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 }
@@ -0,0 +1,62 @@
+package org.poo.transactions;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.poo.app.JsonService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A history entry of a restored run. Entries never change once their command is over, so a
+ * snapshot keeps only their JSON; the entry points at it, in the mapped snapshot file, and
+ * copies it token by token whenever it is written. Nothing is parsed while restoring.
+ */
+public final class RecordedTransaction implements TransactionStrategy {
+    private final int timestamp;
+    private final ByteBuffer json;
+
+    /**
+     * Constructs the entry of a saved transaction.
+     *
+     * @param timestamp the timestamp of the original transaction.
+     * @param json the compact JSON the original transaction wrote, from position to limit.
+     */
+    public RecordedTransaction(final int timestamp, final ByteBuffer json) {
+        this.timestamp = timestamp;
+        this.json = json;
+    }
+
+    /**
+     * Does nothing, since the transaction already happened in the saved run.
+     */
+    @Override
+    public void makeTransaction() {
+    }
+
+    /**
+     * Gets the timestamp of the original transaction.
+     *
+     * @return the timestamp.
+     */
+    @Override
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Writes the entry exactly as the original transaction wrote it.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        try (JsonParser parser = JsonService.mapper().getFactory()
+                .createParser(new ByteBufferBackedInputStream(json.duplicate()))) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+    }
+}
@@ -1,18 +1,19 @@
 package org.poo.transactions;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
 
+import java.io.IOException;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class ReportTransaction implements TransactionStrategy {
     private CommandInput command;
     private ClassicAccount account;
-    private ArrayNode output;
+    private OutputSink output;
     private int timestamp;
 
     /**
@@ -24,7 +25,7 @@ public class ReportTransaction implements TransactionStrategy {
      */
     public ReportTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final ClassicAccount account
     ) {
         this.command = command;
@@ -39,89 +40,85 @@ public class ReportTransaction implements TransactionStrategy {
      * If the account is valid, the gathered data is added to the output.
      */
     public void makeTransaction() {
-        if (account == null) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "Account not found");
-            errorNode.put("timestamp", timestamp);
+        report(command, output, account);
+    }
 
-            node.set("output", errorNode);
-            output.add(node);
+    /**
+     * Writes the report of an account, or an error if there is no such account. Nothing is
+     * kept between two calls, so the dispatcher runs the command through this method without
+     * creating a transaction.
+     *
+     * @param command the command input containing the details of the report.
+     * @param output the output the report is written to.
+     * @param account the account, or {@code null} if it was not found.
+     */
+    public static void report(final CommandInput command, final OutputSink output,
+                              final ClassicAccount account) {
+        if (account == null) {
+            output.add(JsonService.errorResult(command.getCommand(), command.getTimestamp(),
+                    "Account not found"));
             return;
         }
 
-        ObjectNode node = gatherData(command, account);
-        output.add(node);
+        output.write(generator -> gatherData(generator, command, account));
     }
 
     /**
-     * Gathers the data for the report, including balance, currency, IBAN,
-     * transactions, and optionally commerciant spending data based on the command.
+     * Writes the report, including balance, currency, IBAN, transactions, and optionally
+     * commerciant spending data based on the command. Each transaction writes itself, so no
+     * intermediate tree is built.
      *
+     * @param generator the generator to write the report to.
      * @param command the command input containing the details of the report.
      * @param account the account for which the report is generated.
-     * @return an {@code ObjectNode} containing the gathered data for the report.
+     * @throws IOException if the report cannot be written.
      */
-    public static ObjectNode gatherData(
+    public static void gatherData(
+            final JsonGenerator generator,
             final CommandInput command,
             final ClassicAccount account
-    ) {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode node = mapper.createObjectNode();
-        node.put("timestamp", command.getTimestamp());
-        node.put("command", command.getCommand());
+    ) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("timestamp", command.getTimestamp());
+        generator.writeStringField("command", command.getCommand());
 
-        ObjectNode outputNode = mapper.createObjectNode();
-        outputNode.put("balance", account.getBalance());
-        outputNode.put("currency", account.getCurrency());
-        outputNode.put("IBAN", account.getIban());
+        generator.writeObjectFieldStart("output");
+        generator.writeNumberField("balance", account.getBalance());
+        generator.writeStringField("currency", account.getCurrency());
+        generator.writeStringField("IBAN", account.getIban());
 
-        ArrayNode transactionsNode = mapper.createArrayNode();
-        TreeMap<String, Double> sortedCommerciants = new TreeMap<>();
+        generator.writeArrayFieldStart("transactions");
 
         // Gather transaction data based on the command type (report or spendingsReport)
-        if (command.getCommand().equals("report")) {
-            for (TransactionStrategy transaction : account.getTransactions()) {
-                if (transaction.getTimestamp() >= command.getStartTimestamp()
-                        && transaction.getTimestamp() <= command.getEndTimestamp()) {
-                    ObjectNode transNode = mapper.convertValue(transaction, ObjectNode.class);
-                    transactionsNode.add(transNode);
-                }
+        if (command.getCommandType() == CommandType.REPORT) {
+            for (TransactionStrategy transaction : account.getTransactions()
+                    .window(command.getStartTimestamp(), command.getEndTimestamp())) {
+                transaction.writeTo(generator);
             }
         } else {
-            for (PayOnlineTransaction transaction : account.getCommerciants().getPayments()) {
-                if (transaction.getTimestamp() >= command.getStartTimestamp()
-                        && transaction.getTimestamp() <= command.getEndTimestamp()) {
-                    ObjectNode transNode = mapper.convertValue(transaction, ObjectNode.class);
-                    transactionsNode.add(transNode);
-
-                    sortedCommerciants.put(transaction.getCommerciant(),
-                            sortedCommerciants.getOrDefault(transaction.getCommerciant(), 0.0)
-                                                            + transaction.getAmount());
-                }
+            for (TransactionStrategy transaction : account.getCommerciants().getPayments()
+                    .window(command.getStartTimestamp(), command.getEndTimestamp())) {
+                transaction.writeTo(generator);
             }
         }
-        outputNode.set("transactions", transactionsNode);
+        generator.writeEndArray();
 
         // If the command is "spendingsReport", gather spending data for each commerciant
-        if (command.getCommand().equals("spendingsReport")) {
-            ArrayNode commerciantsNode = mapper.createArrayNode();
-            for (Map.Entry<String, Double> entry : sortedCommerciants.entrySet()) {
-                ObjectNode payNode = mapper.createObjectNode();
-                payNode.put("commerciant", entry.getKey());
-                payNode.put("total", entry.getValue());
-                commerciantsNode.add(payNode);
+        if (command.getCommandType() == CommandType.SPENDINGS_REPORT) {
+            generator.writeArrayFieldStart("commerciants");
+            for (Map.Entry<String, Double> entry : account.getCommerciants()
+                    .getTotals(command.getStartTimestamp(), command.getEndTimestamp())
+                    .entrySet()) {
+                generator.writeStartObject();
+                generator.writeStringField("commerciant", entry.getKey());
+                generator.writeNumberField("total", entry.getValue());
+                generator.writeEndObject();
             }
-            outputNode.set("commerciants", commerciantsNode);
+            generator.writeEndArray();
         }
 
-        node.set("output", outputNode);
-
-        return node;
+        generator.writeEndObject();
+        generator.writeEndObject();
     }
 
     /**
@@ -1,15 +1,20 @@
 package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.OutputSink;
 import org.poo.business.BusinessCommerciant;
 import org.poo.commerciants.Seller;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
     private static final int THRESHOLD = 300;
     private static final int NO_BIGTRANSACTIONS = 5;
@@ -31,9 +36,11 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
     @JsonIgnore
     private Bnr bank;
     @JsonIgnore
+    private PricingRules pricing;
+    @JsonIgnore
     private CommandInput command;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code SendMoneyTransaction} with the given command input,
@@ -44,6 +51,7 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
      * @param giverUser the sender's user information.
      * @param receiver the receiver's account.
      * @param bank the bank used for currency exchange.
+     * @param pricing the pricing rules that set the commission, cashback and upgrade fee.
      */
     public SendMoneyToCommerciantTransaction(
             final CommandInput command,
@@ -51,13 +59,15 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
             final User giverUser,
             final Seller receiver,
             final Bnr bank,
-            final ArrayNode output
+            final PricingRules pricing,
+            final OutputSink output
     ) {
         this.command = command;
         this.giver = giver;
         this.giverUser = giverUser;
         this.receiver = receiver;
         this.bank = bank;
+        this.pricing = pricing;
         this.output = output;
         this.timestamp = command.getTimestamp();
         this.description = command.getDescription();
@@ -91,12 +101,24 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
     }
 
     /**
-     * Executes the transaction by transferring money from the giver's account to
-     * the receiver's account.
+     * Executes the transaction while holding the balance lock of the giver's account, so the
+     * check of the funds and the payment happen as one step.
+     */
+    public void makeTransaction() {
+        AccountLocks.Held held = AccountLocks.lockAll(giver);
+        try {
+            transfer();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Transfers money from the giver's account to the receiver's account.
      * Updates the balances of both accounts, records the transaction, and creates a corresponding
      * transaction for the receiver.
      */
-    public void makeTransaction() {
+    private void transfer() {
         if (giver == null || receiver == null) {
             CheckCardStatusTransaction.printError(command, "User not found", timestamp, output);
             return;
@@ -120,20 +142,16 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
                 }
             }
 
-            double coupon = 0.0;
-            if (giver.getCoupons().get(receiver.getType()) != -1.0
-                    && giver.getCoupons().get(receiver.getType()) != 0) {
-                coupon = giver.getCoupons().get(receiver.getType()) * transactionAmount;
-                giver.getCoupons().put(receiver.getType(), -1.0);
-            }
+            double coupon = giver.redeemCoupon(receiver.getCategory(), transactionAmount);
 
             double commission;
             if (!giver.getCurrency().equals("RON")) {
                 double exchangeRate = bank.getExchangeRate(giver.getCurrency(), "RON");
                 commission = giverUser.getServicePlan()
-                        .getComissionRate(command.getAmount() * exchangeRate);
+                        .getComissionRate(command.getAmount() * exchangeRate, pricing);
             } else {
-                commission = giverUser.getServicePlan().getComissionRate(command.getAmount());
+                commission = giverUser.getServicePlan()
+                        .getComissionRate(command.getAmount(), pricing);
             }
 
             if (giver.getBalance() - transactionAmount - commission <= giver.getMinBalance()) {
@@ -146,10 +164,11 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
                 double exchangeRate = bank.getExchangeRate(giver.getCurrency(), "RON");
                 cashback = receiver.getCashbackStrategy()
                         .calculateCashback(receiver, giver, giverUser,
-                                command.getAmount() * exchangeRate);
+                                command.getAmount() * exchangeRate, pricing);
             } else {
                 cashback = receiver.getCashbackStrategy()
-                        .calculateCashback(receiver, giver, giverUser, command.getAmount());
+                        .calculateCashback(receiver, giver, giverUser, command.getAmount(),
+                                pricing);
             }
 
             double exchangeRate2 = 1;
@@ -221,7 +240,7 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
                     command.setNewPlanType("gold");
                     giverUser.getTransactions()
                             .add(new UpgradePlanTransaction(command, giverUser, giver,
-                                    bank, output, 1));
+                                    bank, pricing, output, 1));
                 }
             }
         } else {
@@ -233,7 +252,7 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
                 command.setNewPlanType("gold");
                 giverUser.getTransactions()
                         .add(new UpgradePlanTransaction(command, giverUser, giver,
-                                bank, output, 1));
+                                bank, pricing, output, 1));
             }
         }
 
@@ -242,6 +261,24 @@ public class SendMoneyToCommerciantTransaction implements  TransactionStrategy {
         }
     }
 
+    /**
+     * Writes the transfer to the commerciant as it appears in the transaction history.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("description", description);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeStringField("senderIBAN", senderIBAN);
+        generator.writeStringField("receiverIBAN", receiverIBAN);
+        generator.writeStringField("amount", amount);
+        generator.writeStringField("transferType", transferType);
+        generator.writeEndObject();
+    }
+
     /**
      * Gets the description of the transaction.
      *
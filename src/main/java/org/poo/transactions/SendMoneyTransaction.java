@@ -2,13 +2,18 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
 import org.poo.accounts.BusinessAccount;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.OutputSink;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class SendMoneyTransaction implements TransactionStrategy {
     private String description;
@@ -29,9 +34,11 @@ public class SendMoneyTransaction implements TransactionStrategy {
     @JsonIgnore
     private Bnr bank;
     @JsonIgnore
+    private PricingRules pricing;
+    @JsonIgnore
     private CommandInput command;
     @JsonIgnore
-    private ArrayNode output;
+    private OutputSink output;
 
     /**
      * Constructs a new {@code SendMoneyTransaction} with the given command input,
@@ -43,6 +50,7 @@ public class SendMoneyTransaction implements TransactionStrategy {
      * @param receiver the receiver's account.
      * @param receiverUser the receiver's user information.
      * @param bank the bank used for currency exchange.
+     * @param pricing the pricing rules that set the commission of the sender.
      */
     public SendMoneyTransaction(
             final CommandInput command,
@@ -51,7 +59,8 @@ public class SendMoneyTransaction implements TransactionStrategy {
             final ClassicAccount receiver,
             final User receiverUser,
             final Bnr bank,
-            final ArrayNode output
+            final PricingRules pricing,
+            final OutputSink output
     ) {
         this.command = command;
         this.giver = giver;
@@ -59,6 +68,7 @@ public class SendMoneyTransaction implements TransactionStrategy {
         this.receiver = receiver;
         this.receiverUser = receiverUser;
         this.bank = bank;
+        this.pricing = pricing;
         this.output = output;
         this.timestamp = command.getTimestamp();
         this.description = command.getDescription();
@@ -92,12 +102,24 @@ public class SendMoneyTransaction implements TransactionStrategy {
     }
 
     /**
-     * Executes the transaction by transferring money from the giver's account to
-     * the receiver's account.
+     * Executes the transaction while holding the balance locks of both accounts, so the check
+     * of the funds and the transfer happen as one step.
+     */
+    public void makeTransaction() {
+        AccountLocks.Held held = AccountLocks.lockAll(giver, receiver);
+        try {
+            transfer();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Transfers money from the giver's account to the receiver's account.
      * Updates the balances of both accounts, records the transaction, and creates a corresponding
      * transaction for the receiver.
      */
-    public void makeTransaction() {
+    private void transfer() {
         if (giver == null || receiver == null) {
             CheckCardStatusTransaction.printError(command, "User not found", timestamp, output);
             return;
@@ -145,15 +167,15 @@ public class SendMoneyTransaction implements TransactionStrategy {
             if (!giver.getCurrency().equals("RON")) {
                 double exchangeRate = bank.getExchangeRate(giver.getCurrency(), "RON");
                 commission = giverUser.getServicePlan()
-                        .getComissionRate(command.getAmount() * exchangeRate);
+                        .getComissionRate(command.getAmount() * exchangeRate, pricing);
             } else {
                 commission = giverUser
-                        .getServicePlan().getComissionRate(command.getAmount());
+                        .getServicePlan().getComissionRate(command.getAmount(), pricing);
             }
 
             giver.setBalance(giver.getBalance() - command.getAmount()
                     - commission * command.getAmount());
-            receiver.setBalance(receiver.getBalance() + transactionAmount);
+            receiver.credit(transactionAmount);
             TransactionStrategy trans = new SendMoneyTransaction(description, timestamp,
                     senderIBAN, receiverIBAN,
                     transactionAmount + " " + receiver.getCurrency(),
@@ -168,7 +190,7 @@ public class SendMoneyTransaction implements TransactionStrategy {
                 giverUser.getTransactions().add(this);
             }
         } else if (giverUser.getEmail().equals(receiverUser.getEmail())) {
-            giverUser.getTransactions().add(giverUser.getTransactions().size() - 1, this);
+            giverUser.getTransactions().addBeforeLast(1, this);
         } else {
             giverUser.getTransactions().add(this);
         }
@@ -178,6 +200,35 @@ public class SendMoneyTransaction implements TransactionStrategy {
         }
     }
 
+    /**
+     * Writes the transfer as it appears in the transaction history, skipping the fields that
+     * were never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        generator.writeNumberField("timestamp", timestamp);
+        if (senderIBAN != null) {
+            generator.writeStringField("senderIBAN", senderIBAN);
+        }
+        if (receiverIBAN != null) {
+            generator.writeStringField("receiverIBAN", receiverIBAN);
+        }
+        if (amount != null) {
+            generator.writeStringField("amount", amount);
+        }
+        if (transferType != null) {
+            generator.writeStringField("transferType", transferType);
+        }
+        generator.writeEndObject();
+    }
+
     /**
      * Gets the description of the transaction.
      *
@@ -1,15 +1,14 @@
 package org.poo.transactions;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.fileio.CommandInput;
 
 public class SpendingsReportTransaction implements TransactionStrategy {
     private CommandInput command;
     private ClassicAccount account;
-    private ArrayNode output;
+    private OutputSink output;
     private int timestamp;
 
     /**
@@ -22,7 +21,7 @@ public class SpendingsReportTransaction implements TransactionStrategy {
      */
     public SpendingsReportTransaction(
             final CommandInput command,
-            final ArrayNode output,
+            final OutputSink output,
             final ClassicAccount account
     ) {
         this.command = command;
@@ -36,37 +35,33 @@ public class SpendingsReportTransaction implements TransactionStrategy {
      * If the account is invalid or not a classic account, an error message is returned.
      */
     public void makeTransaction() {
-        if (account == null) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "Account not found");
-            errorNode.put("timestamp", timestamp);
+        report(command, output, account);
+    }
 
-            node.set("output", errorNode);
-            output.add(node);
+    /**
+     * Writes the spending report of an account, or an error if there is no such account or
+     * it is a savings account. Nothing is kept between two calls, so the dispatcher runs the
+     * command through this method without creating a transaction.
+     *
+     * @param command the command input containing the details of the report.
+     * @param output the output the report is written to.
+     * @param account the account, or {@code null} if it was not found.
+     */
+    public static void report(final CommandInput command, final OutputSink output,
+                              final ClassicAccount account) {
+        if (account == null) {
+            output.add(JsonService.errorResult(command.getCommand(), command.getTimestamp(),
+                    "Account not found"));
 
             return;
         }
         if (account.getType().equals("savings")) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("error", "This kind of report is not supported for a saving account");
-
-            node.set("output", errorNode);
-            output.add(node);
+            output.add(JsonService.errorMessage(command.getCommand(), command.getTimestamp(),
+                    "This kind of report is not supported for a saving account"));
 
             return;
         }
-        ObjectNode node = ReportTransaction.gatherData(command, account);
-        output.add(node);
+        output.write(generator -> ReportTransaction.gatherData(generator, command, account));
     }
 
     /**
@@ -0,0 +1,263 @@
+package org.poo.transactions;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A transaction history that keeps the order in which entries were added, and knows at
+ * every moment whether that order is also sorted by timestamp. While it is, the entries of a
+ * time window are found with two binary searches instead of a scan of the whole history.
+ * Entries must not change their timestamp once they are in the history.
+ *
+ * @param <T> the type of the entries.
+ */
+public final class TimestampIndexedHistory<T extends TransactionStrategy>
+        extends AbstractList<T> implements RandomAccess {
+    private final ArrayList<T> entries;
+    private int descents;
+
+    /**
+     * Constructs an empty history.
+     */
+    public TimestampIndexedHistory() {
+        entries = new ArrayList<>();
+    }
+
+    /**
+     * Retrieves the entry at the given position.
+     *
+     * @param index the position of the entry.
+     * @return the entry.
+     */
+    @Override
+    public T get(final int index) {
+        return entries.get(index);
+    }
+
+    /**
+     * Retrieves the number of entries.
+     *
+     * @return the size of the history.
+     */
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Inserts an entry at the given position, shifting the later entries.
+     *
+     * @param index the position of the new entry.
+     * @param entry the entry to insert.
+     */
+    @Override
+    public void add(final int index, final T entry) {
+        if (index > 0 && index < entries.size()) {
+            descents -= descent(entries.get(index - 1), entries.get(index));
+        }
+        entries.add(index, entry);
+        countAround(index);
+        modCount++;
+    }
+
+    /**
+     * Replaces the entry at the given position.
+     *
+     * @param index the position of the entry.
+     * @param entry the new entry.
+     * @return the entry that was replaced.
+     */
+    @Override
+    public T set(final int index, final T entry) {
+        uncountAround(index);
+        T previous = entries.set(index, entry);
+        countAround(index);
+        return previous;
+    }
+
+    /**
+     * Removes the entry at the given position, shifting the later entries.
+     *
+     * @param index the position of the entry.
+     * @return the removed entry.
+     */
+    @Override
+    public T remove(final int index) {
+        uncountAround(index);
+        T removed = entries.remove(index);
+        if (index > 0 && index < entries.size()) {
+            descents += descent(entries.get(index - 1), entries.get(index));
+        }
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    @Override
+    public void clear() {
+        entries.clear();
+        descents = 0;
+        modCount++;
+    }
+
+    /**
+     * Sorts the entries with a stable sort.
+     *
+     * @param comparator the order of the entries.
+     */
+    @Override
+    public void sort(final Comparator<? super T> comparator) {
+        entries.sort(comparator);
+        descents = 0;
+        for (int i = 1; i < entries.size(); i++) {
+            descents += descent(entries.get(i - 1), entries.get(i));
+        }
+        modCount++;
+    }
+
+    /**
+     * Inserts an entry after every entry whose timestamp is not greater than its own, leaving
+     * the history exactly as appending the entry and then stably sorting by timestamp would.
+     * While the history is in timestamp order, the place is found by searching backwards from
+     * the end in growing steps, so an entry that belongs near the end costs O(log k) to place
+     * and O(k) to shift, where k is the number of entries that end up after it. Otherwise the
+     * entry is appended and the whole history is sorted.
+     *
+     * @param entry the entry to insert.
+     */
+    public void insertInOrder(final T entry) {
+        if (descents != 0) {
+            entries.add(entry);
+            sort(Comparator.comparingInt(TransactionStrategy::getTimestamp));
+            return;
+        }
+        int timestamp = entry.getTimestamp();
+        int high = entries.size();
+        int step = 1;
+        while (high > 0 && entries.get(Math.max(high - step, 0)).getTimestamp() > timestamp) {
+            high = Math.max(high - step, 0);
+            step <<= 1;
+        }
+        int low = Math.max(high - step, 0);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getTimestamp() <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        add(low, entry);
+    }
+
+    /**
+     * Inserts an entry in front of the last few entries of the history.
+     *
+     * @param count how many of the last entries should end up after the new one.
+     * @param entry the entry to insert.
+     */
+    public void addBeforeLast(final int count, final T entry) {
+        add(entries.size() - count, entry);
+    }
+
+    /**
+     * Checks whether the entries are currently in timestamp order.
+     *
+     * @return {@code true} if no entry has a smaller timestamp than the one before it.
+     */
+    public boolean isOrdered() {
+        return descents == 0;
+    }
+
+    /**
+     * Retrieves the entries whose timestamps fall within the given bounds, in the order of the
+     * history. While the history is in timestamp order, this costs O(log n) plus the size of
+     * the window; otherwise the whole history is scanned.
+     *
+     * @param start the first timestamp of the window.
+     * @param end the last timestamp of the window.
+     * @return a read-only list of the entries in the window.
+     */
+    public List<T> window(final int start, final int end) {
+        if (descents != 0) {
+            List<T> selected = new ArrayList<>();
+            for (T entry : entries) {
+                if (entry.getTimestamp() >= start && entry.getTimestamp() <= end) {
+                    selected.add(entry);
+                }
+            }
+            return Collections.unmodifiableList(selected);
+        }
+        if (start > end) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(
+                entries.subList(firstAfter(start - 1L), firstAfter(end)));
+    }
+
+    /**
+     * Finds, in a history in timestamp order, the first entry whose timestamp is greater than
+     * the given one.
+     *
+     * @param timestamp the timestamp to compare with.
+     * @return the position of that entry, or the size of the history if there is none.
+     */
+    private int firstAfter(final long timestamp) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getTimestamp() <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Adds the descents formed by the entry at the given position with its neighbours.
+     *
+     * @param index the position of the entry.
+     */
+    private void countAround(final int index) {
+        if (index > 0) {
+            descents += descent(entries.get(index - 1), entries.get(index));
+        }
+        if (index + 1 < entries.size()) {
+            descents += descent(entries.get(index), entries.get(index + 1));
+        }
+    }
+
+    /**
+     * Removes the descents formed by the entry at the given position with its neighbours.
+     *
+     * @param index the position of the entry.
+     */
+    private void uncountAround(final int index) {
+        if (index > 0) {
+            descents -= descent(entries.get(index - 1), entries.get(index));
+        }
+        if (index + 1 < entries.size()) {
+            descents -= descent(entries.get(index), entries.get(index + 1));
+        }
+    }
+
+    /**
+     * Checks whether two neighbouring entries are out of timestamp order.
+     *
+     * @param before the earlier entry.
+     * @param after the later entry.
+     * @return 1 if the earlier entry has the greater timestamp, 0 otherwise.
+     */
+    private static int descent(final TransactionStrategy before, final TransactionStrategy after) {
+        return before.getTimestamp() > after.getTimestamp() ? 1 : 0;
+    }
+}
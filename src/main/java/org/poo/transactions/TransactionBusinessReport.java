@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.accounts.BusinessAccount;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
 import org.poo.business.Employee;
 import org.poo.business.Manager;
 import org.poo.fileio.CommandInput;
@@ -15,7 +17,7 @@ import java.util.stream.Collectors;
 public class TransactionBusinessReport implements TransactionStrategy {
     private CommandInput command;
     private BusinessAccount account;
-    private ArrayNode output;
+    private OutputSink output;
     private int timestamp;
 
     /**
@@ -26,13 +28,13 @@ public class TransactionBusinessReport implements TransactionStrategy {
      *                as command type, account information, and transaction specifics.
      * @param account the {@code BusinessAccount} object representing the business account
      *                associated with the transaction report.
-     * @param output  the {@code ArrayNode} object that will store the output result
+     * @param output  the {@code OutputSink} object that will store the output result
      *                of the transaction report creation process.
      */
     public TransactionBusinessReport(
             final CommandInput command,
             final BusinessAccount account,
-            final ArrayNode output
+            final OutputSink output
     ) {
         this.command = command;
         this.account = account;
@@ -61,22 +63,27 @@ public class TransactionBusinessReport implements TransactionStrategy {
      */
     @Override
     public void makeTransaction() {
-        if (account == null) {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
-            node.put("command", command.getCommand());
-            node.put("timestamp", timestamp);
-
-            ObjectNode errorNode = mapper.createObjectNode();
-            errorNode.put("description", "Account not found");
-            errorNode.put("timestamp", timestamp);
+        report(command, account, output);
+    }
 
-            node.set("output", errorNode);
-            output.add(node);
+    /**
+     * Writes the transaction report of a business account, or an error if there is no such
+     * account. Nothing is kept between two calls, so the dispatcher runs the command through
+     * this method without creating a transaction.
+     *
+     * @param command the command input containing the details of the report.
+     * @param account the business account, or {@code null} if it was not found.
+     * @param output the output the report is added to.
+     */
+    public static void report(final CommandInput command, final BusinessAccount account,
+                              final OutputSink output) {
+        if (account == null) {
+            output.add(JsonService.errorResult(command.getCommand(), command.getTimestamp(),
+                    "Account not found"));
             return;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = JsonService.mapper();
         ObjectNode node = mapper.createObjectNode();
         node.put("timestamp", command.getTimestamp());
         node.put("command", command.getCommand());
@@ -167,21 +174,21 @@ public class TransactionBusinessReport implements TransactionStrategy {
     }
 
     /**
-     * Retrieves the output as an {@code ArrayNode}.
+     * Retrieves the output as an {@code OutputSink}.
      *
-     * @return the output represented as an {@code ArrayNode}.
+     * @return the output represented as an {@code OutputSink}.
      */
-    public ArrayNode getOutput() {
+    public OutputSink getOutput() {
         return output;
     }
 
     /**
      * Updates the output of the transaction business report.
      *
-     * @param output the new {@code ArrayNode} to set as the output of the transaction
+     * @param output the new {@code OutputSink} to set as the output of the transaction
      *               business report.
      */
-    public void setOutput(final ArrayNode output) {
+    public void setOutput(final OutputSink output) {
         this.output = output;
     }
 
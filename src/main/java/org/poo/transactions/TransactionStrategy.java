@@ -1,12 +1,18 @@
 package org.poo.transactions;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.app.JsonService;
+import org.poo.app.JsonWritable;
+
+import java.io.IOException;
+
 /**
  * The {@code TransactionStrategy} interface defines the contract for different types of
  * transactions in a banking system.
  * It requires the implementation of methods to perform a transaction and retrieve
  * the timestamp of the transaction.
  */
-public interface TransactionStrategy {
+public interface TransactionStrategy extends JsonWritable {
     /**
      * Executes the transaction logic. This method should contain the steps to
      * process the transaction based on the specific implementation.
@@ -21,4 +27,17 @@ public interface TransactionStrategy {
      * @return the timestamp of the transaction.
      */
     int getTimestamp();
+
+    /**
+     * Writes the transaction as an entry of a transaction history. By default the
+     * entry goes through the bean serializer of the shared mapper; the transactions that
+     * are recorded in a history override this to write their fields directly.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    default void writeTo(final JsonGenerator generator) throws IOException {
+        JsonService.streamWriter().writeValue(generator, this);
+    }
 }
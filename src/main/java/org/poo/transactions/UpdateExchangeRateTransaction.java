@@ -0,0 +1,65 @@
+package org.poo.transactions;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.poo.app.JsonService;
+import org.poo.app.OutputSink;
+import org.poo.exchangeRates.Bnr;
+import org.poo.fileio.CommandInput;
+
+public class UpdateExchangeRateTransaction implements TransactionStrategy {
+    private int timestamp;
+
+    @JsonIgnore
+    private CommandInput command;
+    @JsonIgnore
+    private Bnr bank;
+    @JsonIgnore
+    private OutputSink output;
+
+    /**
+     * Constructs a new {@code UpdateExchangeRateTransaction} based on the given command.
+     *
+     * @param command the command input containing the two currencies and their new rate.
+     * @param bank the bank that publishes the exchange rates.
+     * @param output the output where an invalid rate is reported.
+     */
+    public UpdateExchangeRateTransaction(final CommandInput command, final Bnr bank,
+                                         final OutputSink output) {
+        this.command = command;
+        this.bank = bank;
+        this.output = output;
+        timestamp = command.getTimestamp();
+    }
+
+    /**
+     * Executes the transaction by publishing the new rate, which applies to every
+     * conversion made from this timestamp on. A rate that is missing a currency or is not
+     * positive is reported as an error and changes nothing.
+     */
+    public void makeTransaction() {
+        if (command.getFrom() == null || command.getTo() == null || command.getRate() <= 0) {
+            output.add(JsonService.errorResult(command.getCommand(), timestamp,
+                    "Invalid exchange rate"));
+            return;
+        }
+        bank.updateExchangeRate(command.getFrom(), command.getTo(), command.getRate(), timestamp);
+    }
+
+    /**
+     * Gets the timestamp of the transaction.
+     *
+     * @return the timestamp of the transaction.
+     */
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the timestamp for the transaction.
+     *
+     * @param timestamp the timestamp to set.
+     */
+    public void setTimestamp(final int timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -2,20 +2,21 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
 import org.poo.accounts.ClassicAccount;
+import org.poo.app.OutputSink;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
 import org.poo.servicePlan.Plan;
 import org.poo.servicePlan.PlanFactory;
+import org.poo.servicePlan.PricingRules;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class UpgradePlanTransaction implements TransactionStrategy {
-    private static final int STANDARD_FEE = 100;
-    private static final int SILVER_FEE = 250;
-    private static final int GOLD_FEE = 350;
-
     private String accountIBAN;
     private String description;
     private String newPlanType;
@@ -32,7 +33,9 @@ public class UpgradePlanTransaction implements TransactionStrategy {
     @JsonIgnore
     private Bnr bank;
     @JsonIgnore
-    private ArrayNode output;
+    private PricingRules pricing;
+    @JsonIgnore
+    private OutputSink output;
     @JsonIgnore
     private int automatic;
 
@@ -48,7 +51,8 @@ public class UpgradePlanTransaction implements TransactionStrategy {
      * @param account the {@code ClassicAccount} representing the user's account related to
      *                this transaction
      * @param bank the {@code Bnr} object representing the bank involved in the transaction
-     * @param output the {@code ArrayNode} for processing and storing transaction output information
+     * @param pricing the {@code PricingRules} that set the fee of the upgrade
+     * @param output the {@code OutputSink} for storing transaction output information
      * @param automatic an integer flag to indicate whether the upgrade transaction is automatic
      *                  (non-zero) or manual (zero)
      */
@@ -57,13 +61,15 @@ public class UpgradePlanTransaction implements TransactionStrategy {
             final User user,
             final ClassicAccount account,
             final Bnr bank,
-            final ArrayNode output,
+            final PricingRules pricing,
+            final OutputSink output,
             final int automatic
     ) {
         this.command = command;
         this.user = user;
         this.account = account;
         this.bank = bank;
+        this.pricing = pricing;
         this.output = output;
         this.automatic = automatic;
         this.accountIBAN = command.getAccount();
@@ -118,23 +124,7 @@ public class UpgradePlanTransaction implements TransactionStrategy {
             return;
         }
 
-        int fee = 0;
-        switch (user.getServicePlan().getPlan()) {
-            case "standard", "student":
-                if (newPlanType.equals("silver")) {
-                    fee = STANDARD_FEE;
-                } else if (newPlanType.equals("gold")) {
-                    fee = GOLD_FEE;
-                }
-                break;
-            case "silver":
-                if (newPlanType.equals("gold")) {
-                    fee = SILVER_FEE;
-                }
-                break;
-            default:
-                break;
-        }
+        int fee = pricing.upgradeFee(user.getServicePlan().getId(), newPlan.getId());
 
         double amount;
         if (!account.getCurrency().equals("RON")) {
@@ -144,22 +134,50 @@ public class UpgradePlanTransaction implements TransactionStrategy {
             amount = fee;
         }
 
-        if (account.getBalance() - amount < account.getMinBalance()) {
-            description = "Insufficient funds";
-            accountIBAN = null;
-            newPlanType = null;
-        } else {
-            if (automatic == 0) {
-                account.setBalance(account.getBalance() - amount);
+        AccountLocks.Held held = AccountLocks.lockAll(account);
+        try {
+            if (account.getBalance() - amount < account.getMinBalance()) {
+                description = "Insufficient funds";
+                accountIBAN = null;
+                newPlanType = null;
+            } else {
+                if (automatic == 0) {
+                    account.setBalance(account.getBalance() - amount);
+                }
+                user.setServicePlan(newPlan);
+                description = "Upgrade plan";
             }
-            user.setServicePlan(newPlan);
-            description = "Upgrade plan";
+        } finally {
+            held.close();
         }
 
         user.getTransactions().add(this);
         account.getTransactions().add(this);
     }
 
+    /**
+     * Writes the upgrade as it appears in the transaction history, skipping the fields that
+     * were never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (accountIBAN != null) {
+            generator.writeStringField("accountIBAN", accountIBAN);
+        }
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        if (newPlanType != null) {
+            generator.writeStringField("newPlanType", newPlanType);
+        }
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeEndObject();
+    }
+
     /**
      * Retrieves the International Bank Account Number (IBAN) associated with the account.
      *
@@ -2,11 +2,15 @@ package org.poo.transactions;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
 import org.poo.accounts.ClassicAccount;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
 import org.poo.users.User;
 
+import java.io.IOException;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class WithdrawSavingsTransaction implements TransactionStrategy {
     private int timestamp;
@@ -139,11 +143,16 @@ public class WithdrawSavingsTransaction implements TransactionStrategy {
             withdrawalAmount = command.getAmount();
         }
 
-        if (account.getBalance() - withdrawalAmount < 0) {
-            return;
+        AccountLocks.Held held = AccountLocks.lockAll(account, classicAccount);
+        try {
+            if (account.getBalance() - withdrawalAmount < 0) {
+                return;
+            }
+            account.setBalance(account.getBalance() - withdrawalAmount);
+            classicAccount.credit(command.getAmount());
+        } finally {
+            held.close();
         }
-        account.setBalance(account.getBalance() - withdrawalAmount);
-        classicAccount.setBalance(classicAccount.getBalance() + command.getAmount());
         description = "Savings withdrawal";
         this.amount = withdrawalAmount;
         classicAccountIBAN = classicAccount.getIban();
@@ -152,6 +161,32 @@ public class WithdrawSavingsTransaction implements TransactionStrategy {
         currentUser.getTransactions().add(this);
     }
 
+    /**
+     * Writes the savings withdrawal as it appears in the transaction history, skipping the
+     * fields that were never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("timestamp", timestamp);
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        if (classicAccountIBAN != null) {
+            generator.writeStringField("classicAccountIBAN", classicAccountIBAN);
+        }
+        if (savingsAccountIBAN != null) {
+            generator.writeStringField("savingsAccountIBAN", savingsAccountIBAN);
+        }
+        if (amount != null) {
+            generator.writeNumberField("amount", amount);
+        }
+        generator.writeEndObject();
+    }
+
     /**
      * Retrieves the timestamp representing when the transaction occurred.
      *
@@ -0,0 +1,163 @@
+package org.poo.transactions.split_payment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the split payments that still wait for answers, in one first-in first-out queue per
+ * user and split type. A user that takes part with several accounts is queued once for each
+ * of them. Finding the oldest split of a type and dropping a user's oldest entry of a split
+ * both take constant time.
+ */
+public final class PendingSplitRegistry {
+    private final Map<String, Map<String, Queue>> queues;
+    private final Map<SplitPaymentTransaction, Map<String, ArrayDeque<Node>>> handles;
+
+    private static final class Node {
+        private final SplitPaymentTransaction split;
+        private Node previous;
+        private Node next;
+
+        /**
+         * Constructs the entry of a split in a queue.
+         *
+         * @param split the split payment.
+         */
+        private Node(final SplitPaymentTransaction split) {
+            this.split = split;
+        }
+    }
+
+    private static final class Queue {
+        private Node first;
+        private Node last;
+
+        /**
+         * Appends an entry at the end of the queue.
+         *
+         * @param node the entry.
+         */
+        private void append(final Node node) {
+            node.previous = last;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        /**
+         * Takes an entry out of the queue, wherever it is.
+         *
+         * @param node the entry.
+         */
+        private void unlink(final Node node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+    }
+
+    /**
+     * Constructs an empty registry.
+     */
+    public PendingSplitRegistry() {
+        queues = new HashMap<>();
+        handles = new IdentityHashMap<>();
+    }
+
+    /**
+     * Queues a split payment for one of the users taking part in it.
+     *
+     * @param email the email of the user.
+     * @param split the split payment.
+     */
+    public void add(final String email, final SplitPaymentTransaction split) {
+        Node node = new Node(split);
+        queues.computeIfAbsent(email, key -> new HashMap<>())
+                .computeIfAbsent(split.getSplitPaymentType(), key -> new Queue())
+                .append(node);
+        handles.computeIfAbsent(split, key -> new HashMap<>())
+                .computeIfAbsent(email, key -> new ArrayDeque<>())
+                .addLast(node);
+    }
+
+    /**
+     * Finds the oldest split payment of a type that still waits for the answer of a user.
+     *
+     * @param email the email of the user.
+     * @param type the type of the split payment.
+     * @return the split payment, or {@code null} if there is none.
+     */
+    public SplitPaymentTransaction first(final String email, final String type) {
+        Map<String, Queue> byType = queues.get(email);
+        if (byType == null) {
+            return null;
+        }
+        Queue queue = byType.get(type);
+        return queue == null || queue.first == null ? null : queue.first.split;
+    }
+
+    /**
+     * Drops the oldest entry of a split payment from the queue of a user. Nothing happens if
+     * the user has no entry of that split left.
+     *
+     * @param email the email of the user.
+     * @param split the split payment.
+     */
+    public void removeFirst(final String email, final SplitPaymentTransaction split) {
+        Map<String, ArrayDeque<Node>> byUser = handles.get(split);
+        if (byUser == null) {
+            return;
+        }
+        ArrayDeque<Node> nodes = byUser.get(email);
+        if (nodes == null) {
+            return;
+        }
+        Node node = nodes.pollFirst();
+        queues.get(email).get(split.getSplitPaymentType()).unlink(node);
+        if (nodes.isEmpty()) {
+            byUser.remove(email);
+            if (byUser.isEmpty()) {
+                handles.remove(split);
+            }
+        }
+    }
+
+    /**
+     * Lists the queued entries of every user, each queue from its oldest entry. Adding them
+     * back in this order to an empty registry rebuilds the same queues.
+     *
+     * @return the split payments queued for each user, by email.
+     */
+    public Map<String, List<SplitPaymentTransaction>> snapshot() {
+        Map<String, List<SplitPaymentTransaction>> queued = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Queue>> byUser : queues.entrySet()) {
+            List<SplitPaymentTransaction> splits = new ArrayList<>();
+            for (Queue queue : byUser.getValue().values()) {
+                for (Node node = queue.first; node != null; node = node.next) {
+                    splits.add(node.split);
+                }
+            }
+            if (!splits.isEmpty()) {
+                queued.put(byUser.getKey(), splits);
+            }
+        }
+        return queued;
+    }
+}
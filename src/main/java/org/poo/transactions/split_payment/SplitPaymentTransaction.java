@@ -2,11 +2,15 @@ package org.poo.transactions.split_payment;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.accounts.AccountLocks;
+import org.poo.accounts.ClassicAccount;
 import org.poo.app.Finder;
 import org.poo.exchangeRates.Bnr;
 import org.poo.fileio.CommandInput;
 import org.poo.transactions.TransactionStrategy;
 
+import java.io.IOException;
 import java.util.*;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -17,8 +21,9 @@ public class SplitPaymentTransaction implements TransactionStrategy {
     private ArrayList<String> involvedAccounts;
     private String error;
     private String splitPaymentType;
-    private List<Double> amountForUsers;
-    private Double amount;
+    private double[] amountForUsers;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private double amount;
 
     @JsonIgnore
     private CommandInput command;
@@ -31,7 +36,11 @@ public class SplitPaymentTransaction implements TransactionStrategy {
     @JsonIgnore
     private Map<String, Boolean> approvals;
     @JsonIgnore
+    private int outstandingApprovals;
+    @JsonIgnore
     private int waiting;
+    @JsonIgnore
+    private PendingSplitRegistry pendingSplits;
 
     /**
      * Constructs a new {@code SplitPaymentTransaction} with the given command input,
@@ -40,24 +49,27 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      * @param command the command input containing the transaction details.
      * @param finders the list of finders representing accounts and users involved in the split.
      * @param bank the bank used for exchange rates.
+     * @param pendingSplits the registry in which the split waits for the answers of the users.
      */
     public SplitPaymentTransaction(
             final CommandInput command,
             final ArrayList<Finder> finders,
-            final Bnr bank
+            final Bnr bank,
+            final PendingSplitRegistry pendingSplits
     ) {
         this.command = command;
         this.finders = finders;
         this.bank = bank;
+        this.pendingSplits = pendingSplits;
         error = null;
         this.timestamp = command.getTimestamp();
         this.splitPaymentType = command.getSplitPaymentType();
-        this.amountForUsers = new ArrayList<>();
         this.involvedAccounts = new ArrayList<>();
         this.approvals = new HashMap<>();
         for (int i = 0; i < command.getAccounts().size(); i++) {
             approvals.put(finders.get(i).getUser().getEmail(), false);
         }
+        outstandingApprovals = approvals.size();
         waiting = 1;
         everythingOk = true;
     }
@@ -70,7 +82,7 @@ public class SplitPaymentTransaction implements TransactionStrategy {
     public void makeTransaction() {
         if (waiting == 1) {
             for (Finder finder : finders) {
-                finder.getUser().getActiveTransactions().addLast(this);
+                pendingSplits.add(finder.getUser().getEmail(), this);
             }
         } else {
             currency = command.getCurrency();
@@ -79,9 +91,8 @@ public class SplitPaymentTransaction implements TransactionStrategy {
             involvedAccounts.addAll(command.getAccounts());
 
             if (splitPaymentType.equals("equal")) {
-                for (int i = 0; i < finders.size(); i++) {
-                    amountForUsers.add(command.getAmount() / finders.size());
-                }
+                amountForUsers = new double[finders.size()];
+                Arrays.fill(amountForUsers, command.getAmount() / finders.size());
             } else {
                 amountForUsers = command.getAmountForUsers();
             }
@@ -91,36 +102,82 @@ public class SplitPaymentTransaction implements TransactionStrategy {
                 for (Finder finder : finders) {
                     error = "One user rejected the payment.";
                     finder.getUser().getTransactions().add(this);
-                    finder.getUser().getActiveTransactions().remove(this);
+                    pendingSplits.removeFirst(finder.getUser().getEmail(), this);
                     finder.getAccount().getTransactions().add(this);
                 }
                 return;
             }
 
-            checkAccounts(finders, amountForUsers);
-
-            if (everythingOk) {
-                for (int i = 0; i < finders.size(); i++) {
-                    double actualAmount = convertAmount(amountForUsers.get(i), finders.get(i));
-                    finders.get(i).getAccount().setBalance(finders.get(i)
-                            .getAccount().getBalance() - actualAmount);
-
-                    finders.get(i).getUser().getTransactions().add(this);
-                    finders.get(i).getUser().getTransactions()
-                            .sort(Comparator.comparingInt(TransactionStrategy::getTimestamp));
-
-                    finders.get(i).getAccount().getTransactions().add(this);
-                    finders.get(i).getAccount().getTransactions()
-                            .sort(Comparator.comparingInt(TransactionStrategy::getTimestamp));
-                }
-                if (splitPaymentType.equals("equal")) {
-                    amount = command.getAmount() / finders.size();
-                    amountForUsers = null;
-                } else {
-                    amount = null;
+            ClassicAccount[] accounts = new ClassicAccount[finders.size()];
+            for (int i = 0; i < finders.size(); i++) {
+                accounts[i] = finders.get(i).getAccount();
+            }
+            AccountLocks.Held held = AccountLocks.lockAll(accounts);
+            try {
+                checkAccounts(finders, amountForUsers);
+
+                if (everythingOk) {
+                    for (int i = 0; i < finders.size(); i++) {
+                        double actualAmount = convertAmount(amountForUsers[i],
+                                finders.get(i));
+                        finders.get(i).getAccount().setBalance(finders.get(i)
+                                .getAccount().getBalance() - actualAmount);
+
+                        finders.get(i).getUser().getTransactions().insertInOrder(this);
+                        finders.get(i).getAccount().getTransactions().insertInOrder(this);
+                    }
+                    if (splitPaymentType.equals("equal")) {
+                        amount = command.getAmount() / finders.size();
+                        amountForUsers = null;
+                    }
                 }
+            } finally {
+                held.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the split payment as it appears in the history of every involved user,
+     * skipping the fields that were never set.
+     *
+     * @param generator the generator to write to.
+     * @throws IOException if the entry cannot be written.
+     */
+    @Override
+    public void writeTo(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        generator.writeNumberField("timestamp", timestamp);
+        if (currency != null) {
+            generator.writeStringField("currency", currency);
+        }
+        if (involvedAccounts != null) {
+            generator.writeArrayFieldStart("involvedAccounts");
+            for (String element : involvedAccounts) {
+                generator.writeString(element);
             }
+            generator.writeEndArray();
+        }
+        if (error != null) {
+            generator.writeStringField("error", error);
+        }
+        if (splitPaymentType != null) {
+            generator.writeStringField("splitPaymentType", splitPaymentType);
+        }
+        if (amountForUsers != null) {
+            generator.writeArrayFieldStart("amountForUsers");
+            for (double element : amountForUsers) {
+                generator.writeNumber(element);
+            }
+            generator.writeEndArray();
+        }
+        if (amount != 0.0) {
+            generator.writeNumberField("amount", amount);
         }
+        generator.writeEndObject();
     }
 
     /**
@@ -131,13 +188,13 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      * @param list the list of finders representing the involved accounts.
      */
     private void checkAccounts(final ArrayList<Finder> list,
-                               final List<Double> amountList) {
+                               final double[] amountList) {
         everythingOk = true;
         for (int i = 0; i < list.size(); i++) {
             if (list.get(i).getUser() == null || list.get(i).getAccount() == null) {
                 everythingOk = false;
             }
-            double convertedAmount = convertAmount(amountList.get(i), list.get(i));
+            double convertedAmount = convertAmount(amountList[i], list.get(i));
             if (Double.compare(list.get(i).getAccount().getBalance(), convertedAmount) < 0) {
                 error = "Account " + list.get(i).getAccount().getIban()
                         + " has insufficient funds for a split payment.";
@@ -145,8 +202,6 @@ public class SplitPaymentTransaction implements TransactionStrategy {
                 if (splitPaymentType.equals("equal")) {
                     this.amount = command.getAmount() / list.size();
                     this.amountForUsers = null;
-                } else {
-                    this.amount = null;
                 }
                 break;
             }
@@ -167,13 +222,8 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      */
     private void addToAll(final ArrayList<Finder> list) {
         for (int i = 0; i < list.size(); i++) {
-            list.get(i).getUser().getTransactions().add(this);
-            list.get(i).getUser().getTransactions()
-                    .sort(Comparator.comparingInt(TransactionStrategy::getTimestamp));
-
-            list.get(i).getAccount().getTransactions().add(this);
-            list.get(i).getAccount().getTransactions()
-                    .sort(Comparator.comparingInt(TransactionStrategy::getTimestamp));
+            list.get(i).getUser().getTransactions().insertInOrder(this);
+            list.get(i).getAccount().getTransactions().insertInOrder(this);
         }
     }
 
@@ -184,7 +234,7 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      * @param finder the specific finder for which the amount is being converted.
      * @return the converted amount for the given finder.
      */
-    private double convertAmount(final Double givenAmount, final Finder finder) {
+    private double convertAmount(final double givenAmount, final Finder finder) {
         double convertedAmount;
         if (!command.getCurrency().equals(finder.getAccount().getCurrency())) {
             double exchangeRate = bank.getExchangeRate(command.getCurrency(),
@@ -198,16 +248,16 @@ public class SplitPaymentTransaction implements TransactionStrategy {
 
     /**
      * Checks if all users involved in the split payment transaction have approved it.
-     * If all users have approved, removes the current transaction from their active
-     * transactions list.
+     * If all users have approved, removes the current transaction from their pending
+     * split payments.
      *
      * @return {@code true} if all users have approved the transaction,
      * otherwise {@code false}.
      */
     private boolean allUsersApproved() {
-        if (approvals.values().stream().allMatch(t -> t)) {
+        if (outstandingApprovals == 0) {
             for (Finder finder : finders) {
-                finder.getUser().getActiveTransactions().remove(this);
+                pendingSplits.removeFirst(finder.getUser().getEmail(), this);
             }
             return true;
         }
@@ -216,21 +266,17 @@ public class SplitPaymentTransaction implements TransactionStrategy {
 
     /**
      * Approves the user identified by the given email for the current split payment transaction.
-     * If the user is successfully approved, their active transactions are updated.
+     * If the user is successfully approved, their pending split payments are updated.
      * Once all users are approved, the waiting flag is reset, and the transaction is executed.
      *
      * @param email the email address of the user to be approved
      */
     public void approveUser(final String email) {
         if (approvals.containsKey(email)) {
-            approvals.put(email, true);
-            int i;
-            for (i = 0; i < finders.size(); i++) {
-                if (finders.get(i).getUser().getEmail().equals(email)) {
-                    break;
-                }
+            if (!approvals.put(email, true)) {
+                outstandingApprovals--;
             }
-            finders.get(i).getUser().getActiveTransactions().remove(this);
+            pendingSplits.removeFirst(email, this);
         }
 
         if (allUsersApproved()) {
@@ -248,13 +294,56 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      */
     public void rejectUser(final String email) {
         if (approvals.containsKey(email)) {
-            approvals.put(email, false);
+            if (approvals.put(email, false)) {
+                outstandingApprovals++;
+            }
             everythingOk = false;
             waiting = 0;
             this.makeTransaction();
         }
     }
 
+    /**
+     * Marks a user as having already accepted the split payment, without touching the
+     * queues, as when a split that was still waiting is restored.
+     *
+     * @param email the email address of the user.
+     */
+    public void restoreApproval(final String email) {
+        if (approvals.containsKey(email) && !approvals.put(email, true)) {
+            outstandingApprovals--;
+        }
+    }
+
+    /**
+     * Gets the command the split payment was created from.
+     *
+     * @return the command input.
+     */
+    public CommandInput getCommand() {
+        return command;
+    }
+
+    /**
+     * Gets the users and accounts taking part in the split payment, in the order of the
+     * accounts of the command.
+     *
+     * @return the finders of the involved accounts.
+     */
+    public List<Finder> getFinders() {
+        return Collections.unmodifiableList(finders);
+    }
+
+    /**
+     * Gets the answers given so far, by email.
+     *
+     * @return a read-only view of the approvals; users that did not accept yet map to
+     * {@code false}.
+     */
+    public Map<String, Boolean> getApprovals() {
+        return Collections.unmodifiableMap(approvals);
+    }
+
     /**
      * Gets the description of the transaction.
      *
@@ -294,9 +383,9 @@ public class SplitPaymentTransaction implements TransactionStrategy {
     /**
      * Gets the amount involved in the transaction.
      *
-     * @return the amount of the transaction.
+     * @return the amount of each user in an equal split, or 0 if it is not known yet.
      */
-    public Double getAmount() {
+    public double getAmount() {
         return amount;
     }
 
@@ -305,7 +394,7 @@ public class SplitPaymentTransaction implements TransactionStrategy {
      *
      * @param amount the amount to set.
      */
-    public void setAmount(final Double amount) {
+    public void setAmount(final double amount) {
         this.amount = amount;
     }
 
@@ -382,22 +471,21 @@ public class SplitPaymentTransaction implements TransactionStrategy {
     }
 
     /**
-     * Retrieves the list of amounts allocated to the users involved in the transaction.
+     * Retrieves the amounts allocated to the users involved in the transaction.
      *
-     * @return a list of {@code Double} values representing the amounts for each user
-     * in the transaction.
+     * @return the amount of each user in the transaction, in the order of the accounts.
      */
-    public List<Double> getAmountForUsers() {
+    public double[] getAmountForUsers() {
         return amountForUsers;
     }
 
     /**
-     * Sets the list of amounts to be split among users involved in the transaction.
-     * Each value in the list represents the amount assigned to a corresponding user.
+     * Sets the amounts to be split among users involved in the transaction.
+     * Each value represents the amount assigned to a corresponding user.
      *
-     * @param amountForUsers the list of amounts to set for each user.
+     * @param amountForUsers the amounts to set for each user.
      */
-    public void setAmountForUsers(final List<Double> amountForUsers) {
+    public void setAmountForUsers(final double[] amountForUsers) {
         this.amountForUsers = amountForUsers;
     }
 }
@@ -6,11 +6,10 @@ import org.poo.fileio.UserInput;
 import org.poo.servicePlan.Plan;
 import org.poo.servicePlan.StandardPlan;
 import org.poo.servicePlan.StudentPlan;
+import org.poo.transactions.TimestampIndexedHistory;
 import org.poo.transactions.TransactionStrategy;
-import org.poo.transactions.split_payment.SplitPaymentTransaction;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 public class User {
     private String firstName;
@@ -19,7 +18,7 @@ public class User {
     private ArrayList<ClassicAccount> accounts;
 
     @JsonIgnore
-    private ArrayList<TransactionStrategy> transactions;
+    private TimestampIndexedHistory<TransactionStrategy> transactions;
     @JsonIgnore
     private String birthDate;
     @JsonIgnore
@@ -29,8 +28,6 @@ public class User {
     @JsonIgnore
     private Plan servicePlan;
     @JsonIgnore
-    private LinkedList<SplitPaymentTransaction> activeTransactions;
-    @JsonIgnore
     private int bigTransactions;
 
     /**
@@ -45,8 +42,7 @@ public class User {
         this.birthDate = other.getBirthDate();
         this.occupation = other.getOccupation();
         accounts = new ArrayList<>();
-        transactions = new ArrayList<>();
-        activeTransactions = new LinkedList<>();
+        transactions = new TimestampIndexedHistory<>();
         bigTransactions = 0;
 
         if (other.getOccupation().equals("student")) {
@@ -133,7 +129,7 @@ public class User {
      *
      * @return the list of transactions performed by the user
      */
-    public ArrayList<TransactionStrategy> getTransactions() {
+    public TimestampIndexedHistory<TransactionStrategy> getTransactions() {
         return transactions;
     }
 
@@ -142,7 +138,8 @@ public class User {
      *
      * @param transactions the list of transactions to set for the user
      */
-    public void setTransactions(final ArrayList<TransactionStrategy> transactions) {
+    public void setTransactions(
+            final TimestampIndexedHistory<TransactionStrategy> transactions) {
         this.transactions = transactions;
     }
 
@@ -218,15 +215,6 @@ public class User {
         this.servicePlan = servicePlan;
     }
 
-    /**
-     * Retrieves the list of active split-payment transactions associated with the user.
-     *
-     * @return a {@code LinkedList} containing {@code SplitPaymentTransaction} objects that represent the active transactions.
-     */
-    public LinkedList<SplitPaymentTransaction> getActiveTransactions() {
-        return activeTransactions;
-    }
-
     /**
      * Returns the number of big transactions associated with the user.
      *
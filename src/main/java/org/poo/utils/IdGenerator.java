@@ -0,0 +1,147 @@
+package org.poo.utils;
+
+import java.util.Random;
+
+public final class IdGenerator {
+    private static final int IBAN_SEED = 1;
+    private static final int CARD_SEED = 2;
+    private static final int DIGIT_BOUND = 10;
+    private static final int DIGIT_GENERATION = 16;
+    private static final String RO_STR = "RO";
+    private static final String POO_STR = "POOB";
+
+    private final SteppedRandom ibanRandom;
+    private final SteppedRandom cardRandom;
+
+    /**
+     * A {@code Random} that counts how many values it has drawn, so its position in the
+     * sequence can be saved and later reached again without drawing every value.
+     */
+    private static final class SteppedRandom extends Random {
+        private static final long serialVersionUID = 1L;
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final int SEED_BITS = 48;
+        private static final long MASK = (1L << SEED_BITS) - 1;
+
+        private final long initialSeed;
+        private long steps;
+
+        /**
+         * Constructs a generator at the start of the sequence of a seed.
+         *
+         * @param seed the seed of the sequence.
+         */
+        private SteppedRandom(final long seed) {
+            super(seed);
+            initialSeed = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        /**
+         * Draws the next value of the sequence and counts it.
+         *
+         * @param bits the number of random bits.
+         * @return the value.
+         */
+        @Override
+        protected int next(final int bits) {
+            steps++;
+            return super.next(bits);
+        }
+
+        /**
+         * Moves the generator to the given position of its sequence. The linear congruential
+         * step is applied {@code position} times by squaring it, in O(log position).
+         *
+         * @param position the number of values drawn since the start of the sequence.
+         */
+        private void skipTo(final long position) {
+            long multiplier = 1;
+            long addend = 0;
+            long stepMultiplier = MULTIPLIER;
+            long stepAddend = ADDEND;
+            for (long left = position; left > 0; left >>>= 1) {
+                if ((left & 1) != 0) {
+                    multiplier = (multiplier * stepMultiplier) & MASK;
+                    addend = (addend * stepMultiplier + stepAddend) & MASK;
+                }
+                stepAddend = (stepAddend * (stepMultiplier + 1)) & MASK;
+                stepMultiplier = (stepMultiplier * stepMultiplier) & MASK;
+            }
+            setSeed(((multiplier * initialSeed + addend) & MASK) ^ MULTIPLIER);
+            steps = position;
+        }
+    }
+
+    /**
+     * Constructs a generator at the start of its IBAN and card number sequences. Every
+     * generator produces the same sequences, so each run gets its own.
+     */
+    public IdGenerator() {
+        ibanRandom = new SteppedRandom(IBAN_SEED);
+        cardRandom = new SteppedRandom(CARD_SEED);
+    }
+
+    /**
+     * Retrieves how far the IBAN sequence has advanced.
+     *
+     * @return the number of values drawn for IBANs so far.
+     */
+    public long getIbanPosition() {
+        return ibanRandom.steps;
+    }
+
+    /**
+     * Retrieves how far the card number sequence has advanced.
+     *
+     * @return the number of values drawn for card numbers so far.
+     */
+    public long getCardPosition() {
+        return cardRandom.steps;
+    }
+
+    /**
+     * Moves both sequences to saved positions, so the next IBANs and card numbers are the
+     * ones the saved run would have generated.
+     *
+     * @param ibanPosition the position of the IBAN sequence.
+     * @param cardPosition the position of the card number sequence.
+     */
+    public void restorePositions(final long ibanPosition, final long cardPosition) {
+        ibanRandom.skipTo(ibanPosition);
+        cardRandom.skipTo(cardPosition);
+    }
+
+    /**
+     * Generates the next IBAN code of the sequence.
+     *
+     * @return the IBAN as String
+     */
+    public String generateIBAN() {
+        StringBuilder sb = new StringBuilder(RO_STR);
+        for (int i = 0; i < RO_STR.length(); i++) {
+            sb.append(ibanRandom.nextInt(DIGIT_BOUND));
+        }
+
+        sb.append(POO_STR);
+        for (int i = 0; i < DIGIT_GENERATION; i++) {
+            sb.append(ibanRandom.nextInt(DIGIT_BOUND));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Generates the next card number of the sequence.
+     *
+     * @return the card number as String
+     */
+    public String generateCardNumber() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DIGIT_GENERATION; i++) {
+            sb.append(cardRandom.nextInt(DIGIT_BOUND));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.poo.app;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ObjectInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a restored snapshot behaves like the run it was taken from. Every test input
+ * is run whole, and once more split at the middle of its commands: the first half is saved
+ * to a snapshot, and a fresh manager restores it and runs the second half. The second half
+ * must print exactly what the whole run printed after its first half.
+ */
+class SnapshotTest {
+    @TempDir
+    private Path directory;
+
+    /**
+     * Lists the test inputs.
+     *
+     * @return the input files, sorted by name.
+     */
+    static Stream<File> inputs() {
+        File[] files = Objects.requireNonNull(new File(CheckerConstants.TESTS_PATH).listFiles());
+        Arrays.sort(files);
+        return Arrays.stream(files);
+    }
+
+    /**
+     * Runs an input whole, and split in two around a snapshot, and compares the results of
+     * its second half.
+     *
+     * @param input the input file.
+     * @throws IOException if the input or the snapshot cannot be read or written.
+     */
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void restoredRunPrintsTheSameResults(final File input) throws IOException {
+        MemoryOutputSink whole = new MemoryOutputSink();
+        new AppManager(new ExecutionContext(whole)).start(read(input));
+
+        ObjectInput firstHalf = read(input);
+        int length = firstHalf.getCommands().length;
+        int middle = length / 2;
+        firstHalf.setCommands(Arrays.copyOfRange(firstHalf.getCommands(), 0, middle));
+        MemoryOutputSink first = new MemoryOutputSink();
+        AppManager replayed = new AppManager(new ExecutionContext(first));
+        replayed.start(firstHalf);
+        Path snapshot = directory.resolve(input.getName() + ".snapshot");
+        replayed.checkpoint(snapshot);
+
+        ObjectInput secondHalf = read(input);
+        secondHalf.setCommands(Arrays.copyOfRange(secondHalf.getCommands(), middle, length));
+        MemoryOutputSink second = new MemoryOutputSink();
+        AppManager restored = new AppManager(new ExecutionContext(second));
+        restored.restore(snapshot);
+        restored.resume(secondHalf);
+
+        ArrayNode expected = JsonService.mapper().createArrayNode();
+        ArrayNode results = whole.getResults();
+        for (int i = first.getResults().size(); i < results.size(); i++) {
+            expected.add(results.get(i));
+        }
+        assertEquals(expected, second.getResults());
+    }
+
+    /**
+     * Reads an input file, with commands of its own, since commands are not reused.
+     *
+     * @param input the input file.
+     * @return the parsed input.
+     * @throws IOException if the file cannot be read.
+     */
+    private static ObjectInput read(final File input) throws IOException {
+        return JsonService.mapper().readValue(input, ObjectInput.class);
+    }
+}
@@ -0,0 +1,53 @@
+package org.poo.commerciants;
+
+import org.junit.jupiter.api.Test;
+import org.poo.accounts.AccountLocks;
+import org.poo.accounts.ClassicAccount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the per-account counters of a commerciant.
+ */
+class TransactionCountsTest {
+    private static final int ACCOUNTS = 1000;
+    private static final int FAR_ID = 5_000_000;
+    private static final int CYCLE = 3;
+
+    /**
+     * Counts stay apart while the table grows, and accounts never counted read as 0.
+     */
+    @Test
+    void countsSurviveGrowth() {
+        TransactionCounts counts = new TransactionCounts();
+        for (int id = 0; id < ACCOUNTS; id++) {
+            for (int i = 0; i <= id % CYCLE; i++) {
+                counts.increment(id);
+            }
+        }
+        assertEquals(1, counts.increment(FAR_ID));
+
+        assertEquals(ACCOUNTS + 1, counts.size());
+        for (int id = 0; id < ACCOUNTS; id++) {
+            assertEquals(id % CYCLE + 1, counts.get(id));
+        }
+        assertEquals(1, counts.get(FAR_ID));
+        assertEquals(0, counts.get(ACCOUNTS));
+    }
+
+    /**
+     * An account that was never registered in the bank has no id to be counted under.
+     */
+    @Test
+    void unregisteredAccountIsRejected() {
+        Seller seller = new Seller("Zara", "Clothes", "nrOfTransactions",
+                new NumberOfTransactionsCashback());
+        ClassicAccount account = new ClassicAccount("RO00POOB", "RON", "classic",
+                new AccountLocks());
+
+        assertThrows(IllegalArgumentException.class, () -> seller.countTransaction(account));
+        assertThrows(IllegalArgumentException.class,
+                () -> seller.getNumberOfTransactions(account));
+    }
+}
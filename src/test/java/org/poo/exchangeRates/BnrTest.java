@@ -0,0 +1,96 @@
+package org.poo.exchangeRates;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the conversions made as of a past timestamp, after the rates were updated. The bank
+ * starts with EUR to USD at 0.9 and EUR to RON at 4.2, so USD and RON only meet through EUR.
+ */
+class BnrTest {
+    private static final double DELTA = 1e-9;
+    private static final double EUR_USD = 0.9;
+    private static final double EUR_RON = 4.2;
+    private static final double NEW_EUR_RON = 5.0;
+    private static final double USD_RON = 4.5;
+    private static final int BEFORE = 5;
+    private static final int UPDATE = 10;
+    private static final int BETWEEN = 15;
+    private static final int NEW_PAIR = 20;
+    private static final int LATER = 30;
+
+    private Bnr bank;
+
+    /**
+     * Sets up the bank with the two base rates.
+     */
+    @BeforeEach
+    void setUp() {
+        ObjectInput input = new ObjectInput();
+        input.setExchangeRates(new ExchangeInput[] {
+            rate("EUR", "USD", EUR_USD), rate("EUR", "RON", EUR_RON)
+        });
+        bank = new Bnr();
+        bank.setUp(input);
+    }
+
+    /**
+     * An update of an existing pair applies from its timestamp on; earlier moments, and the
+     * conversions derived through the pair, keep the old rate.
+     */
+    @Test
+    void updatedPairKeepsItsEarlierRate() {
+        bank.updateExchangeRate("EUR", "RON", NEW_EUR_RON, UPDATE);
+
+        assertEquals(EUR_RON, bank.getExchangeRate("EUR", "RON", BEFORE), DELTA);
+        assertEquals(NEW_EUR_RON, bank.getExchangeRate("EUR", "RON", UPDATE), DELTA);
+        assertEquals(1 / EUR_RON, bank.getExchangeRate("RON", "EUR", UPDATE - 1), DELTA);
+        assertEquals(EUR_USD / EUR_RON, bank.getExchangeRate("RON", "USD", BEFORE), DELTA);
+        assertEquals(EUR_USD / NEW_EUR_RON, bank.getExchangeRate("RON", "USD", NEW_PAIR), DELTA);
+        assertEquals(EUR_USD / NEW_EUR_RON, bank.getExchangeRate("RON", "USD"), DELTA);
+    }
+
+    /**
+     * A new pair only shortens the conversions made from its timestamp on; before it, they
+     * follow the path the bank knew at that moment.
+     */
+    @Test
+    void newPairIsIgnoredBeforeItExists() {
+        bank.updateExchangeRate("EUR", "RON", NEW_EUR_RON, UPDATE);
+        bank.updateExchangeRate("USD", "RON", USD_RON, NEW_PAIR);
+
+        assertEquals(EUR_RON / EUR_USD, bank.getExchangeRate("USD", "RON", BEFORE), DELTA);
+        assertEquals(NEW_EUR_RON / EUR_USD, bank.getExchangeRate("USD", "RON", BETWEEN), DELTA);
+        assertEquals(USD_RON, bank.getExchangeRate("USD", "RON", NEW_PAIR), DELTA);
+        assertEquals(1 / USD_RON, bank.getExchangeRate("RON", "USD", LATER), DELTA);
+    }
+
+    /**
+     * Unknown currencies have no rate, and a currency converts to itself at 1.
+     */
+    @Test
+    void unknownAndIdenticalCurrencies() {
+        assertEquals(-1, bank.getExchangeRate("EUR", "GBP", 0), DELTA);
+        assertEquals(1.0, bank.getExchangeRate("GBP", "GBP", 0), DELTA);
+    }
+
+    /**
+     * Builds a base rate of the input.
+     *
+     * @param from the source currency.
+     * @param to the target currency.
+     * @param value the rate.
+     * @return the rate.
+     */
+    private static ExchangeInput rate(final String from, final String to, final double value) {
+        ExchangeInput input = new ExchangeInput();
+        input.setFrom(from);
+        input.setTo(to);
+        input.setRate(value);
+        return input;
+    }
+}
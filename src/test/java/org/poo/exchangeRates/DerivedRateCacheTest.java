@@ -0,0 +1,75 @@
+package org.poo.exchangeRates;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks the eviction order of the derived-rate cache and its lookups from several threads.
+ */
+class DerivedRateCacheTest {
+    private static final int CURRENCIES = 4;
+    private static final int THREADS = 4;
+    private static final int LOOKUPS = 100_000;
+
+    /**
+     * A full cache evicts the row that was looked up least recently.
+     */
+    @Test
+    void evictsTheLeastRecentlyUsedRow() {
+        DerivedRateCache cache = new DerivedRateCache(2);
+        cache.reset(CURRENCIES);
+        cache.put(0, new ConversionRow(CURRENCIES));
+        cache.put(1, new ConversionRow(CURRENCIES));
+        assertNotNull(cache.get(0));
+
+        cache.put(2, new ConversionRow(CURRENCIES));
+
+        assertNotNull(cache.peek(0));
+        assertNull(cache.peek(1));
+        assertNotNull(cache.peek(2));
+        assertEquals(2, cache.getSize());
+    }
+
+    /**
+     * Lookups from several threads at once all find the published row and are all counted.
+     *
+     * @throws Exception if a lookup thread fails.
+     */
+    @Test
+    void parallelHitsSeeThePublishedRow() throws Exception {
+        DerivedRateCache cache = new DerivedRateCache(CURRENCIES);
+        cache.reset(CURRENCIES);
+        ConversionRow row = new ConversionRow(CURRENCIES);
+        cache.put(1, row);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ConversionRow>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    ConversionRow found = null;
+                    for (int j = 0; j < LOOKUPS; j++) {
+                        found = cache.get(1);
+                    }
+                    return found;
+                }));
+            }
+            for (Future<ConversionRow> result : results) {
+                assertSame(row, result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals((long) THREADS * LOOKUPS, cache.getHits());
+    }
+}
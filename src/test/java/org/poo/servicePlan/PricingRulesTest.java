@@ -0,0 +1,120 @@
+package org.poo.servicePlan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.commerciants.CommerciantCategory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a pricing file changes only the entries it names, and that inconsistent files
+ * are rejected.
+ */
+class PricingRulesTest {
+    private static final double DELTA = 1e-12;
+    private static final int STANDARD = 1;
+    private static final int STUDENT = 2;
+    private static final int SILVER = 3;
+    private static final int GOLD = 4;
+    private static final double LARGE_AMOUNT = 1000;
+    private static final double SMALL_AMOUNT = 100;
+    private static final int TOP_TIER = 2;
+    private static final double SILVER_COMMISSION = 0.003;
+    private static final double GOLD_TOP_CASHBACK = 0.01;
+    private static final int STANDARD_TO_GOLD_FEE = 400;
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * A file that changes one commission, the top cashback tier of one plan and one fee
+     * leaves every other entry at its default.
+     *
+     * @throws IOException if the file cannot be written or read.
+     */
+    @Test
+    void overrideKeepsTheOtherDefaults() throws IOException {
+        PricingRules rules = PricingRules.load(write("""
+                {
+                  "commissions": {"silver": {"rate": %s}},
+                  "cashback": {"gold": [0.005, 0.0055, %s]},
+                  "upgradeFees": {"standard": {"gold": %d}}
+                }
+                """.formatted(SILVER_COMMISSION, GOLD_TOP_CASHBACK, STANDARD_TO_GOLD_FEE)));
+        PricingRules defaults = PricingRules.defaults();
+
+        assertEquals(SILVER_COMMISSION, rules.commissionRate(SILVER, LARGE_AMOUNT), DELTA);
+        assertEquals(0, rules.commissionRate(SILVER, SMALL_AMOUNT), DELTA);
+        assertEquals(defaults.commissionRate(STANDARD, SMALL_AMOUNT),
+                rules.commissionRate(STANDARD, SMALL_AMOUNT), DELTA);
+
+        assertEquals(GOLD_TOP_CASHBACK, rules.cashbackRate(GOLD, TOP_TIER), DELTA);
+        assertEquals(defaults.cashbackRate(GOLD, 0), rules.cashbackRate(GOLD, 0), DELTA);
+        assertEquals(defaults.cashbackRate(SILVER, TOP_TIER),
+                rules.cashbackRate(SILVER, TOP_TIER), DELTA);
+
+        assertEquals(STANDARD_TO_GOLD_FEE, rules.upgradeFee(STANDARD, GOLD));
+        assertEquals(defaults.upgradeFee(STUDENT, GOLD), rules.upgradeFee(STUDENT, GOLD));
+        assertEquals(defaults.upgradeFee(STANDARD, SILVER), rules.upgradeFee(STANDARD, SILVER));
+
+        assertEquals(defaults.spendingTier(LARGE_AMOUNT), rules.spendingTier(LARGE_AMOUNT));
+        assertEquals(defaults.couponRate(CommerciantCategory.TECH),
+                rules.couponRate(CommerciantCategory.TECH), DELTA);
+    }
+
+    /**
+     * Spending tiers that do not go up are rejected.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Test
+    void unorderedTiersAreRejected() throws IOException {
+        File file = write("""
+                {"spendingTiers": [100, 500, 300]}
+                """);
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.load(file));
+    }
+
+    /**
+     * Two coupons unlocked by the same number of transactions are rejected.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Test
+    void sharedCouponUnlockIsRejected() throws IOException {
+        File file = write("""
+                {"coupons": {"Tech": {"transactions": 2, "rate": 0.1}}}
+                """);
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.load(file));
+    }
+
+    /**
+     * A negative rate is rejected.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Test
+    void negativeRateIsRejected() throws IOException {
+        File file = write("""
+                {"commissions": {"gold": {"rate": -0.001}}}
+                """);
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.load(file));
+    }
+
+    /**
+     * Writes a pricing file in the temporary directory.
+     *
+     * @param json the content of the file.
+     * @return the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private File write(final String json) throws IOException {
+        return Files.writeString(directory.resolve("pricing.json"), json).toFile();
+    }
+}